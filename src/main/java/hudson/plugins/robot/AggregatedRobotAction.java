@@ -20,7 +20,9 @@ import hudson.model.AbstractBuild;
 import hudson.model.Action;
 import hudson.model.Run;
 import hudson.plugins.robot.graph.RobotGraphHelper;
+import hudson.plugins.robot.model.RobotCaseResult;
 import hudson.plugins.robot.model.RobotResult;
+import hudson.plugins.robot.model.RobotSuiteResult;
 import hudson.util.ChartUtil;
 import hudson.util.Graph;
 import org.apache.commons.lang.StringUtils;
@@ -29,7 +31,13 @@ import org.kohsuke.stapler.StaplerResponse2;
 
 import java.io.IOException;
 import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class AggregatedRobotAction implements Action {
 
@@ -45,6 +53,11 @@ public class AggregatedRobotAction implements Action {
 		aggregatedResult.addResult(result);
 	}
 
+	public void addConfiguration(ConfigurationResult configuration) {
+		if (aggregatedResult == null) aggregatedResult = new AggregatedRobotResult(this);
+		aggregatedResult.addConfiguration(configuration);
+	}
+
 	public AggregatedRobotResult getResult() {
 		return aggregatedResult;
 	}
@@ -107,6 +120,8 @@ public class AggregatedRobotAction implements Action {
 		private static final long serialVersionUID = 1L;
 		private final transient AggregatedRobotAction parent;
 		private int passed, failed, skipped;
+		// null in builds aggregated before configurations were summarized
+		private List<ConfigurationResult> configurations;
 
 		public AggregatedRobotResult(AggregatedRobotAction parent) {
 			this.parent = parent;
@@ -118,6 +133,49 @@ public class AggregatedRobotAction implements Action {
 			skipped += result.getOverallSkipped();
 		}
 
+		public void addConfiguration(ConfigurationResult configuration) {
+			if (configurations == null) configurations = new ArrayList<>();
+			configurations.add(configuration);
+			failed += configuration.getFailed();
+			passed += configuration.getPassed();
+			skipped += configuration.getSkipped();
+		}
+
+		/**
+		 * @return summaries of the configurations, empty for builds aggregated before they were kept
+		 */
+		public List<ConfigurationResult> getConfigurations() {
+			return configurations == null ? Collections.emptyList() : Collections.unmodifiableList(configurations);
+		}
+
+		public List<ConfigurationResult> getFailedConfigurations() {
+			List<ConfigurationResult> failedConfigurations = new ArrayList<>();
+			for (ConfigurationResult configuration : getConfigurations()) {
+				if (configuration.getFailed() > 0)
+					failedConfigurations.add(configuration);
+			}
+			return failedConfigurations;
+		}
+
+		/**
+		 * Tally the configurations by the values of each axis
+		 * @return results of each axis value, by axis name
+		 */
+		public Map<String, List<AxisValueResult>> getAxes() {
+			Map<String, Map<String, AxisValueResult>> axes = new LinkedHashMap<>();
+			for (ConfigurationResult configuration : getConfigurations()) {
+				for (Map.Entry<String, String> axis : configuration.getCombination().entrySet()) {
+					axes.computeIfAbsent(axis.getKey(), k -> new LinkedHashMap<>())
+							.computeIfAbsent(axis.getValue(), AxisValueResult::new)
+							.add(configuration);
+				}
+			}
+			Map<String, List<AxisValueResult>> result = new LinkedHashMap<>();
+			for (Map.Entry<String, Map<String, AxisValueResult>> axis : axes.entrySet())
+				result.put(axis.getKey(), new ArrayList<>(axis.getValue().values()));
+			return result;
+		}
+
 		@Override
 		public long getOverallPassed(){
 			return passed;
@@ -177,4 +235,203 @@ public class AggregatedRobotAction implements Action {
 			return null;
 		}
 	}
+
+	/**
+	 * Summary of the results of one configuration, kept in the parent build so
+	 * that showing it doesn't load the result of the configuration
+	 */
+	public static class ConfigurationResult implements Serializable {
+
+		@Serial
+		private static final long serialVersionUID = 1L;
+		static final int MAX_FAILED_SUITES = 100;
+
+		private final String name;
+		private final Map<String, String> combination;
+		private final String url;
+		private final int passed, failed, skipped;
+		private final long duration;
+		private final List<SuiteSummary> failedSuites = new ArrayList<>();
+		private int omittedFailedSuites;
+
+		public ConfigurationResult(String name, Map<String, String> combination, String url, int passed, int failed, int skipped, long duration) {
+			this.name = name;
+			this.combination = new LinkedHashMap<>(combination);
+			this.url = url;
+			this.passed = passed;
+			this.failed = failed;
+			this.skipped = skipped;
+			this.duration = duration;
+		}
+
+		/**
+		 * Summarize the result of a configuration
+		 * @param name name of the configuration
+		 * @param combination axis values of the configuration
+		 * @param url url of the configuration build
+		 * @param result result of the configuration
+		 * @return the summary
+		 */
+		public static ConfigurationResult of(String name, Map<String, String> combination, String url, RobotResult result) {
+			ConfigurationResult configuration = new ConfigurationResult(name, combination, url, (int) result.getOverallPassed(),
+					(int) result.getOverallFailed(), (int) result.getOverallSkipped(), result.getDuration());
+			for (RobotSuiteResult suite : result.getAllSuites()) {
+				// tests of the suite itself, not of its child suites
+				int failed = 0;
+				for (RobotCaseResult caseResult : suite.getCaseResults()) {
+					if (!caseResult.isPassed() && !caseResult.isSkipped())
+						failed++;
+				}
+				if (failed == 0)
+					continue;
+				if (configuration.failedSuites.size() < MAX_FAILED_SUITES)
+					configuration.failedSuites.add(new SuiteSummary(suite.getRelativePackageName(result), suite.getRelativeId(result),
+							failed, suite.getCaseResults().size()));
+				else
+					configuration.omittedFailedSuites++;
+			}
+			return configuration;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public Map<String, String> getCombination() {
+			return Collections.unmodifiableMap(combination);
+		}
+
+		/**
+		 * @return url of the configuration build relative to the root
+		 */
+		public String getUrl() {
+			return url;
+		}
+
+		public int getPassed() {
+			return passed;
+		}
+
+		public int getFailed() {
+			return failed;
+		}
+
+		public int getSkipped() {
+			return skipped;
+		}
+
+		public int getTotal() {
+			return passed + failed + skipped;
+		}
+
+		public long getDuration() {
+			return duration;
+		}
+
+		/**
+		 * @return suites with failed tests of their own, at most {@value #MAX_FAILED_SUITES}
+		 */
+		public List<SuiteSummary> getFailedSuites() {
+			return Collections.unmodifiableList(failedSuites);
+		}
+
+		public int getOmittedFailedSuites() {
+			return omittedFailedSuites;
+		}
+	}
+
+	/**
+	 * A suite with failed tests in a configuration, counting only the tests
+	 * of the suite itself
+	 */
+	public static class SuiteSummary implements Serializable {
+
+		@Serial
+		private static final long serialVersionUID = 1L;
+
+		private final String name;
+		private final String id;
+		private final int failed;
+		private final int total;
+
+		public SuiteSummary(String name, String id, int failed, int total) {
+			this.name = name;
+			this.id = id;
+			this.failed = failed;
+			this.total = total;
+		}
+
+		/**
+		 * @return full name of the suite
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return path of the suite in the results of the configuration
+		 */
+		public String getId() {
+			return id;
+		}
+
+		public int getFailed() {
+			return failed;
+		}
+
+		public int getTotal() {
+			return total;
+		}
+	}
+
+	/**
+	 * Results of the configurations with a value of an axis
+	 */
+	public static class AxisValueResult {
+
+		private final String value;
+		private int configurations, failedConfigurations;
+		private int passed, failed, skipped;
+
+		AxisValueResult(String value) {
+			this.value = value;
+		}
+
+		void add(ConfigurationResult configuration) {
+			configurations++;
+			if (configuration.getFailed() > 0)
+				failedConfigurations++;
+			passed += configuration.getPassed();
+			failed += configuration.getFailed();
+			skipped += configuration.getSkipped();
+		}
+
+		public String getValue() {
+			return value;
+		}
+
+		public int getConfigurations() {
+			return configurations;
+		}
+
+		public int getFailedConfigurations() {
+			return failedConfigurations;
+		}
+
+		public int getPassed() {
+			return passed;
+		}
+
+		public int getFailed() {
+			return failed;
+		}
+
+		public int getSkipped() {
+			return skipped;
+		}
+
+		public int getTotal() {
+			return passed + failed + skipped;
+		}
+	}
 }
@@ -0,0 +1,143 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*	http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.Computer;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Publishes running in the background, see
+ * {@link RobotPublisher#performInBackground}. They read copies of the output
+ * files in the build directory, not the workspace. A publish failing while
+ * the build runs fails the build. A build is finalized only after its
+ * publishes are done, but its result is already set by then, so failures of
+ * publishes that outlast the build are only reported in the build log.
+ * Publishes in progress are not resumed after a restart.
+ */
+public final class RobotBackgroundPublishes {
+
+	private static final Logger logger = Logger.getLogger(RobotBackgroundPublishes.class.getName());
+
+	/** Directory under the build directory the files of the publishes are copied to */
+	static final String STAGING_DIR = "robot-staging";
+
+	private static final Map<Run<?, ?>, List<Future<?>>> PUBLISHES = Collections.synchronizedMap(new WeakHashMap<>());
+
+	private RobotBackgroundPublishes() {
+	}
+
+	/**
+	 * @param build build published to
+	 * @return new directory to copy the files of a publish to
+	 * @throws IOException if the directory can't be created
+	 */
+	static FilePath createStagingDir(Run<?, ?> build) throws IOException {
+		Path staging = new File(build.getRootDir(), STAGING_DIR).toPath();
+		Files.createDirectories(staging);
+		return new FilePath(Files.createTempDirectory(staging, "publish").toFile());
+	}
+
+	/**
+	 * Start a publish in the background
+	 * @param build build published to
+	 * @param publish the publish
+	 * @return the publish in progress
+	 */
+	static Future<?> submit(Run<?, ?> build, Callable<Void> publish) {
+		Future<?> future = Computer.threadPoolForRemoting.submit(publish);
+		PUBLISHES.computeIfAbsent(build, b -> new CopyOnWriteArrayList<>()).add(future);
+		return future;
+	}
+
+	/**
+	 * @param build build
+	 * @return number of background publishes of the build not yet done
+	 */
+	public static int getPending(Run<?, ?> build) {
+		List<Future<?>> publishes = PUBLISHES.get(build);
+		return publishes == null ? 0 : (int) publishes.stream().filter(f -> !f.isDone()).count();
+	}
+
+	/**
+	 * Wait for the background publishes of a build
+	 * @param build build
+	 * @param listener listener to report waiting and failures to
+	 * @return number of publishes waited for
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public static int await(Run<?, ?> build, TaskListener listener) throws InterruptedException {
+		int pending = getPending(build);
+		if (pending > 0)
+			listener.getLogger().println(Messages.robot_publisher_background_wait(pending));
+		List<Future<?>> publishes = PUBLISHES.remove(build);
+		if (publishes == null)
+			return 0;
+		for (Future<?> publish : publishes) {
+			try {
+				publish.get();
+			} catch (ExecutionException e) {
+				logger.log(Level.WARNING, "Publishing Robot results of " + build + " failed", e.getCause());
+				e.getCause().printStackTrace(listener.error(Messages.robot_publisher_fail()));
+			} catch (InterruptedException e) {
+				for (Future<?> other : publishes)
+					other.cancel(true);
+				throw e;
+			}
+		}
+		return publishes.size();
+	}
+
+	/**
+	 * Keeps a build from being finalized while its results are being published,
+	 * and removes files left by publishes lost in a restart
+	 */
+	@Extension(ordinal = 1000)
+	public static class CompletionListener extends RunListener<Run<?, ?>> {
+
+		@Override
+		public void onCompleted(Run<?, ?> run, @NonNull TaskListener listener) {
+			try {
+				await(run, listener);
+				new FilePath(new File(run.getRootDir(), STAGING_DIR)).deleteRecursive();
+			} catch (IOException e) {
+				logger.log(Level.WARNING, "Failed to remove Robot files copied for " + run, e);
+			} catch (InterruptedException e) {
+				logger.log(Level.WARNING, "Interrupted while waiting for Robot results of " + run, e);
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,362 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*	http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.listeners.RunListener;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Archived files of a job stored once by their content. Files are hashed
+ * where they are, and only files the store doesn't already have are copied.
+ * The archive directory of each build gets a hard link to the stored file, so
+ * the link count of a stored file tells how many builds use it, and deleting
+ * a build releases its files. Stored files no build uses are removed when
+ * builds are deleted. Where hard links are not supported the build gets a
+ * copy of the stored file. Paths and hashes come from the agent, so they
+ * are checked before they are used on the controller.
+ */
+public final class RobotBlobStore {
+
+	private static final Logger logger = Logger.getLogger(RobotBlobStore.class.getName());
+
+	static final String DIR_NAME = "robot-blobs";
+	private static final String TMP_PREFIX = "tmp-";
+
+	// stores are shared by the builds of a job
+	private static final Map<File, Object> LOCKS = new ConcurrentHashMap<>();
+
+	private final File dir;
+
+	RobotBlobStore(File dir) {
+		this.dir = dir;
+	}
+
+	/**
+	 * @param job job
+	 * @return store of the job
+	 */
+	public static RobotBlobStore of(Job<?, ?> job) {
+		return new RobotBlobStore(new File(job.getRootDir(), DIR_NAME));
+	}
+
+	/**
+	 * Archive files to a directory through the store
+	 * @param srcDir directory to archive from
+	 * @param filemask Ant GLOB style filemasks of the files to archive
+	 * @param destDir archive directory of the build
+	 * @param compress true to store log and report files gzipped, see {@link RobotGzipFiles}
+	 * @return number of files that were already stored
+	 * @throws IOException if archiving fails
+	 * @throws InterruptedException if interrupted
+	 */
+	public int archive(FilePath srcDir, String filemask, File destDir, boolean compress) throws IOException, InterruptedException {
+		return archive(srcDir, srcDir.act(new HashFiles(filemask)), destDir, compress);
+	}
+
+	/**
+	 * Archive files listed by the agent. Nothing is written if any of the
+	 * entries has an invalid hash or a path outside the archive directory.
+	 */
+	int archive(FilePath srcDir, List<Entry> entries, File destDir, boolean compress) throws IOException, InterruptedException {
+		for (Entry entry : entries) {
+			if (!isHash(entry.hash))
+				throw new IOException("Invalid hash " + entry.hash + " of " + entry.path);
+			resolveInside(destDir, entry.path + RobotGzipFiles.SUFFIX);
+		}
+		int reused = 0;
+		for (Entry entry : entries) {
+			boolean gzip = compress && RobotGzipFiles.isCompressible(entry.path);
+			File dest = resolveInside(destDir, entry.path + (gzip ? RobotGzipFiles.SUFFIX : ""));
+			File blob = getBlob(entry.hash + (gzip ? RobotGzipFiles.SUFFIX : ""));
+			synchronized (getLock()) {
+				if (blob.exists()) {
+					link(blob, dest);
+					reused++;
+					continue;
+				}
+			}
+			Files.createDirectories(blob.getParentFile().toPath());
+			File tmp = File.createTempFile(TMP_PREFIX, null, blob.getParentFile());
+			try {
+				try (OutputStream out = Files.newOutputStream(tmp.toPath())) {
+					FilePath file = new FilePath(srcDir, entry.path);
+					if (gzip)
+						RobotGzipFiles.writeCompressed(file, out);
+					else
+						file.copyTo(out);
+				}
+				synchronized (getLock()) {
+					if (!blob.exists())
+						Files.move(tmp.toPath(), blob.toPath(), StandardCopyOption.ATOMIC_MOVE);
+					link(blob, dest);
+				}
+			} finally {
+				Files.deleteIfExists(tmp.toPath());
+			}
+		}
+		return reused;
+	}
+
+	/**
+	 * Remove stored files no build uses. Does nothing where link counts are
+	 * not available.
+	 * @return number of files removed
+	 * @throws IOException if listing the store fails
+	 */
+	public int collectGarbage() throws IOException {
+		return collectGarbage(Collections.emptySet());
+	}
+
+	/**
+	 * Remove stored files no build uses, not counting the given links
+	 * @param releasing file keys of links about to be deleted, see {@link #getFileKeys(File)}
+	 * @return number of files removed
+	 * @throws IOException if listing the store fails
+	 */
+	public int collectGarbage(Set<Object> releasing) throws IOException {
+		if (!dir.isDirectory())
+			return 0;
+		int removed = 0;
+		synchronized (getLock()) {
+			try (DirectoryStream<Path> prefixes = Files.newDirectoryStream(dir.toPath())) {
+				for (Path prefix : prefixes) {
+					if (!Files.isDirectory(prefix))
+						continue;
+					try (DirectoryStream<Path> blobs = Files.newDirectoryStream(prefix)) {
+						for (Path blob : blobs) {
+							// temporary files are removed by the publisher writing them
+							if (blob.getFileName().toString().startsWith(TMP_PREFIX))
+								continue;
+							Integer links = linkCount(blob);
+							if (links == null)
+								return removed;
+							if (!releasing.isEmpty() && releasing.contains(Files.readAttributes(blob, BasicFileAttributes.class).fileKey()))
+								links--;
+							if (links <= 1) {
+								Files.deleteIfExists(blob);
+								removed++;
+							}
+						}
+					}
+				}
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Get the file keys of the files in a directory, which identify stored
+	 * files linked from there
+	 * @param dir directory
+	 * @return file keys, empty if not available
+	 * @throws IOException if listing the directory fails
+	 */
+	public static Set<Object> getFileKeys(File dir) throws IOException {
+		Set<Object> keys = new HashSet<>();
+		if (!dir.isDirectory())
+			return keys;
+		try (Stream<Path> files = Files.walk(dir.toPath())) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+				if (attributes.isRegularFile() && attributes.fileKey() != null)
+					keys.add(attributes.fileKey());
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * @param hash hash from the agent
+	 * @return true for a SHA-256 hash as written by {@link #hash(Path)}
+	 */
+	static boolean isHash(String hash) {
+		if (hash == null || hash.length() != 64)
+			return false;
+		for (int i = 0; i < hash.length(); i++) {
+			char c = hash.charAt(i);
+			if ((c < '0' || c > '9') && (c < 'a' || c > 'f'))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Resolve a relative path from the agent in a directory of the
+	 * controller, checking it stays inside like tar extraction does
+	 * @param dir directory
+	 * @param path relative path
+	 * @return the file
+	 * @throws IOException if the path leads outside the directory
+	 */
+	static File resolveInside(File dir, String path) throws IOException {
+		Path base = dir.toPath().toAbsolutePath().normalize();
+		Path resolved;
+		try {
+			resolved = base.resolve(path).normalize();
+		} catch (InvalidPathException e) {
+			throw new IOException("Invalid path " + path, e);
+		}
+		if (!resolved.startsWith(base) || resolved.equals(base))
+			throw new IOException("Refusing to write " + path + " outside of " + dir);
+		return resolved.toFile();
+	}
+
+	File getBlob(String name) {
+		return new File(new File(dir, name.substring(0, 2)), name);
+	}
+
+	private Object getLock() {
+		return LOCKS.computeIfAbsent(dir.getAbsoluteFile(), d -> new Object());
+	}
+
+	private static void link(File blob, File dest) throws IOException {
+		Files.createDirectories(dest.getParentFile().toPath());
+		Files.deleteIfExists(dest.toPath());
+		try {
+			Files.createLink(dest.toPath(), blob.toPath());
+		} catch (UnsupportedOperationException | IOException e) {
+			// e.g. a file system without hard links
+			logger.log(Level.FINE, "Couldn't link " + dest + ", copying", e);
+			Files.copy(blob.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private static Integer linkCount(Path file) throws IOException {
+		try {
+			return (Integer) Files.getAttribute(file, "unix:nlink");
+		} catch (UnsupportedOperationException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * A file to archive and the hash of its content
+	 */
+	static final class Entry implements Serializable {
+
+		@Serial
+		private static final long serialVersionUID = 1L;
+
+		final String path;
+		final String hash;
+
+		Entry(String path, String hash) {
+			this.path = path;
+			this.hash = hash;
+		}
+	}
+
+	/**
+	 * Lists the files to archive with SHA-256 hashes of their content, run
+	 * where the files are
+	 */
+	private static final class HashFiles extends MasterToSlaveFileCallable<List<Entry>> {
+
+		@Serial
+		private static final long serialVersionUID = 1L;
+
+		private final String filemask;
+
+		HashFiles(String filemask) {
+			this.filemask = filemask;
+		}
+
+		@Override
+		public List<Entry> invoke(File dir, VirtualChannel channel) throws IOException, InterruptedException {
+			Path base = dir.toPath();
+			List<Entry> entries = new ArrayList<>();
+			for (FilePath file : new FilePath(dir).list(filemask)) {
+				Path path = Path.of(file.getRemote());
+				String relative = base.relativize(path).toString().replace(File.separatorChar, '/');
+				entries.add(new Entry(relative, hash(path)));
+			}
+			return entries;
+		}
+	}
+
+	static String hash(Path file) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		byte[] buffer = new byte[64 * 1024];
+		try (InputStream in = Files.newInputStream(file)) {
+			for (int read = in.read(buffer); read >= 0; read = in.read(buffer))
+				digest.update(buffer, 0, read);
+		}
+		StringBuilder sb = new StringBuilder(64);
+		for (byte b : digest.digest())
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		return sb.toString();
+	}
+
+	/**
+	 * Removes stored files of deleted builds
+	 */
+	@Extension
+	public static class BuildDeletionListener extends RunListener<Run<?, ?>> {
+
+		@Override
+		public void onDeleted(Run<?, ?> run) {
+			RobotBuildAction action = run.getAction(RobotBuildAction.class);
+			if (action == null)
+				return;
+			RobotBlobStore store = of(run.getParent());
+			if (!store.dir.isDirectory())
+				return;
+			try {
+				// called before the build directory is deleted
+				int removed = store.collectGarbage(getFileKeys(new File(action.getRobotDir().getRemote())));
+				if (removed > 0)
+					logger.fine(() -> "Removed " + removed + " stored Robot files after deleting " + run);
+			} catch (IOException e) {
+				logger.log(Level.WARNING, "Couldn't clean up stored Robot files of " + run.getParent(), e);
+			}
+		}
+	}
+}
@@ -21,6 +21,8 @@ import hudson.model.*;
 import hudson.plugins.robot.graph.RobotGraphHelper;
 import hudson.plugins.robot.model.RobotTestObject;
 import hudson.plugins.robot.model.RobotCaseResult;
+import hudson.plugins.robot.model.RobotKeywordStatistics;
+import hudson.plugins.robot.model.RobotProcessWindow;
 import hudson.plugins.robot.model.RobotResult;
 import hudson.plugins.robot.model.RobotSuiteResult;
 
@@ -33,12 +35,19 @@ import hudson.util.XStream2;
 import java.io.File;
 import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
 
 import org.apache.commons.lang.StringUtils;
 import org.kohsuke.stapler.StaplerProxy;
@@ -54,7 +63,31 @@ public class RobotBuildAction extends AbstractTestResultAction<RobotBuildAction>
 	private static final Logger logger = Logger.getLogger(RobotBuildAction.class.getName());
 	private static final XStream XSTREAM = new XStream2();
 
+	/**
+	 * Format of the saved result. Raise when results saved by earlier versions
+	 * should be saved again, see {@link RobotResultMigration}. Format 2 adds
+	 * the {@link RobotFailureIndex}, format 3 the {@link RobotTimeline},
+	 * format 4 moves the error messages and stack traces kept in the cases
+	 * of older results out of them and format 5 adds the
+	 * {@link RobotDurationIndex}.
+	 */
+	static final int RESULT_FORMAT = 5;
+
+	/**
+	 * File in the build directory marking a result set but not saved yet. A
+	 * result with the file left by a failed save or a restart is not loaded,
+	 * as robot_results.xml is missing or older than the build records.
+	 */
+	static final String PENDING_SAVE_FILE = "robot_results.pending";
+
 	private transient WeakReference<RobotResult> resultReference;
+	// kept in memory until saved
+	private transient RobotResult unsavedResult;
+	// tests of a run in progress, kept in memory only until the run is published
+	private transient RobotResult provisionalResult;
+	private transient Future<?> pendingWrite;
+	private transient SaveCompletion pendingSave;
+	private transient Object writeLock;
 	private transient String reportFileName;
 	private String outputPath;
 	private String logFileLink;
@@ -66,12 +99,20 @@ public class RobotBuildAction extends AbstractTestResultAction<RobotBuildAction>
 
 	private boolean countSkippedTests;
 	private boolean useArtifactManager;
+	// 0 for results saved before the format was recorded
+	private int resultFormat;
+	// results of a run in progress, see RobotLiveStep
+	private boolean provisional;
 
 	static {
 		XSTREAM.alias("result",RobotResult.class);
 		XSTREAM.alias("suite",RobotSuiteResult.class);
 		XSTREAM.alias("case",RobotCaseResult.class);
+		XSTREAM.alias("process",RobotProcessWindow.class);
 		XSTREAM.registerConverter(new HeapSpaceStringConverter(),100);
+		// stored in a file of their own
+		XSTREAM.omitField(RobotResult.class, "stackTraces");
+		XSTREAM.omitField(RobotResult.class, "keywordStatistics");
 	}
 
 	/**
@@ -121,21 +162,369 @@ public class RobotBuildAction extends AbstractTestResultAction<RobotBuildAction>
 	}
 
 	/**
-	 * Loads new data to {@link RobotResult}.
+	 * Loads new data to {@link RobotResult}. The result is available at once
+	 * and saved in the background, see {@link RobotResultWriter}.
 	 * @param listener TaskListener from Jenkins
 	 * @param result RobotResult to set
 	 */
-	synchronized public void setResult(RobotResult result, TaskListener listener) {
-		result.tally(this);
+	public void setResult(RobotResult result, TaskListener listener) {
+		// locked in the order of saveResult, see submitSave
+		synchronized (getWriteLock()) {
+			synchronized (this) {
+				result.tally(this);
+				unsavedResult = result;
+				resultFormat = RESULT_FORMAT;
+				cacheRobotResult(result);
+				markSavePending();
+				submitSave(listener);
+			}
+		}
+	}
+
+	/**
+	 * Merge the result of another publish in the same build into the result
+	 * of this action, see {@link RobotResult#merge(RobotResult, String)}. The
+	 * merged result is saved in the background like in
+	 * {@link #setResult(RobotResult, TaskListener)}.
+	 * @param result result to merge
+	 * @param name name of the result set, null or blank to merge the suites as they are
+	 * @param listener TaskListener from Jenkins
+	 */
+	public void mergeResult(RobotResult result, String name, TaskListener listener) {
+		updateResult(merged -> merged.merge(result, name), listener);
+	}
+
+	/**
+	 * Add tests a run still in progress has completed to the result of this
+	 * action, see {@link RobotResult#addCases(RobotResult)}. Only the counts
+	 * of the added tests are updated, and the result is not saved, as the
+	 * publish at the end of the run replaces it.
+	 * @param tests tests to add
+	 * @throws InterruptedException if interrupted while waiting for the action to be saved
+	 */
+	public void addProvisionalResult(RobotResult tests) throws InterruptedException {
+		// the result the action was created with is saved once, not while tests are added
+		waitForSave();
+		synchronized (this) {
+			if (provisionalResult == null) {
+				provisionalResult = getResult();
+				if (provisionalResult == null)
+					throw new IllegalStateException("Couldn't load the Robot test result of " + build + " to update");
+			}
+			provisionalResult.addCases(tests);
+		}
+	}
+
+	private void updateResult(Consumer<RobotResult> update, TaskListener listener) {
+		// not while the result is being written
+		synchronized (getWriteLock()) {
+			synchronized (this) {
+				RobotResult updated = getResult();
+				if (updated == null)
+					throw new IllegalStateException("Couldn't load the Robot test result of " + build + " to update");
+				update.accept(updated);
+				unsavedResult = updated;
+				resultFormat = RESULT_FORMAT;
+				cacheRobotResult(updated);
+				markSavePending();
+				submitSave(listener);
+			}
+		}
+	}
+
+	/**
+	 * @return true if the result is of a run still in progress, to be
+	 * replaced when the run is published
+	 */
+	public boolean isProvisional() {
+		return provisional;
+	}
+
+	void setProvisional(boolean provisional) {
+		this.provisional = provisional;
+	}
+
+	private void markSavePending() {
 		try {
-			getDataFile().write(result);
+			Files.write(getPendingSaveFile().toPath(), new byte[0]);
 		} catch (IOException e) {
-			if (listener != null) {
-				e.printStackTrace(listener.fatalError("Failed to save the Robot test result"));
+			logger.log(Level.WARNING, "Couldn't mark the Robot test result of " + build + " as not saved", e);
+		}
+	}
+
+	private File getPendingSaveFile() {
+		return new File(getOwner().getRootDir(), PENDING_SAVE_FILE);
+	}
+
+	/**
+	 * The caller holds the write lock before the lock of this action, as the
+	 * save runs in the calling thread when the writer's queue is full.
+	 */
+	private synchronized void submitSave(TaskListener listener) {
+		SaveCompletion completion = new SaveCompletion();
+		pendingSave = completion;
+		pendingWrite = RobotResultWriter.get().submit(() -> {
+			try {
+				saveResult(listener);
+			} finally {
+				completion.complete();
+			}
+		});
+	}
+
+	/**
+	 * Close a resource when the result set last has been saved, e.g. the
+	 * permit of a publish, so the save is done within the
+	 * {@link RobotPublishLimiter} capacity of the publish.
+	 * @param resource resource to close, at once if there is no save pending
+	 */
+	public void closeWhenSaved(AutoCloseable resource) {
+		SaveCompletion completion;
+		synchronized (this) {
+			completion = pendingSave;
+		}
+		if (completion == null)
+			SaveCompletion.close(resource);
+		else
+			completion.add(resource);
+	}
+
+	/**
+	 * Wait until the result set last has been saved
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void waitForSave() throws InterruptedException {
+		Future<?> write;
+		synchronized (this) {
+			write = pendingWrite;
+		}
+		if (write == null)
+			return;
+		try {
+			write.get();
+		} catch (ExecutionException e) {
+			// reported by saveResult
+		}
+	}
+
+	private void saveResult(TaskListener listener) {
+		synchronized (getWriteLock()) {
+			RobotResult result;
+			synchronized (this) {
+				result = unsavedResult;
+			}
+			// already saved by a later write
+			if (result == null)
+				return;
+			try {
+				result.storeStackTraces();
+				getDataFile().write(result);
+				RobotFailureIndex.of(result).write(getFailureIndexFile());
+				RobotDurationIndex.of(result).write(getDurationIndexFile());
+				RobotTimeline.of(result).write(getTimelineFile());
+				if (result.getKeywordStatistics() != null)
+					result.getKeywordStatistics().write(getKeywordStatisticsFile());
+				synchronized (this) {
+					if (unsavedResult == result) {
+						unsavedResult = null;
+						Files.deleteIfExists(getPendingSaveFile().toPath());
+					}
+				}
+			} catch (IOException | RuntimeException e) {
+				// the result stays in memory, so the build shows it until restart
+				logger.log(Level.SEVERE, "Failed to save the Robot test result of " + build, e);
+				if (listener != null) {
+					e.printStackTrace(listener.fatalError("Failed to save the Robot test result"));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return true if the result was saved in an older format
+	 */
+	public synchronized boolean isMigrationNeeded() {
+		return resultFormat < RESULT_FORMAT && result == null && unsavedResult == null;
+	}
+
+	/**
+	 * Save the result again in the current format. The result is loaded for
+	 * this only, so a result that is not already in memory is not kept there.
+	 * The caller saves the build to record the new format.
+	 * @throws IOException if loading or saving fails
+	 */
+	public void migrateResult() throws IOException {
+		synchronized (getWriteLock()) {
+			RobotResult loaded = load();
+			if (loaded == null)
+				throw new IOException("Couldn't load " + getDataFile());
+			loaded.compactLegacyDetails();
+			loaded.storeStackTraces();
+			getDataFile().write(loaded);
+			RobotFailureIndex.of(loaded).write(getFailureIndexFile());
+			RobotDurationIndex.of(loaded).write(getDurationIndexFile());
+			RobotTimeline.of(loaded).write(getTimelineFile());
+			synchronized (this) {
+				resultFormat = RESULT_FORMAT;
+			}
+		}
+	}
+
+	/**
+	 * @return the saved result file
+	 */
+	public File getResultFile() {
+		return getDataFile().getFile();
+	}
+
+	/**
+	 * Failed tests of the result. Read from the file written with the result,
+	 * so the result is not loaded for this unless it was saved without one.
+	 * @return failed tests
+	 */
+	public RobotFailureIndex getFailureIndex() {
+		RobotResult inMemory = getInMemoryResult();
+		if (inMemory != null)
+			return RobotFailureIndex.of(inMemory);
+		File file = getFailureIndexFile();
+		if (file.exists()) {
+			try {
+				return RobotFailureIndex.read(file);
+			} catch (IOException e) {
+				logger.log(Level.WARNING, "Couldn't read " + file, e);
+			}
+		}
+		RobotResult result = getResult();
+		if (result == null)
+			throw new IllegalStateException("Couldn't load the Robot test result of " + build);
+		return RobotFailureIndex.of(result);
+	}
+
+	/**
+	 * @return result not saved yet or of a run in progress, null if none
+	 */
+	private synchronized RobotResult getInMemoryResult() {
+		return unsavedResult != null ? unsavedResult : provisionalResult;
+	}
+
+	private File getFailureIndexFile() {
+		return new File(getOwner().getRootDir(), RobotFailureIndex.FILE);
+	}
+
+	/**
+	 * Durations of the tests and suites of the result. Read from the file
+	 * written with the result. For a result saved without one the result is
+	 * loaded and the file written, so it is loaded for this only once.
+	 * @return durations, null if the result couldn't be loaded
+	 */
+	public RobotDurationIndex getDurationIndex() {
+		RobotResult inMemory = getInMemoryResult();
+		if (inMemory != null)
+			return RobotDurationIndex.of(inMemory);
+		File file = getDurationIndexFile();
+		long lastModified = file.lastModified();
+		if (lastModified != 0) {
+			try {
+				return RobotDurationIndex.read(file);
+			} catch (IOException e) {
+				logger.log(Level.WARNING, "Couldn't read " + file, e);
 			}
 		}
+		RobotResult result = getResult();
+		if (result == null)
+			return null;
+		RobotDurationIndex index = RobotDurationIndex.of(result);
+		synchronized (getWriteLock()) {
+			// unless a save meanwhile wrote the file of its own result
+			if (file.lastModified() == lastModified) {
+				try {
+					index.write(file);
+				} catch (IOException e) {
+					logger.log(Level.WARNING, "Couldn't write " + file, e);
+				}
+			}
+		}
+		return index;
+	}
 
-		cacheRobotResult(result);
+	private File getDurationIndexFile() {
+		return new File(getOwner().getRootDir(), RobotDurationIndex.FILE);
+	}
+
+	/**
+	 * Timeline of the result. Read from the file written with the result, so
+	 * the result is not loaded for this unless it was saved without one.
+	 * @return timeline
+	 */
+	public RobotTimeline getTimeline() {
+		RobotTimeline timeline = null;
+		RobotResult inMemory = getInMemoryResult();
+		if (inMemory != null)
+			timeline = RobotTimeline.of(inMemory);
+		File file = getTimelineFile();
+		if (timeline == null && file.exists()) {
+			try {
+				timeline = RobotTimeline.read(file);
+			} catch (IOException e) {
+				logger.log(Level.WARNING, "Couldn't read " + file, e);
+			}
+		}
+		if (timeline == null) {
+			RobotResult result = getResult();
+			if (result == null)
+				throw new IllegalStateException("Couldn't load the Robot test result of " + build);
+			timeline = RobotTimeline.of(result);
+		}
+		timeline.setOwner(getOwner());
+		return timeline;
+	}
+
+	private File getTimelineFile() {
+		return new File(getOwner().getRootDir(), RobotTimeline.FILE);
+	}
+
+	/**
+	 * Statistics of the keywords of the build, if collected when publishing.
+	 * Read from the file written with the result, so the result is not
+	 * loaded for this.
+	 * @return statistics, null if not collected
+	 */
+	public RobotKeywordStatistics getKeywordStatistics() {
+		RobotKeywordStatistics statistics = null;
+		RobotResult inMemory = getInMemoryResult();
+		if (inMemory != null)
+			statistics = inMemory.getKeywordStatistics();
+		File file = getKeywordStatisticsFile();
+		if (statistics == null && file.exists()) {
+			try {
+				statistics = RobotKeywordStatistics.read(file);
+			} catch (IOException e) {
+				logger.log(Level.WARNING, "Couldn't read " + file, e);
+			}
+		}
+		if (statistics != null)
+			statistics.setOwner(getOwner());
+		return statistics;
+	}
+
+	/**
+	 * @return true if keyword statistics were collected for the build
+	 */
+	public boolean getHasKeywordStatistics() {
+		RobotResult inMemory = getInMemoryResult();
+		if (inMemory != null && inMemory.getKeywordStatistics() != null)
+			return true;
+		return getKeywordStatisticsFile().exists();
+	}
+
+	private File getKeywordStatisticsFile() {
+		return new File(getOwner().getRootDir(), RobotKeywordStatistics.FILE);
+	}
+
+	private synchronized Object getWriteLock() {
+		if (writeLock == null)
+			writeLock = new Object();
+		return writeLock;
 	}
 
 	/**
@@ -145,6 +534,8 @@ public class RobotBuildAction extends AbstractTestResultAction<RobotBuildAction>
 		RobotResult returnable;
 
 		if (result != null) return result;
+		if (unsavedResult != null) return unsavedResult;
+		if (provisionalResult != null) return provisionalResult;
 
 		if (resultReference == null) {
 			returnable = load();
@@ -174,6 +565,10 @@ public class RobotBuildAction extends AbstractTestResultAction<RobotBuildAction>
 	 * Loads a {@link RobotResult} from disk.
 	 */
 	private RobotResult load() {
+		if (getPendingSaveFile().exists()) {
+			logger.severe("The Robot test result of " + build + " was not saved completely, not loading " + getDataFile());
+			return null;
+		}
 		RobotResult loadedResult;
 		try {
 			loadedResult = (RobotResult)getDataFile().read();
@@ -181,7 +576,7 @@ public class RobotBuildAction extends AbstractTestResultAction<RobotBuildAction>
 			logger.log(Level.WARNING, "Couldn't load " + getDataFile(),e);
 			return null;
 		}
-		loadedResult.tally(this);
+		loadedResult.restore(this);
 		return loadedResult;
 	}
 
@@ -198,7 +593,8 @@ public class RobotBuildAction extends AbstractTestResultAction<RobotBuildAction>
 	 * @return percent number
 	 */
 	public double getOverallPassPercentage(){
-		return getResult().getPassPercentage(false);
+		RobotResult result = getResult();
+		return result == null ? 0 : result.getPassPercentage(false);
 	}
 
 	/**
@@ -206,16 +602,18 @@ public class RobotBuildAction extends AbstractTestResultAction<RobotBuildAction>
 	 * @return percent number
 	 */
 	public double getPassPercentageWithSkipped() {
-		return getResult().getPassPercentage(true);
+		RobotResult result = getResult();
+		return result == null ? 0 : result.getPassPercentage(true);
 	}
 
 	/**
 	 * Find test object from the results object tree
 	 * @param id path e.g. "suite/nestedsuite/testcase"
-	 * @return test object
+	 * @return test object, null if not found or the result couldn't be loaded
 	 */
 	public RobotTestObject findObjectById(String id) {
-		return getResult().findObjectById(id);
+		RobotResult result = getResult();
+		return result == null ? null : result.findObjectById(id);
 	}
 
 	/**
@@ -243,11 +641,16 @@ public class RobotBuildAction extends AbstractTestResultAction<RobotBuildAction>
 		String indexFile = getReportFileName();
 		FilePath robotDir = getRobotDir();
 
-		if(!new FilePath(robotDir, indexFile).exists()){
+		File dir = new File(robotDir.getRemote());
+		if(!RobotReportFiles.exists(dir, indexFile)){
 			rsp.sendRedirect("notfound");
 			return;
 		}
 
+		String rest = req.getRestOfPath();
+		if (RobotReportFiles.serve(dir, rest.isEmpty() || rest.equals("/") ? indexFile : rest.substring(1), req, rsp, !build.isBuilding()))
+			return;
+
 		DirectoryBrowserSupport dbs = new DirectoryBrowserSupport(this,
 				getRobotDir(), getDisplayName(),
 				"folder.gif", false);
@@ -279,8 +682,13 @@ public class RobotBuildAction extends AbstractTestResultAction<RobotBuildAction>
 		if (maxBuildsReq == null || maxBuildsReq.isEmpty())
 			maxBuildsReq = "0"; // show all builds by default
 
+		RobotResult result = getResult();
+		if (result == null) {
+			rsp.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
 		String labelFormat = StringUtils.isBlank(xAxisLabel) ? RobotConfig.getInstance().getXAxisLabelFormat() : xAxisLabel;
-		Graph g = RobotGraphHelper.createTestResultsGraphForTestObject(getResult(),
+		Graph g = RobotGraphHelper.createTestResultsGraphForTestObject(result,
 				Boolean.parseBoolean(req.getParameter("zoomSignificant")), false,
 				Boolean.parseBoolean(req.getParameter("hd")),
 				Boolean.parseBoolean(req.getParameter("failedOnly")),
@@ -302,12 +710,14 @@ public class RobotBuildAction extends AbstractTestResultAction<RobotBuildAction>
 
 	@Override
 	public int getFailCount() {
-		return (int) getResult().getOverallFailed();
+		RobotResult result = getResult();
+		return result == null ? 0 : (int) result.getOverallFailed();
 	}
 
 	@Override
 	public int getTotalCount() {
-		return (int) getResult().getOverallTotal();
+		RobotResult result = getResult();
+		return result == null ? 0 : (int) result.getOverallTotal();
 	}
 
 	/**
@@ -339,7 +749,8 @@ public class RobotBuildAction extends AbstractTestResultAction<RobotBuildAction>
 	}
 
 	public List<RobotCaseResult> getAllTests() {
-		return getResult().getAllCases();
+		RobotResult result = getResult();
+		return result == null ? Collections.emptyList() : result.getAllCases();
 	}
 
 	public boolean isCountSkippedTests() {
@@ -353,4 +764,42 @@ public class RobotBuildAction extends AbstractTestResultAction<RobotBuildAction>
 	public boolean getUseArtifactManager() {
 		return useArtifactManager;
 	}
+
+	/**
+	 * Resources to close when a save is done
+	 */
+	private static final class SaveCompletion {
+
+		private final List<AutoCloseable> resources = new ArrayList<>();
+		private boolean done;
+
+		void add(AutoCloseable resource) {
+			synchronized (this) {
+				if (!done) {
+					resources.add(resource);
+					return;
+				}
+			}
+			close(resource);
+		}
+
+		void complete() {
+			List<AutoCloseable> closing;
+			synchronized (this) {
+				done = true;
+				closing = new ArrayList<>(resources);
+				resources.clear();
+			}
+			for (AutoCloseable resource : closing)
+				close(resource);
+		}
+
+		static void close(AutoCloseable resource) {
+			try {
+				resource.close();
+			} catch (Exception e) {
+				logger.log(Level.WARNING, "Couldn't close " + resource + " after saving a Robot result", e);
+			}
+		}
+	}
 }
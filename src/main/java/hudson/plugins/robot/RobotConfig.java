@@ -11,6 +11,7 @@ public class RobotConfig extends GlobalConfiguration {
 	private boolean robotResultsColumnEnabled = true;
 	private int buildsToShowInResultsColumn = 15;
 	private String xAxisLabelFormat = "#$build";
+	private int publishMemoryLimit;
 
 	public RobotConfig() {
 		load();
@@ -28,6 +29,7 @@ public class RobotConfig extends GlobalConfiguration {
 		robotResultsColumnEnabled = o.getBoolean("robotResultsColumnEnabled");
 		buildsToShowInResultsColumn = o.getInt("buildsToShowInResultsColumn");
 		xAxisLabelFormat = o.getString("xAxisLabelFormat");
+		publishMemoryLimit = o.optInt("publishMemoryLimit", 0);
 
 		save();
 		return super.configure(req, o);
@@ -41,6 +43,13 @@ public class RobotConfig extends GlobalConfiguration {
 	}
 	public String getXAxisLabelFormat() { return xAxisLabelFormat; }
 
+	/**
+	 * @return megabytes of results that may be published at the same time, 0 for a quarter of the maximum heap
+	 */
+	public int getPublishMemoryLimit() {
+		return publishMemoryLimit;
+	}
+
 	public void setBuildsToShowInResultsColumn(int buildsToShowInResultsColumn) {
 		this.buildsToShowInResultsColumn = buildsToShowInResultsColumn;
 	}
@@ -53,4 +62,8 @@ public class RobotConfig extends GlobalConfiguration {
 		this.xAxisLabelFormat = xAxisLabelFormat;
 	}
 
+	public void setPublishMemoryLimit(int publishMemoryLimit) {
+		this.publishMemoryLimit = publishMemoryLimit;
+	}
+
 }
@@ -0,0 +1,134 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*	http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot;
+
+import hudson.plugins.robot.model.RobotCaseResult;
+import hudson.plugins.robot.model.RobotResult;
+import hudson.plugins.robot.model.RobotSuiteResult;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Durations of the tests and suites of a build stored next to the result
+ * xml, so shards can be planned without loading the result, see
+ * {@link RobotShardPlanner}. The file has the number of tests followed by
+ * the full name and duration of each, and the same for the suites. Only
+ * suites that have tests are included, with the duration of their own
+ * tests if they also have child suites.
+ */
+public final class RobotDurationIndex {
+
+	static final String FILE = "robot_durations.dat";
+
+	// full name -> duration in milliseconds, in the order of the result
+	private final List<Map.Entry<String, Long>> tests;
+	private final List<Map.Entry<String, Long>> suites;
+
+	private RobotDurationIndex(List<Map.Entry<String, Long>> tests, List<Map.Entry<String, Long>> suites) {
+		this.tests = tests;
+		this.suites = suites;
+	}
+
+	/**
+	 * @param result result
+	 * @return durations of the tests and suites of the result
+	 */
+	public static RobotDurationIndex of(RobotResult result) {
+		List<Map.Entry<String, Long>> tests = new ArrayList<>();
+		List<Map.Entry<String, Long>> suites = new ArrayList<>();
+		for (RobotSuiteResult suite : result.getAllSuites()) {
+			Collection<RobotCaseResult> cases = suite.getCaseResults();
+			if (cases.isEmpty())
+				continue;
+			String suiteName = RobotShardPlanner.getFullName(suite);
+			long ownDuration = 0;
+			for (RobotCaseResult caseResult : cases) {
+				tests.add(Map.entry(suiteName + "." + caseResult.getName(), caseResult.getDuration()));
+				ownDuration += caseResult.getDuration();
+			}
+			// the child suites are items of their own
+			suites.add(Map.entry(suiteName, suite.getChildSuites().isEmpty() ? suite.getDuration() : ownDuration));
+		}
+		return new RobotDurationIndex(tests, suites);
+	}
+
+	/**
+	 * Write to file. The previous file is replaced only when the new one has
+	 * been completely written.
+	 * @param file file to write to
+	 * @throws IOException if writing fails
+	 */
+	public void write(File file) throws IOException {
+		File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+			writeItems(out, tests);
+			writeItems(out, suites);
+		}
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void writeItems(DataOutputStream out, List<Map.Entry<String, Long>> items) throws IOException {
+		out.writeInt(items.size());
+		for (Map.Entry<String, Long> item : items) {
+			out.writeUTF(item.getKey());
+			out.writeLong(item.getValue());
+		}
+	}
+
+	/**
+	 * @param file file written by {@link #write(File)}
+	 * @return durations in the file
+	 * @throws IOException if reading fails
+	 */
+	public static RobotDurationIndex read(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			List<Map.Entry<String, Long>> tests = readItems(in);
+			return new RobotDurationIndex(tests, readItems(in));
+		}
+	}
+
+	private static List<Map.Entry<String, Long>> readItems(DataInputStream in) throws IOException {
+		int count = in.readInt();
+		List<Map.Entry<String, Long>> items = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			String name = in.readUTF();
+			items.add(Map.entry(name, in.readLong()));
+		}
+		return items;
+	}
+
+	/**
+	 * @param tests true for tests, false for suites that have tests
+	 * @return duration in milliseconds by full name, in the order of the result
+	 */
+	public List<Map.Entry<String, Long>> getDurations(boolean tests) {
+		return Collections.unmodifiableList(tests ? this.tests : suites);
+	}
+}
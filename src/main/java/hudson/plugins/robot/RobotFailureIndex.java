@@ -0,0 +1,174 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*	http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot;
+
+import hudson.plugins.robot.model.RobotCaseResult;
+import hudson.plugins.robot.model.RobotResult;
+import hudson.plugins.robot.model.RobotSuiteResult;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Failed tests of a build stored next to the result xml, so they can be
+ * listed without loading the result. The file has the number of suites with
+ * failed tests and, for each suite, its full name followed by the number and
+ * names of its failed tests. Suites are in the order of the result.
+ */
+public final class RobotFailureIndex {
+
+	static final String FILE = "robot_failed.dat";
+
+	// full suite name -> names of its failed tests
+	private final Map<String, List<String>> failed;
+
+	private RobotFailureIndex(Map<String, List<String>> failed) {
+		this.failed = failed;
+	}
+
+	/**
+	 * @param result result
+	 * @return failed tests of the result
+	 */
+	public static RobotFailureIndex of(RobotResult result) {
+		Map<String, List<String>> failed = new LinkedHashMap<>();
+		for (RobotSuiteResult suite : result.getAllSuites()) {
+			List<String> tests = null;
+			for (RobotCaseResult caseResult : suite.getCaseResults()) {
+				if (caseResult.isPassed() || caseResult.isSkipped())
+					continue;
+				if (tests == null)
+					tests = failed.computeIfAbsent(RobotShardPlanner.getFullName(suite), s -> new ArrayList<>());
+				tests.add(caseResult.getName());
+			}
+		}
+		return new RobotFailureIndex(failed);
+	}
+
+	/**
+	 * Write to file. The previous file is replaced only when the new one has
+	 * been completely written.
+	 * @param file file to write to
+	 * @throws IOException if writing fails
+	 */
+	public void write(File file) throws IOException {
+		File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+			out.writeInt(failed.size());
+			for (Map.Entry<String, List<String>> suite : failed.entrySet()) {
+				out.writeUTF(suite.getKey());
+				out.writeInt(suite.getValue().size());
+				for (String test : suite.getValue())
+					out.writeUTF(test);
+			}
+		}
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * @param file file written by {@link #write(File)}
+	 * @return failed tests in the file
+	 * @throws IOException if reading fails
+	 */
+	public static RobotFailureIndex read(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			int suites = in.readInt();
+			Map<String, List<String>> failed = new LinkedHashMap<>();
+			for (int i = 0; i < suites; i++) {
+				String suite = in.readUTF();
+				int count = in.readInt();
+				List<String> tests = new ArrayList<>(count);
+				for (int j = 0; j < count; j++)
+					tests.add(in.readUTF());
+				failed.put(suite, tests);
+			}
+			return new RobotFailureIndex(failed);
+		}
+	}
+
+	/**
+	 * @return number of failed tests
+	 */
+	public int getCount() {
+		int count = 0;
+		for (List<String> tests : failed.values())
+			count += tests.size();
+		return count;
+	}
+
+	/**
+	 * @return full names of the failed tests
+	 */
+	public List<String> getFailedTests() {
+		List<String> tests = new ArrayList<>(getCount());
+		failed.forEach((suite, names) -> {
+			for (String name : names)
+				tests.add(suite + "." + name);
+		});
+		return tests;
+	}
+
+	/**
+	 * @return full names of the suites that have failed tests of their own
+	 */
+	public Set<String> getFailedSuites() {
+		return Collections.unmodifiableSet(failed.keySet());
+	}
+
+	/**
+	 * Robot argument file that selects the failed tests, or the suites with
+	 * failed tests, like --rerunfailed and --rerunfailedsuites do. Empty if no
+	 * test failed, so check before running with it.
+	 * @param suites true for --suite lines, false for --test lines
+	 * @return content of the argument file
+	 */
+	public String toArgumentFile(boolean suites) {
+		StringBuilder sb = new StringBuilder();
+		for (String name : suites ? getFailedSuites() : getFailedTests())
+			sb.append(suites ? "--suite " : "--test ").append(escape(name)).append('\n');
+		return sb.toString();
+	}
+
+	/**
+	 * Names are matched as glob patterns, so escape the pattern characters
+	 * by putting each in brackets of its own.
+	 */
+	static String escape(String name) {
+		StringBuilder sb = new StringBuilder(name.length());
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (c == '*' || c == '?' || c == '[')
+				sb.append('[').append(c).append(']');
+			else
+				sb.append(c);
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,156 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*	http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot;
+
+import hudson.FilePath;
+import hudson.remoting.RemoteOutputStream;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serial;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Robot log and report files archived gzipped. A file is stored with suffix
+ * .gz and served by its original name, see {@link RobotReportFiles}.
+ */
+public final class RobotGzipFiles {
+
+	static final String SUFFIX = ".gz";
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private RobotGzipFiles() {
+	}
+
+	/**
+	 * @param fileName file name
+	 * @return true for the html and javascript files of Robot logs and reports
+	 */
+	public static boolean isCompressible(String fileName) {
+		return fileName.endsWith(".html") || fileName.endsWith(".js");
+	}
+
+	/**
+	 * Copy files, compressing log and report files on the side of the source.
+	 * @param srcDir directory to copy from
+	 * @param filemask Ant GLOB style filemasks of the files to copy
+	 * @param destDir directory to copy to
+	 * @return number of files copied
+	 * @throws IOException if copying fails
+	 * @throws InterruptedException if interrupted
+	 */
+	public static int copyCompressed(FilePath srcDir, String filemask, FilePath destDir) throws IOException, InterruptedException {
+		Path srcPath = Paths.get(srcDir.getRemote());
+		FilePath[] files = srcDir.list(filemask);
+		String[] relativePaths = new String[files.length];
+		for (int i = 0; i < files.length; i++) {
+			relativePaths[i] = srcPath.relativize(Paths.get(files[i].getRemote())).toString();
+			destination(destDir, relativePaths[i] + SUFFIX);
+		}
+		for (int i = 0; i < files.length; i++) {
+			FilePath file = files[i];
+			String relativePath = relativePaths[i];
+			if (!isCompressible(relativePath)) {
+				FilePath dest = destination(destDir, relativePath);
+				dest.getParent().mkdirs();
+				file.copyTo(dest);
+				continue;
+			}
+			FilePath dest = destination(destDir, relativePath + SUFFIX);
+			dest.getParent().mkdirs();
+			try (OutputStream out = dest.write()) {
+				writeCompressed(file, out);
+			}
+		}
+		return files.length;
+	}
+
+	/**
+	 * The paths are listed on the agent, so like in tar extraction the
+	 * destination is checked to stay under the destination directory.
+	 * @param destDir directory to copy to
+	 * @param relativePath path relative to it
+	 * @return destination of the file
+	 * @throws IOException if the path leads outside of destDir
+	 */
+	static FilePath destination(FilePath destDir, String relativePath) throws IOException {
+		RobotBlobStore.resolveInside(new File(destDir.getRemote()), relativePath);
+		return new FilePath(destDir, relativePath);
+	}
+
+	/**
+	 * Write a file gzipped, compressing it on the side of the file
+	 * @param file file to write
+	 * @param out stream to write to
+	 * @throws IOException if writing fails
+	 * @throws InterruptedException if interrupted
+	 */
+	static void writeCompressed(FilePath file, OutputStream out) throws IOException, InterruptedException {
+		file.act(new CompressTo(new RemoteOutputStream(out)));
+	}
+
+	/**
+	 * @param acceptEncoding Accept-Encoding header of a request
+	 * @return true if gzip is accepted
+	 */
+	static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null)
+			return false;
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parts = coding.trim().split(";");
+			String name = parts[0].trim();
+			if (!name.equalsIgnoreCase("gzip") && !name.equals("*"))
+				continue;
+			for (int i = 1; i < parts.length; i++) {
+				String param = parts[i].trim().replace(" ", "");
+				if (param.startsWith("q=") && param.substring(2).matches("0(\\.0*)?"))
+					return false;
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Writes a file gzipped to a stream, run where the file is
+	 */
+	private static final class CompressTo extends MasterToSlaveFileCallable<Void> {
+
+		@Serial
+		private static final long serialVersionUID = 1L;
+
+		private final OutputStream out;
+
+		CompressTo(OutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public Void invoke(File file, VirtualChannel channel) throws IOException, InterruptedException {
+			try (OutputStream gzip = new GZIPOutputStream(new BufferedOutputStream(out, BUFFER_SIZE), BUFFER_SIZE)) {
+				Files.copy(file.toPath(), gzip);
+			}
+			return null;
+		}
+	}
+}
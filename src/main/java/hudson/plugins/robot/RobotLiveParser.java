@@ -0,0 +1,325 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*	http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot;
+
+import hudson.plugins.robot.model.RobotResult;
+import hudson.plugins.robot.model.RobotSuiteResult;
+import hudson.plugins.robot.model.RobotWireFormat;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serial;
+import java.io.Serializable;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Parses the tests a Robot Framework run still in progress has written to its
+ * output file so far. Each call reads only what was appended after the
+ * previous one and returns the tests completed since. An element not yet
+ * completely written is read again on the next call. Suite setups and
+ * teardowns, statistics and errors are left to the final parse.
+ */
+public final class RobotLiveParser extends MasterToSlaveFileCallable<RobotLiveParser.Update> {
+
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private static final byte[] TEST_END = "</test>".getBytes(StandardCharsets.US_ASCII);
+
+	private final String outputFileName;
+	private final State state;
+
+	/**
+	 * @param outputFileName name of the output file relative to the directory called on
+	 * @param state where the previous call stopped, a new state to start from the beginning
+	 */
+	public RobotLiveParser(String outputFileName, State state) {
+		this.outputFileName = outputFileName;
+		this.state = state;
+	}
+
+	@Override
+	public Update invoke(File dir, VirtualChannel channel) throws IOException {
+		File file = new File(dir, outputFileName);
+		State next = new State(state);
+		if (!file.isFile())
+			return new Update(next, null);
+		long length = file.length();
+		// written again by another run
+		if (length < next.offset)
+			next = new State();
+		if (next.finished || length == next.offset)
+			return new Update(next, null);
+
+		byte[] bytes = read(file, next.offset, length - next.offset);
+		RobotResult tests = new RobotResult();
+		try {
+			next.offset += scan(bytes, next, tests);
+		} catch (XMLStreamException e) {
+			throw new IOException("Parsing of " + file + " failed at " + next.offset, e);
+		}
+		if (tests.getSuites().isEmpty())
+			return new Update(next, null);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		RobotWireFormat.write(tests, out);
+		return new Update(next, out.toByteArray());
+	}
+
+	/**
+	 * Scan appended bytes for suites and completed tests
+	 * @return number of bytes handled, the rest is read again next time
+	 */
+	private static int scan(byte[] bytes, State state, RobotResult tests) throws XMLStreamException {
+		RobotParser.RobotParserCallable parser = new RobotParser.RobotParserCallable(null, null, null);
+		int pos = 0;
+		while (!state.finished) {
+			int start = indexOf(bytes, new byte[]{'<'}, pos);
+			if (start < 0)
+				return bytes.length;
+			int end = tagEnd(bytes, start);
+			if (end < 0)
+				return start;
+			if (isTag(bytes, start, "<test")) {
+				int close = indexOf(bytes, TEST_END, end);
+				if (close < 0)
+					return start;
+				close += TEST_END.length;
+				RobotSuiteResult suite = getSuite(tests, state);
+				XMLStreamReader reader = createFactory().createXMLStreamReader(
+						new ByteArrayInputStream(bytes, start, close - start), "UTF-8");
+				try {
+					reader.nextTag();
+					suite.addCaseResult(parser.parseTest(reader, suite, state.schemaVersion));
+				} finally {
+					reader.close();
+				}
+				pos = close;
+				continue;
+			}
+			if (isTag(bytes, start, "<suite") && bytes[end - 1] != '/') {
+				Map<String, String> attributes = getAttributes(bytes, start, end);
+				state.suiteNames.add(attributes.get("name"));
+				state.suiteIds.add(attributes.get("id"));
+			} else if (isTag(bytes, start, "</suite")) {
+				if (!state.suiteNames.isEmpty()) {
+					state.suiteNames.remove(state.suiteNames.size() - 1);
+					state.suiteIds.remove(state.suiteIds.size() - 1);
+				}
+			} else if (isTag(bytes, start, "<robot")) {
+				try {
+					state.schemaVersion = Integer.parseInt(getAttributes(bytes, start, end).getOrDefault("schemaversion", "0"));
+				} catch (NumberFormatException e) {
+					state.schemaVersion = 0;
+				}
+			} else if (isTag(bytes, start, "<statistics") || isTag(bytes, start, "</robot")) {
+				// suites of statistics are not suites of the run
+				state.finished = true;
+			}
+			pos = end + 1;
+		}
+		return pos;
+	}
+
+	private static RobotSuiteResult getSuite(RobotResult tests, State state) throws XMLStreamException {
+		if (state.suiteNames.isEmpty())
+			throw new XMLStreamException("Test outside of suites at " + state.offset);
+		RobotSuiteResult suite = null;
+		for (int i = 0; i < state.suiteNames.size(); i++) {
+			String name = state.suiteNames.get(i);
+			RobotSuiteResult child = suite == null ? getTopSuite(tests, name) : suite.getSuite(name);
+			if (child == null) {
+				child = new RobotSuiteResult();
+				child.setName(name);
+				child.setId(state.suiteIds.get(i));
+				child.setSchemaVersion(state.schemaVersion);
+				if (suite == null) {
+					child.setParent(tests);
+					tests.addSuite(child);
+				} else {
+					child.setParent(suite);
+					suite.addChild(child);
+				}
+			}
+			suite = child;
+		}
+		return suite;
+	}
+
+	private static RobotSuiteResult getTopSuite(RobotResult tests, String name) {
+		return tests.getSuites().isEmpty() ? null : tests.getSuite(name);
+	}
+
+	private static XMLInputFactory createFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		return factory;
+	}
+
+	private static Map<String, String> getAttributes(byte[] bytes, int start, int end) throws XMLStreamException {
+		String tag = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+		XMLStreamReader reader = createFactory().createXMLStreamReader(new StringReader(tag + "/>"));
+		try {
+			reader.nextTag();
+			Map<String, String> attributes = new HashMap<>();
+			for (int i = 0; i < reader.getAttributeCount(); i++)
+				attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+			return attributes;
+		} finally {
+			reader.close();
+		}
+	}
+
+	private static boolean isTag(byte[] bytes, int start, String name) {
+		if (start + name.length() >= bytes.length)
+			return false;
+		for (int i = 0; i < name.length(); i++) {
+			if (bytes[start + i] != name.charAt(i))
+				return false;
+		}
+		byte next = bytes[start + name.length()];
+		return next == '>' || next == '/' || next == ' ' || next == '\t' || next == '\n' || next == '\r';
+	}
+
+	/**
+	 * @return index of the '&gt;' ending the tag starting at start, -1 if not written yet
+	 */
+	private static int tagEnd(byte[] bytes, int start) {
+		byte quote = 0;
+		for (int i = start + 1; i < bytes.length; i++) {
+			byte c = bytes[i];
+			if (quote != 0) {
+				if (c == quote)
+					quote = 0;
+			} else if (c == '"' || c == '\'') {
+				quote = c;
+			} else if (c == '>') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static int indexOf(byte[] bytes, byte[] pattern, int from) {
+		outer:
+		for (int i = from; i <= bytes.length - pattern.length; i++) {
+			for (int j = 0; j < pattern.length; j++) {
+				if (bytes[i + j] != pattern[j])
+					continue outer;
+			}
+			return i;
+		}
+		return -1;
+	}
+
+	private static byte[] read(File file, long offset, long count) throws IOException {
+		byte[] bytes = new byte[(int) Math.min(count, Integer.MAX_VALUE - 8)];
+		try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+			in.seek(offset);
+			in.readFully(bytes);
+		}
+		return bytes;
+	}
+
+	/**
+	 * Where parsing of an output file stopped
+	 */
+	public static final class State implements Serializable {
+
+		@Serial
+		private static final long serialVersionUID = 1L;
+
+		private long offset;
+		private int schemaVersion;
+		private boolean finished;
+		// suites open at the offset, outermost first
+		private final List<String> suiteNames;
+		private final List<String> suiteIds;
+
+		public State() {
+			suiteNames = new ArrayList<>();
+			suiteIds = new ArrayList<>();
+		}
+
+		private State(State state) {
+			offset = state.offset;
+			schemaVersion = state.schemaVersion;
+			finished = state.finished;
+			suiteNames = new ArrayList<>(state.suiteNames);
+			suiteIds = new ArrayList<>(state.suiteIds);
+		}
+
+		/**
+		 * @return number of bytes of the output file parsed
+		 */
+		public long getOffset() {
+			return offset;
+		}
+
+		/**
+		 * @return true if the run has written all of its tests
+		 */
+		public boolean isFinished() {
+			return finished;
+		}
+	}
+
+	/**
+	 * Tests completed since the previous call
+	 */
+	public static final class Update implements Serializable {
+
+		@Serial
+		private static final long serialVersionUID = 1L;
+
+		private final State state;
+		private final byte[] tests;
+
+		Update(State state, byte[] tests) {
+			this.state = state;
+			this.tests = tests;
+		}
+
+		/**
+		 * @return state to continue from
+		 */
+		public State getState() {
+			return state;
+		}
+
+		/**
+		 * @return the tests in suites of their names, null if none were completed
+		 * @throws IOException if the tests can't be decoded
+		 */
+		public RobotResult getTests() throws IOException {
+			return tests == null ? null : RobotWireFormat.read(new ByteArrayInputStream(tests));
+		}
+	}
+}
@@ -0,0 +1,110 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*	http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot;
+
+import java.util.Set;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import com.google.common.collect.ImmutableSet;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+
+/**
+ * Shows the tests of a Robot Framework run while it is still running. The
+ * output file is followed while the body of the step runs, and the tests
+ * completed so far are shown as a provisional result of the build. The
+ * provisional result is replaced when the results are published with
+ * {@link RobotStep}.
+ */
+public class RobotLiveStep extends Step {
+
+	static final int DEFAULT_POLL_INTERVAL = 30;
+
+	private final @NonNull String outputPath;
+	private @CheckForNull String outputFileName;
+	private int pollInterval = DEFAULT_POLL_INTERVAL;
+
+	/**
+	 * @param outputPath Path of the directory the output file is written to, relative to the workspace
+	 */
+	@DataBoundConstructor
+	public RobotLiveStep(String outputPath) {
+		this.outputPath = outputPath;
+	}
+
+	public String getOutputPath() {
+		return outputPath;
+	}
+
+	public String getOutputFileName() {
+		return outputFileName;
+	}
+
+	@DataBoundSetter
+	public void setOutputFileName(String outputFileName) {
+		this.outputFileName = Util.fixEmptyAndTrim(outputFileName);
+	}
+
+	/**
+	 * @return seconds between reads of the output file
+	 */
+	public int getPollInterval() {
+		return pollInterval;
+	}
+
+	@DataBoundSetter
+	public void setPollInterval(int pollInterval) {
+		this.pollInterval = pollInterval > 0 ? pollInterval : DEFAULT_POLL_INTERVAL;
+	}
+
+	@Override
+	public StepExecution start(StepContext context) throws Exception {
+		return new RobotLiveStepExecution(this, context);
+	}
+
+	@Extension
+	public static final class DescriptorImpl extends StepDescriptor {
+
+		@Override public String getFunctionName() {
+			return "robotLive";
+		}
+
+		@Override public String getDisplayName() {
+			return "Show Robot Framework results while the tests run";
+		}
+
+		@Override public boolean takesImplicitBlockArgument() {
+			return true;
+		}
+
+		@Override public Set<? extends Class<?>> getRequiredContext() {
+			return ImmutableSet.of(Run.class, FilePath.class, TaskListener.class);
+		}
+	}
+}
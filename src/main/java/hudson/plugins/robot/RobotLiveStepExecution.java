@@ -0,0 +1,177 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*	http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jenkinsci.plugins.workflow.steps.BodyExecutionCallback;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.plugins.robot.model.RobotResult;
+import jenkins.util.Timer;
+
+/**
+ * Runs the body of {@link RobotLiveStep} and reads the output file on an
+ * interval meanwhile, see {@link RobotLiveParser}. The tests read are kept in
+ * memory only, so after a restart the file is read again from the start.
+ */
+public class RobotLiveStepExecution extends StepExecution {
+
+	private static final Logger logger = Logger.getLogger(RobotLiveStepExecution.class.getName());
+
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private final String outputPath;
+	private final String outputFileName;
+	private final int pollInterval;
+	private String expandedOutputPath;
+	private String expandedOutputFileName;
+	private RobotLiveParser.State state = new RobotLiveParser.State();
+	private boolean done;
+	private transient ScheduledFuture<?> polling;
+	// a failing read is reported once until a read succeeds again
+	private transient boolean failureReported;
+
+	RobotLiveStepExecution(RobotLiveStep step, StepContext context) {
+		super(context);
+		this.outputPath = step.getOutputPath();
+		this.outputFileName = step.getOutputFileName() != null ? step.getOutputFileName() : RobotPublisher.DEFAULT_OUTPUT_FILE;
+		this.pollInterval = step.getPollInterval();
+	}
+
+	@Override
+	public boolean start() throws Exception {
+		EnvVars env = getContext().get(EnvVars.class);
+		expandedOutputPath = env != null ? env.expand(outputPath) : outputPath;
+		expandedOutputFileName = env != null ? env.expand(outputFileName) : outputFileName;
+		schedule();
+		getContext().newBodyInvoker().withCallback(new Callback(this)).start();
+		return false;
+	}
+
+	@Override
+	public void onResume() {
+		super.onResume();
+		synchronized (this) {
+			// the tests read before the restart were not saved
+			state = new RobotLiveParser.State();
+		}
+		if (!isDone())
+			schedule();
+	}
+
+	@Override
+	public void stop(Throwable cause) throws Exception {
+		cancel();
+		super.stop(cause);
+	}
+
+	private synchronized void schedule() {
+		polling = Timer.get().scheduleWithFixedDelay(this::poll, pollInterval, pollInterval, TimeUnit.SECONDS);
+	}
+
+	private synchronized void cancel() {
+		if (polling != null)
+			polling.cancel(false);
+	}
+
+	private synchronized boolean isDone() {
+		return done;
+	}
+
+	/**
+	 * Read the tests completed since the previous read and add them to the
+	 * provisional result of the build
+	 */
+	synchronized void poll() {
+		if (done)
+			return;
+		try {
+			FilePath dir = getContext().get(FilePath.class).child(expandedOutputPath);
+			RobotLiveParser.Update update = dir.act(new RobotLiveParser(expandedOutputFileName, state));
+			state = update.getState();
+			RobotResult tests = update.getTests();
+			if (tests != null && !publish(tests)) {
+				// published already, nothing to add to
+				done = true;
+				cancel();
+			}
+			failureReported = false;
+		} catch (IOException e) {
+			logger.log(failureReported ? Level.FINE : Level.WARNING, "Couldn't read the Robot output of a run in progress in "
+					+ expandedOutputPath + "/" + expandedOutputFileName, e);
+			failureReported = true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private boolean publish(RobotResult tests) throws IOException, InterruptedException {
+		Run<?, ?> build = getContext().get(Run.class);
+		TaskListener listener = getContext().get(TaskListener.class);
+		synchronized (RobotPublisher.getPublishLock(build)) {
+			RobotBuildAction action = build.getAction(RobotBuildAction.class);
+			if (action == null) {
+				// only the empty result is saved, the tests are added in memory
+				action = new RobotBuildAction(build, new RobotResult(), RobotPublisher.DEFAULT_ARCHIVE_DIR, listener,
+						null, null, true, null, false, false);
+				action.setProvisional(true);
+				build.addAction(action);
+			} else if (!action.isProvisional()) {
+				return false;
+			}
+			action.addProvisionalResult(tests);
+			return true;
+		}
+	}
+
+	/**
+	 * Read what was written after the last read once the body has completed
+	 */
+	private synchronized void finish() {
+		cancel();
+		poll();
+		done = true;
+	}
+
+	private static final class Callback extends BodyExecutionCallback.TailCall {
+
+		@Serial
+		private static final long serialVersionUID = 1L;
+
+		private final RobotLiveStepExecution execution;
+
+		Callback(RobotLiveStepExecution execution) {
+			this.execution = execution;
+		}
+
+		@Override
+		protected void finished(StepContext context) {
+			execution.finish();
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*	http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot;
+
+import hudson.Extension;
+import hudson.cli.CLICommand;
+import jenkins.model.Jenkins;
+import org.kohsuke.args4j.Option;
+
+/**
+ * CLI command robot-migrate-results for running {@link RobotResultMigration}.
+ * Without options the migration is started, or continued where it stopped,
+ * and its status is printed.
+ */
+@Extension
+public class RobotMigrateResultsCommand extends CLICommand {
+
+	@Option(name = "--status", usage = "Only print the status")
+	public boolean status;
+
+	@Option(name = "--stop", usage = "Stop the migration, it can be continued later")
+	public boolean stop;
+
+	@Option(name = "--restart", usage = "Walk all builds again from the beginning")
+	public boolean restart;
+
+	@Option(name = "--wait", usage = "Wait for the migration to end")
+	public boolean waitForEnd;
+
+	@Option(name = "--cpu", metaVar = "PERCENT", usage = "Share of one processor to use")
+	public int cpuPercent;
+
+	@Option(name = "--io", metaVar = "MB", usage = "Megabytes of result files to read and write per second")
+	public int ioMegabytesPerSecond;
+
+	@Override
+	public String getShortDescription() {
+		return Messages.robot_migration_description();
+	}
+
+	@Override
+	protected int run() throws Exception {
+		Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+		RobotResultMigration migration = RobotResultMigration.get();
+		if (stop) {
+			migration.stop();
+		} else if (!status) {
+			migration.start(restart, cpuPercent, ioMegabytesPerSecond);
+			if (waitForEnd)
+				migration.join();
+		}
+		stdout.println(migration.getStatus());
+		return waitForEnd && migration.getFailed() > 0 ? 1 : 0;
+	}
+}
@@ -22,17 +22,40 @@ import hudson.Util;
 import hudson.model.Run;
 import hudson.plugins.robot.model.RobotTestObject;
 import hudson.plugins.robot.model.RobotCaseResult;
+import hudson.plugins.robot.model.RobotDetailLevel;
+import hudson.plugins.robot.model.RobotKeywordStatistics;
 import hudson.plugins.robot.model.RobotResult;
 import hudson.plugins.robot.model.RobotSuiteResult;
+import hudson.plugins.robot.model.RobotTimestamp;
+import hudson.plugins.robot.model.RobotWireFormat;
 import hudson.remoting.VirtualChannel;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
 import java.io.Serial;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.xml.stream.Location;
 import javax.xml.stream.XMLInputFactory;
@@ -47,8 +70,232 @@ public class RobotParser {
 
 	public RobotResult parse(String outputFileLocations, String outputPath, Run<?, ?> build, FilePath workSpace, String logFileName, String reportFileName)
 	throws InterruptedException, IOException {
-		return new FilePath(workSpace, outputPath).act(
-				new RobotParserCallable(outputFileLocations, logFileName, reportFileName));
+		return parse(outputFileLocations, outputPath, build, workSpace, logFileName, reportFileName, new Options());
+	}
+
+	/**
+	 * Parse output files to a result
+	 * @param outputFileLocations filemask of the output files
+	 * @param outputPath directory of the output files relative to the workspace
+	 * @param build build
+	 * @param workSpace workspace
+	 * @param logFileName name of the log file
+	 * @param reportFileName name of the report file
+	 * @param options how to parse the files
+	 * @return the result
+	 * @throws InterruptedException if interrupted
+	 * @throws IOException if no files are found or parsing fails
+	 */
+	public RobotResult parse(String outputFileLocations, String outputPath, Run<?, ?> build, FilePath workSpace, String logFileName, String reportFileName,
+			Options options) throws InterruptedException, IOException {
+		byte[] encoded = new FilePath(workSpace, outputPath).act(new EncodedRobotParserCallable(
+				new RobotParserCallable(outputFileLocations, logFileName, reportFileName, options)));
+		return RobotWireFormat.read(new ByteArrayInputStream(encoded));
+	}
+
+	/**
+	 * Read the totals of output files from their statistics, without parsing the tests
+	 * @param outputFileLocations filemask of the output files
+	 * @param outputPath directory of the output files relative to the workspace
+	 * @param workSpace workspace
+	 * @return passed, failed and skipped tests of all the files
+	 * @throws IOException if a file has no statistics or reading fails
+	 * @throws InterruptedException if interrupted
+	 */
+	public long[] parseTotals(String outputFileLocations, String outputPath, FilePath workSpace) throws InterruptedException, IOException {
+		return new FilePath(workSpace, outputPath).act(new TotalsCallable(outputFileLocations));
+	}
+
+	/**
+	 * How to parse output files. By default each file is parsed as it is,
+	 * with all details of the tests and without keyword statistics.
+	 */
+	public static final class Options implements Serializable {
+
+		@Serial
+		private static final long serialVersionUID = 1L;
+		private RobotDetailLevel detailLevel = RobotDetailLevel.FULL;
+		private boolean merge;
+		private boolean pabot;
+		private boolean keywordStatistics;
+
+		/**
+		 * @param detailLevel what to publish of passed cases
+		 * @return these options
+		 */
+		public Options detailLevel(RobotDetailLevel detailLevel) {
+			this.detailLevel = detailLevel;
+			return this;
+		}
+
+		/**
+		 * @param merge true to merge the output files like rebot --merge,
+		 * ignored for pabot output files. Files are parsed in the order of
+		 * the patterns of the filemask, and files matching the same pattern
+		 * in the order of their names. Suites of a later file are merged
+		 * into suites of the same name, and results of a later file replace
+		 * earlier results of tests of the same name.
+		 * @return these options
+		 */
+		public Options merge(boolean merge) {
+			this.merge = merge;
+			return this;
+		}
+
+		/**
+		 * @param pabot true if the output files are of pabot processes, i.e.
+		 * the output.xml files under pabot_results. The files are parsed in
+		 * parallel and their suites combined into the suite hierarchy of the
+		 * whole run. The execution window of each process is recorded, the
+		 * process named by the directory of its output file.
+		 * @return these options
+		 */
+		public Options pabot(boolean pabot) {
+			this.pabot = pabot;
+			return this;
+		}
+
+		/**
+		 * @param keywordStatistics true to collect the calls and durations of
+		 * the keywords by name, including suite setups and teardowns, see
+		 * {@link RobotKeywordStatistics}. Keywords that were not run are not
+		 * counted.
+		 * @return these options
+		 */
+		public Options keywordStatistics(boolean keywordStatistics) {
+			this.keywordStatistics = keywordStatistics;
+			return this;
+		}
+	}
+
+	/**
+	 * Reads the "All Tests" statistics Robot writes at the end of output
+	 * files. The statistics are found by searching from the end of the file,
+	 * so only the statistics and errors are read.
+	 */
+	public static final class TotalsCallable implements FilePath.FileCallable<long[]> {
+
+		@Serial
+		private static final long serialVersionUID = 1L;
+		private static final int WINDOW = 64 * 1024;
+		private static final byte[] STATISTICS = "<statistics>".getBytes(StandardCharsets.US_ASCII);
+
+		private final String outputFileLocations;
+
+		public TotalsCallable(String outputFileLocations) {
+			this.outputFileLocations = outputFileLocations;
+		}
+
+		public long[] invoke(File ws, VirtualChannel channel) throws IOException {
+			DirectoryScanner scanner = Util.createFileSet(ws, outputFileLocations).getDirectoryScanner();
+			String[] files = scanner.getIncludedFiles();
+			if (files.length == 0) {
+				throw new AbortException(
+						"No files found in path " + ws.getAbsolutePath() + " with configured filemask: " + outputFileLocations);
+			}
+			long[] totals = new long[3];
+			for (String file : files) {
+				long[] fileTotals = readTotals(new File(scanner.getBasedir(), file));
+				for (int i = 0; i < totals.length; i++)
+					totals[i] += fileTotals[i];
+			}
+			return totals;
+		}
+
+		static long[] readTotals(File file) throws IOException {
+			long offset = findStatistics(file);
+			if (offset < 0)
+				throw new IOException("No statistics in " + file);
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+			factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+			try (FileInputStream inputStream = new FileInputStream(file)) {
+				inputStream.getChannel().position(offset);
+				XMLStreamReader reader = factory.createXMLStreamReader(inputStream, "UTF-8");
+				try {
+					long[] totals = null;
+					// before Robot 4 the critical tests come first
+					while (reader.hasNext()) {
+						reader.next();
+						if (reader.isEndElement() && "total".equals(reader.getLocalName()))
+							break;
+						if (reader.isStartElement() && "stat".equals(reader.getLocalName())) {
+							long[] stat = {parseCount(reader, "pass"), parseCount(reader, "fail"), parseCount(reader, "skip")};
+							String name = reader.getElementText();
+							if (totals == null || "All Tests".equals(name))
+								totals = stat;
+						}
+					}
+					if (totals == null)
+						throw new IOException("No total statistics in " + file);
+					return totals;
+				} finally {
+					reader.close();
+				}
+			} catch (XMLStreamException e) {
+				throw new IOException("Parsing of statistics in " + file + " failed", e);
+			}
+		}
+
+		private static long parseCount(XMLStreamReader reader, String name) {
+			String value = reader.getAttributeValue(null, name);
+			return value == null ? 0 : Long.parseLong(value);
+		}
+
+		/**
+		 * @return offset of the last statistics element, -1 if none
+		 */
+		private static long findStatistics(File file) throws IOException {
+			try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+				long length = in.length();
+				byte[] window = new byte[WINDOW + STATISTICS.length];
+				for (long end = length; end > 0; end -= WINDOW) {
+					long start = Math.max(0, end - WINDOW);
+					// overlapping the previous window for matches across the boundary
+					int count = (int) (Math.min(length, end + STATISTICS.length - 1) - start);
+					in.seek(start);
+					in.readFully(window, 0, count);
+					for (int i = count - STATISTICS.length; i >= 0; i--) {
+						if (Arrays.equals(window, i, i + STATISTICS.length, STATISTICS, 0, STATISTICS.length))
+							return start + i;
+					}
+				}
+				return -1;
+			}
+		}
+
+		@Override
+		public void checkRoles(RoleChecker roleChecker) throws SecurityException {
+
+		}
+	}
+
+	/**
+	 * Parses the results like {@link RobotParserCallable} and returns them in
+	 * {@link RobotWireFormat}, which is much smaller than the serialized result
+	 * tree and doesn't recurse when sent to the controller.
+	 */
+	public static final class EncodedRobotParserCallable implements FilePath.FileCallable<byte[]> {
+
+		@Serial
+		private static final long serialVersionUID = 1L;
+		private final RobotParserCallable parser;
+
+		public EncodedRobotParserCallable(RobotParserCallable parser) {
+			this.parser = parser;
+		}
+
+		public byte[] invoke(File ws, VirtualChannel channel) throws IOException {
+			RobotResult result = parser.invoke(ws, channel);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			RobotWireFormat.write(result, out);
+			return out.toByteArray();
+		}
+
+		@Override
+		public void checkRoles(RoleChecker roleChecker) throws SecurityException {
+
+		}
 	}
 
 	public static final class RobotParserCallable implements
@@ -56,33 +303,79 @@ public class RobotParser {
 
 		@Serial
 		private static final long serialVersionUID = 1L;
+		private static final Pattern PROCESS_INDEX = Pattern.compile("\\d+");
+		// pabot processes by their index, so that 10 comes after 2
+		private static final Comparator<String> PROCESS_ORDER = Comparator
+				.comparingLong(RobotParserCallable::getProcessIndex)
+				.thenComparing(Comparator.naturalOrder());
 		private final String outputFileLocations;
 		private final String logFileName;
 		private final String reportFileName;
+		private final RobotDetailLevel detailLevel;
+		private final boolean merge;
+		private final boolean pabot;
+		private final boolean keywordStatistics;
 
 		private int schemaVersion;
 		private String startLocalName = "starttime";
 		private String elapsedLocalName = "elapsedtime";
 		private String endLocalName = "endtime";
+		private transient Map<String, String> canonicalStrings;
+		// cases parsed from the current file when merging
+		private transient Set<RobotCaseResult> fileCases;
+		// null if keyword statistics are not collected
+		private transient RobotKeywordStatistics.Collector keywords;
+		private transient String lastKeywordStatus;
 
 		public RobotParserCallable(String outputFileLocations, String logFileName, String reportFileName) {
+			this(outputFileLocations, logFileName, reportFileName, new Options());
+		}
+
+		/**
+		 * @param outputFileLocations filemask of the output files
+		 * @param logFileName name of the log file
+		 * @param reportFileName name of the report file
+		 * @param options how to parse the files
+		 */
+		public RobotParserCallable(String outputFileLocations, String logFileName, String reportFileName, Options options) {
 			this.outputFileLocations = outputFileLocations;
 			this.logFileName = logFileName;
 			this.reportFileName = reportFileName;
+			this.detailLevel = options.detailLevel;
+			this.merge = options.merge;
+			this.pabot = options.pabot;
+			this.keywordStatistics = options.keywordStatistics;
 		}
 
 		public RobotResult invoke(File ws, VirtualChannel channel)
 		throws IOException {
-			FileSet setInWorkspace = Util
-			.createFileSet(ws, outputFileLocations);
-			DirectoryScanner resultScanner = setInWorkspace
-			.getDirectoryScanner();
+			String[] files;
+			if (merge && !pabot) {
+				files = getFilesInOrder(ws);
+			} else {
+				FileSet setInWorkspace = Util
+				.createFileSet(ws, outputFileLocations);
+				DirectoryScanner resultScanner = setInWorkspace
+				.getDirectoryScanner();
 
-			String[] files = resultScanner.getIncludedFiles();
+				files = resultScanner.getIncludedFiles();
+			}
 			if (files.length == 0) {
 				throw new AbortException(
 						"No files found in path " + ws.getAbsolutePath() + " with configured filemask: " + outputFileLocations);
 			}
+			if (keywordStatistics)
+				keywords = new RobotKeywordStatistics.Collector();
+			RobotResult result = pabot ? parseProcesses(ws, files) : parseFiles(ws, files);
+			if (keywords != null)
+				result.setKeywordStatistics(keywords.finish());
+			// suite teardowns can still fail passed cases, so details are dropped only at the end
+			result.omitPassedDetails(detailLevel);
+			return result;
+		}
+
+		private RobotResult parseFiles(File ws, String[] files) throws IOException {
+			canonicalStrings = new HashMap<>();
 			RobotResult result = new RobotResult();
 			result.setLogFile(this.logFileName);
 			result.setReportFile(this.reportFileName);
@@ -91,13 +384,15 @@ public class RobotParser {
 				XMLInputFactory factory = XMLInputFactory.newInstance();
 				factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
 				factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
-				File baseDirectory = resultScanner.getBasedir();
+				File baseDirectory = ws;
 				File reportFile = new File(baseDirectory, file);
 
 				//get the potential directories emerging from the use of GLOB filemask accounted in the splitted file parsing
 				String dirFromFileGLOB = new File(file).getParent();
 				if(dirFromFileGLOB != null)
 					baseDirectory = new File(baseDirectory, dirFromFileGLOB);
+				if (merge)
+					fileCases = Collections.newSetFromMap(new IdentityHashMap<>());
                 try (FileInputStream inputStream = new FileInputStream(reportFile)) {
                     XMLStreamReader reader = factory.createXMLStreamReader(inputStream, "UTF-8");
                     try {
@@ -112,6 +407,90 @@ public class RobotParser {
 			return result;
 		}
 
+		/**
+		 * Parse the output files of pabot processes in parallel, each with a
+		 * parser of its own as parsing keeps state, and combine the results
+		 * in the order of the process indexes.
+		 */
+		private RobotResult parseProcesses(File ws, String[] files) throws IOException {
+			Arrays.sort(files, PROCESS_ORDER);
+			int threads = Math.max(1, Math.min(files.length, Runtime.getRuntime().availableProcessors()));
+			ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+				Thread thread = new Thread(r, "Robot pabot output parsing in " + ws);
+				thread.setDaemon(true);
+				return thread;
+			});
+			try {
+				List<RobotParserCallable> parsers = new ArrayList<>();
+				List<Future<RobotResult>> parts = new ArrayList<>();
+				for (String file : files) {
+					RobotParserCallable parser = new RobotParserCallable(file, logFileName, reportFileName, new Options().detailLevel(detailLevel));
+					if (keywords != null)
+						parser.keywords = new RobotKeywordStatistics.Collector();
+					parsers.add(parser);
+					parts.add(executor.submit(() -> parser.parseFiles(ws, new String[] {file})));
+				}
+				RobotResult result = new RobotResult();
+				result.setLogFile(this.logFileName);
+				result.setReportFile(this.reportFileName);
+				for (int i = 0; i < files.length; i++) {
+					result.addProcess(parts.get(i).get(), getProcessName(files[i]));
+					if (keywords != null)
+						keywords.addAll(parsers.get(i).keywords);
+				}
+				return result;
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException ioException)
+					throw ioException;
+				throw new IOException("Parsing of pabot output xml failed!", e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Parsing of pabot output xml was interrupted");
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+
+		/**
+		 * @return name of the directory of a pabot output file, the file name if it has no directory
+		 */
+		private static String getProcessName(String file) {
+			File parent = new File(file).getParentFile();
+			return parent != null ? parent.getName() : file;
+		}
+
+		/**
+		 * @return index of a pabot process, the last number in its name, -1 if it has none
+		 */
+		private static long getProcessIndex(String file) {
+			Matcher matcher = PROCESS_INDEX.matcher(getProcessName(file));
+			long index = -1;
+			while (matcher.find()) {
+				try {
+					index = Long.parseLong(matcher.group());
+				} catch (NumberFormatException e) {
+					index = Long.MAX_VALUE;
+				}
+			}
+			return index;
+		}
+
+		/**
+		 * Files matching the filemask in the order of its patterns. Files
+		 * matching the same pattern are sorted by name.
+		 */
+		private String[] getFilesInOrder(File ws) {
+			Set<String> files = new LinkedHashSet<>();
+			for (String pattern : outputFileLocations.split(",")) {
+				if (pattern.isBlank())
+					continue;
+				String[] matching = Util.createFileSet(ws, pattern.trim()).getDirectoryScanner().getIncludedFiles();
+				Arrays.sort(matching);
+				files.addAll(Arrays.asList(matching));
+			}
+			return files.toArray(new String[0]);
+		}
+
 		private RobotResult parseResult(RobotResult result, XMLStreamReader reader, File baseDirectory) throws XMLStreamException, IOException {
 			while(reader.hasNext()){
 				reader.next();
@@ -133,26 +512,34 @@ public class RobotParser {
 						}
 						result.setTimeStamp(reader.getAttributeValue(null, "generated"));
 					} else if("suite".equals(tagName)){
-						result.addSuite(processSuite(reader, result, baseDirectory));
+						RobotSuiteResult suite = processSuite(reader, result, baseDirectory);
+						if (suite != null)
+							result.addSuite(suite);
 					}
 				}
 			}
 			return result;
 		}
 
+		/**
+		 * @return the suite, null if it was merged into a suite of an earlier file
+		 */
 		private RobotSuiteResult processSuite(XMLStreamReader reader, RobotTestObject parent, File baseDirectory) throws IOException, XMLStreamException {
 			String splitXMLPath = reader.getAttributeValue(null, "src");
 			if (splitXMLPath != null) {
 				return getSplitXMLSuite(parent, baseDirectory, splitXMLPath);
 			}
-			RobotSuiteResult suite = new RobotSuiteResult();
-			suite.setSchemaVersion(schemaVersion);
-			suite.setLogFile(this.logFileName);
-			suite.setReportFile(this.reportFileName);
-			suite.setParent(parent);
-			suite.setName(reader.getAttributeValue(null, "name"));
-			suite.setId(reader.getAttributeValue(null, "id"));
-			suite.setDescription("");
+			String name = reader.getAttributeValue(null, "name");
+			RobotSuiteResult suite = merge ? findSuite(parent, name) : null;
+			boolean merged = suite != null;
+			if (!merged) {
+				suite = new RobotSuiteResult();
+				suite.setParent(parent);
+				suite.setSchemaVersion(schemaVersion);
+				suite.setName(name);
+				suite.setId(reader.getAttributeValue(null, "id"));
+				suite.setDescription("");
+			}
 			//parse children, which can be test cases or test suites
 			while(reader.hasNext()){
 				reader.next();
@@ -161,29 +548,89 @@ public class RobotParser {
 					if("doc".equals(tagName)){
 						reader.next();
 						if (reader.hasText()) {
-							suite.setDescription(reader.getText());
+							suite.setDescription(canonical(reader.getText()));
 						}
 					} else if("suite".equals(tagName)){
-						suite.addChild(processSuite(reader, suite, baseDirectory));
+						RobotSuiteResult child = processSuite(reader, suite, baseDirectory);
+						if (child != null)
+							suite.addChild(child);
 					} else if("test".equals(tagName)){
-						suite.addCaseResult(processTest(reader, suite));
+						addCase(suite, processTest(reader, suite));
+					} else if("kw".equals(tagName) && keywords != null) {
+						// suite setups and teardowns are counted in the keyword statistics too
+						boolean teardown = "teardown".equalsIgnoreCase(reader.getAttributeValue(null, "type"));
+						processKeyword(reader, 0);
+						if (teardown && "FAIL".equals(lastKeywordStatus))
+							failTeardown(suite, merged);
 					} else if("kw".equals(tagName) && "teardown".equalsIgnoreCase(reader.getAttributeValue(null, "type"))) {
 						ignoreUntilStarts(reader, "status");
-						if ("FAIL".equals(reader.getAttributeValue(null, "status"))) {
-							suite.failTeardown();
-						}
-					} else if("status".equals(tagName)){
+						if ("FAIL".equals(reader.getAttributeValue(null, "status")))
+							failTeardown(suite, merged);
+					} else if(!merged && "status".equals(tagName)){
 						suite.setElapsedTime(reader.getAttributeValue(null, elapsedLocalName));
 						suite.setStartTime(reader.getAttributeValue(null, startLocalName));
 						suite.setEndTime(reader.getAttributeValue(null, endLocalName));
 					}
 				} else if (reader.isEndElement() && "suite".equals(reader.getLocalName())) {
-					return suite;
+					return merged ? null : suite;
 				}
 			}
 			throw xmlException("No matching end tag found for test suite: " + suite.getName(), reader);
 		}
 
+		private static RobotSuiteResult findSuite(RobotTestObject parent, String name) {
+			if (parent instanceof RobotSuiteResult parentSuite)
+				return parentSuite.getSuite(name);
+			RobotResult result = (RobotResult) parent;
+			return result.getSuites().isEmpty() ? null : result.getSuite(name);
+		}
+
+		/**
+		 * Add a case to its suite. When merging, a case of an earlier file
+		 * with the same name is replaced.
+		 */
+		private void addCase(RobotSuiteResult suite, RobotCaseResult caseResult) {
+			if (!merge) {
+				suite.addCaseResult(caseResult);
+				return;
+			}
+			RobotCaseResult earlier = suite.getCase(caseResult.getName());
+			if (earlier != null && !fileCases.contains(earlier))
+				suite.replaceCaseResult(earlier, caseResult);
+			else
+				suite.addCaseResult(caseResult);
+			fileCases.add(caseResult);
+		}
+
+		private void failTeardown(RobotSuiteResult suite, boolean merged) {
+			if (merged)
+				failFileCases(suite);
+			else
+				suite.failTeardown();
+		}
+
+		/**
+		 * Fail the cases of a suite merged into that were parsed from the
+		 * current file, as a failed suite teardown of a rerun fails only them
+		 */
+		private void failFileCases(RobotSuiteResult suite) {
+			for (RobotCaseResult caseResult : suite.getAllCases())
+				if (fileCases.contains(caseResult))
+					caseResult.setPassed(false);
+		}
+
+		/**
+		 * Get a shared instance for a value repeated across the result, e.g. tags.
+		 * @param value value to look up
+		 * @return the first instance equal to value seen during parsing
+		 */
+		private String canonical(String value) {
+			if (value == null)
+				return null;
+			String existing = canonicalStrings.putIfAbsent(value, value);
+			return existing != null ? existing : value;
+		}
+
 		private XMLStreamException xmlException(String message, XMLStreamReader reader) {
 			Location location = reader.getLocation();
 			return new XMLStreamException(message +
@@ -282,10 +729,28 @@ public class RobotParser {
 			return spaces.toString();
 		}
 
+		/**
+		 * Parse a test element on its own, see {@link RobotLiveParser}
+		 * @param reader reader at the start of the test element
+		 * @param suite suite of the test
+		 * @param schemaVersion schema version of the output file
+		 * @return the test
+		 * @throws XMLStreamException if the element is not valid
+		 */
+		RobotCaseResult parseTest(XMLStreamReader reader, RobotSuiteResult suite, int schemaVersion) throws XMLStreamException {
+			if (canonicalStrings == null)
+				canonicalStrings = new HashMap<>();
+			this.schemaVersion = schemaVersion;
+			if (schemaVersion >= 5) {
+				startLocalName = "start";
+				elapsedLocalName = "elapsed";
+			}
+			return processTest(reader, suite);
+		}
+
 		private RobotCaseResult processTest(XMLStreamReader reader, RobotSuiteResult result) throws XMLStreamException {
 			RobotCaseResult caseResult = new RobotCaseResult();
 			caseResult.setParent(result);
-			caseResult.setLogFile(this.logFileName);
 			//parse attributes
 			caseResult.setName(reader.getAttributeValue(null, "name"));
 			caseResult.setId(reader.getAttributeValue(null, "id"));
@@ -315,12 +780,12 @@ public class RobotParser {
 				xmlTag = ignoreUntilStarts(reader, possible_elements);
 			}
 
-			caseResult.setStackTrace(stackTrace.toString().trim().replaceAll("\n+", "\n"));
+			String trace = stackTrace.toString().trim().replaceAll("\n+", "\n");
 
 			if (xmlTag.equals("doc")) {
 				reader.next();
 				if (reader.hasText()) {
-					caseResult.setDescription(reader.getText());
+					caseResult.setDescription(canonical(reader.getText()));
 				}
 				reader.next();
 				xmlTag = ignoreUntilStarts(reader, "tags", "tag", "status");
@@ -354,10 +819,8 @@ public class RobotParser {
 					}
 				}
 			}
-			// reset stack trace if the test is passed
-			if (caseResult.isPassed() || caseResult.isSkipped()) {
-				caseResult.setStackTrace("");
-			}
+			// stack trace is kept only for failed tests
+			caseResult.setStackTrace(caseResult.isPassed() || caseResult.isSkipped() ? "" : trace);
 			ignoreUntilEnds(reader, "test");
 			return caseResult;
 		}
@@ -474,6 +937,7 @@ public class RobotParser {
 		private String processKeyword(XMLStreamReader reader, int nestedCount) throws XMLStreamException {
 			StringBuilder stackTrace = new StringBuilder();
 			String kw = reader.getAttributeValue(null, "name");
+			String keywordName = keywords != null ? getKeywordName(reader, kw) : null;
 			String indentation = getSpacesPerNestedLevel(nestedCount);
 			stackTrace.append(indentation).append(kw);
 			reader.next();
@@ -505,6 +969,11 @@ public class RobotParser {
 						case "continue":
 							stackTrace.append(processReturnBreakContinue(reader, nestedCount+1));
 							break;
+						case "status":
+							lastKeywordStatus = reader.getAttributeValue(null, "status");
+							if (keywordName != null)
+								addKeywordCall(reader, keywordName);
+							break;
 						default:
 							break;
 					}
@@ -515,6 +984,44 @@ public class RobotParser {
 			return stackTrace.toString();
 		}
 
+		/**
+		 * @return name of the keyword prefixed with its library or resource, null for loops of old output files
+		 */
+		private String getKeywordName(XMLStreamReader reader, String name) {
+			if (name == null)
+				return null;
+			String type = reader.getAttributeValue(null, "type");
+			if ("for".equals(type) || "foritem".equals(type))
+				return null;
+			// library before Robot 7, the name has it before Robot 4
+			String owner = reader.getAttributeValue(null, "owner");
+			if (owner == null)
+				owner = reader.getAttributeValue(null, "library");
+			return canonical(owner != null ? owner + "." + name : name);
+		}
+
+		private void addKeywordCall(XMLStreamReader reader, String name) {
+			if ("NOT RUN".equals(lastKeywordStatus) || "NOT_RUN".equals(lastKeywordStatus))
+				return;
+			long elapsed;
+			String seconds = reader.getAttributeValue(null, "elapsed");
+			try {
+				if (seconds != null) {
+					elapsed = RobotTimestamp.parseSeconds(seconds);
+				} else {
+					// before Robot 7, calls without both times are not counted
+					long start = RobotTimestamp.parse(reader.getAttributeValue(null, "starttime"));
+					long end = RobotTimestamp.parse(reader.getAttributeValue(null, "endtime"));
+					if (start == 0 || end == 0)
+						return;
+					elapsed = end - start;
+				}
+			} catch (NumberFormatException e) {
+				return;
+			}
+			keywords.add(name, Math.max(0, elapsed), "FAIL".equals(lastKeywordStatus));
+		}
+
 		private String processArgs(XMLStreamReader reader) throws XMLStreamException {
 			StringBuilder stringBuilder = new StringBuilder();
 
@@ -546,7 +1053,7 @@ public class RobotParser {
 					while(reader.hasNext()){
 						reader.next();
 						if(reader.isCharacters()){
-							tagList.add(reader.getText());
+							tagList.add(canonical(reader.getText()));
 						} else if(reader.isEndElement() && "tag".equals(reader.getLocalName())){
 							break;
 						}
@@ -24,9 +24,13 @@ import java.io.IOException;
 import java.util.Calendar;
 
 import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang.StringUtils;
 
 import org.kohsuke.stapler.StaplerRequest2;
 import org.kohsuke.stapler.StaplerResponse2;
+import org.kohsuke.stapler.export.Flavor;
 
 public class RobotProjectAction implements Action {
 
@@ -116,6 +120,84 @@ public class RobotProjectAction implements Action {
 		}
 	}
 
+	/**
+	 * Split the suites or tests into shards of about equal duration, see
+	 * {@link RobotShardPlanner}. Parameters are count for the number of
+	 * shards, tests=true to split tests, builds for the number of builds to
+	 * estimate durations from and format=pabot with shard for the pabot
+	 * ordering file of a shard. The plan is served as JSON by default.
+	 * @param req StaplerRequest
+	 * @param rsp StaplerResponse
+	 * @throws IOException thrown exception
+	 * @throws ServletException thrown exception
+	 */
+	public void doShards(StaplerRequest2 req, StaplerResponse2 rsp)
+			throws IOException, ServletException {
+		int count;
+		int builds;
+		try {
+			count = Integer.parseInt(StringUtils.defaultIfBlank(req.getParameter("count"), "1"));
+			builds = Integer.parseInt(StringUtils.defaultIfBlank(req.getParameter("builds"), String.valueOf(RobotShardPlanner.DEFAULT_BUILDS)));
+		} catch (NumberFormatException e) {
+			rsp.sendError(HttpServletResponse.SC_BAD_REQUEST, "count and builds must be numbers");
+			return;
+		}
+		if (count < 1 || builds < 1) {
+			rsp.sendError(HttpServletResponse.SC_BAD_REQUEST, "count and builds must be at least 1");
+			return;
+		}
+		RobotShardPlanner plan = RobotShardPlanner.plan(project, count, Boolean.parseBoolean(req.getParameter("tests")), builds, null);
+		if ("pabot".equals(req.getParameter("format"))) {
+			int shard;
+			try {
+				shard = Integer.parseInt(StringUtils.defaultIfBlank(req.getParameter("shard"), "1"));
+			} catch (NumberFormatException e) {
+				shard = 0;
+			}
+			if (shard < 1 || shard > count) {
+				rsp.sendError(HttpServletResponse.SC_BAD_REQUEST, "shard must be between 1 and " + count);
+				return;
+			}
+			rsp.setContentType("text/plain;charset=UTF-8");
+			rsp.getWriter().print(plan.toPabotOrdering(shard));
+			return;
+		}
+		rsp.serveExposedBean(req, plan, Flavor.JSON);
+	}
+
+	/**
+	 * Serve a Robot argument file that selects the failed tests of a build,
+	 * see {@link RobotFailureIndex}. Parameters are build for the build
+	 * number, the latest build with Robot results by default, and suites=true
+	 * to select the suites with failed tests instead.
+	 * @param req StaplerRequest
+	 * @param rsp StaplerResponse
+	 * @throws IOException thrown exception
+	 */
+	public void doRerunFailed(StaplerRequest2 req, StaplerResponse2 rsp)
+			throws IOException {
+		Run<?, ?> build;
+		String number = req.getParameter("build");
+		if (StringUtils.isBlank(number)) {
+			build = project.getLastBuild();
+			while (build != null && build.getAction(RobotBuildAction.class) == null)
+				build = build.getPreviousBuild();
+		} else {
+			try {
+				build = project.getBuildByNumber(Integer.parseInt(number));
+			} catch (NumberFormatException e) {
+				rsp.sendError(HttpServletResponse.SC_BAD_REQUEST, "build must be a build number");
+				return;
+			}
+		}
+		RobotBuildAction action = build != null ? build.getAction(RobotBuildAction.class) : null;
+		if (action == null) {
+			rsp.sendError(HttpServletResponse.SC_NOT_FOUND, "No Robot results");
+			return;
+		}
+		rsp.setContentType("text/plain;charset=UTF-8");
+		rsp.getWriter().print(action.getFailureIndex().toArgumentFile(Boolean.parseBoolean(req.getParameter("suites"))));
+	}
 
 	private Run<?, ?> getLastBuildWithRobot() {
 		Run<?, ?> lastBuild = project.getLastBuild();
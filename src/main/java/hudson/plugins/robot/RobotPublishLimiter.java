@@ -0,0 +1,183 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*	http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot;
+
+import hudson.FilePath;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Limits the size of results being read, tallied and saved on the controller
+ * at the same time. Each publish asks for capacity worth the estimated size of
+ * its result and waits in a first come first served queue until the results
+ * already being published leave room for it. A result larger than the whole
+ * capacity is published alone.
+ */
+public final class RobotPublishLimiter {
+
+	private static final Logger logger = Logger.getLogger(RobotPublishLimiter.class.getName());
+
+	private static final RobotPublishLimiter INSTANCE = new RobotPublishLimiter(RobotPublishLimiter::configuredCapacity);
+
+	private final LongSupplier capacity;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition changed = lock.newCondition();
+	private final ArrayDeque<Permit> queue = new ArrayDeque<>();
+	private long inUse;
+
+	RobotPublishLimiter(LongSupplier capacity) {
+		this.capacity = capacity;
+	}
+
+	public static RobotPublishLimiter get() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Estimate the heap needed for the result of given output files. The
+	 * parsed result takes roughly as much heap as the output files take disk
+	 * space, as the keywords, messages and whitespace of the files are not
+	 * kept.
+	 * @param outputDir directory of the output files
+	 * @param outputFileMask output file mask
+	 * @return estimated size in bytes
+	 * @throws IOException if listing the files fails
+	 * @throws InterruptedException if interrupted
+	 */
+	public static long estimateResultSize(FilePath outputDir, String outputFileMask) throws IOException, InterruptedException {
+		long size = 0;
+		for (FilePath file : outputDir.list(outputFileMask))
+			size += file.length();
+		return size;
+	}
+
+	/**
+	 * Wait until there is capacity for a result of given size
+	 * @param size estimated size of the result in bytes
+	 * @param buildLog log to report waiting to
+	 * @return permit to close when the result is published
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public Permit acquire(long size, PrintStream buildLog) throws InterruptedException {
+		Permit permit = new Permit(Math.max(0, size));
+		long started = System.nanoTime();
+		lock.lockInterruptibly();
+		try {
+			queue.add(permit);
+			if (!fits(permit) && buildLog != null)
+				buildLog.println(Messages.robot_publisher_queued(queue.size() - 1, inUse / 1024 / 1024));
+			try {
+				while (!fits(permit))
+					changed.await();
+			} catch (InterruptedException e) {
+				queue.remove(permit);
+				changed.signalAll();
+				throw e;
+			}
+			queue.remove();
+			inUse += permit.size;
+			// the next one in queue may fit too
+			changed.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+		if (waited >= 1000 && buildLog != null)
+			buildLog.println(Messages.robot_publisher_queue_wait(String.format("%.1f", waited / 1000.0)));
+		logger.fine(() -> "Admitted result of " + permit.size + " bytes after " + waited + " ms");
+		return permit;
+	}
+
+	/**
+	 * @return estimated size of the results being published, in bytes
+	 */
+	public long getInUse() {
+		lock.lock();
+		try {
+			return inUse;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return number of publishes waiting for capacity
+	 */
+	public int getQueueLength() {
+		lock.lock();
+		try {
+			return queue.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private boolean fits(Permit permit) {
+		return queue.peek() == permit && (inUse == 0 || inUse + permit.size <= capacity.getAsLong());
+	}
+
+	private void release(Permit permit) {
+		lock.lock();
+		try {
+			inUse -= permit.size;
+			changed.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private static long configuredCapacity() {
+		RobotConfig config = RobotConfig.getInstance();
+		int limit = config != null ? config.getPublishMemoryLimit() : 0;
+		if (limit > 0)
+			return limit * 1024L * 1024L;
+		return Runtime.getRuntime().maxMemory() / 4;
+	}
+
+	/**
+	 * Capacity held by a publish
+	 */
+	public final class Permit implements AutoCloseable {
+
+		private final long size;
+		private boolean released;
+
+		private Permit(long size) {
+			this.size = size;
+		}
+
+		public long getSize() {
+			return size;
+		}
+
+		@Override
+		public void close() {
+			synchronized (this) {
+				if (released)
+					return;
+				released = true;
+			}
+			release(this);
+		}
+	}
+}
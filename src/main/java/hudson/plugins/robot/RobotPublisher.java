@@ -19,10 +19,12 @@ import hudson.EnvVars;
 import hudson.Extension;
 import hudson.FilePath;
 import hudson.Launcher;
+import hudson.Util;
 import hudson.matrix.MatrixAggregatable;
 import hudson.matrix.MatrixAggregator;
 import hudson.matrix.MatrixBuild;
 import hudson.model.*;
+import hudson.plugins.robot.model.RobotDetailLevel;
 import hudson.plugins.robot.model.RobotResult;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.BuildStepMonitor;
@@ -30,6 +32,7 @@ import hudson.tasks.Publisher;
 import hudson.tasks.Recorder;
 import hudson.util.FormValidation;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.Serial;
@@ -37,15 +40,22 @@ import java.io.Serializable;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import jakarta.servlet.ServletException;
 
 import jenkins.tasks.SimpleBuildStep;
 import org.apache.commons.lang.StringUtils;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
@@ -63,7 +73,7 @@ public class RobotPublisher extends Recorder implements Serializable,
     protected static final String DEFAULT_ARCHIVE_DIR = "robot-plugin";
     protected static final String DEFAULT_JENKINS_ARCHIVE_DIR = "archive";
 
-    private static final String DEFAULT_OUTPUT_FILE = "output.xml";
+    protected static final String DEFAULT_OUTPUT_FILE = "output.xml";
     private static final String DEFAULT_LOG_FILE = "log.html";
 
     final private String archiveDirName;
@@ -82,6 +92,22 @@ public class RobotPublisher extends Recorder implements Serializable,
     //Default to true
     private boolean countSkippedTests = false;
 
+    private RobotDetailLevel detailLevel;
+
+    private boolean compressArchivedFiles;
+
+    private boolean deduplicateArchivedFiles;
+
+    private String resultSetName;
+
+    private boolean mergeOutputs;
+
+    private boolean pabotOutputs;
+
+    private boolean keywordStatistics;
+
+    private static final Map<Run<?, ?>, Object> PUBLISH_LOCKS = Collections.synchronizedMap(new WeakHashMap<>());
+
     /**
      * Create new publisher for Robot Framework results
      *
@@ -253,6 +279,110 @@ public class RobotPublisher extends Recorder implements Serializable,
         return useArtifactManager;
     }
 
+    /**
+     * Gets how much of the passed tests is published
+     *
+     * @return detail level of published results
+     */
+    public RobotDetailLevel getDetailLevel() {
+        return detailLevel != null ? detailLevel : RobotDetailLevel.FULL;
+    }
+
+    @DataBoundSetter
+    public void setDetailLevel(RobotDetailLevel detailLevel) {
+        this.detailLevel = detailLevel;
+    }
+
+    /**
+     * Gets if log and report files are archived gzipped
+     *
+     * @return true if archived files are compressed
+     */
+    public boolean getCompressArchivedFiles() {
+        return compressArchivedFiles;
+    }
+
+    @DataBoundSetter
+    public void setCompressArchivedFiles(boolean compressArchivedFiles) {
+        this.compressArchivedFiles = compressArchivedFiles;
+    }
+
+    /**
+     * Gets if archived files are stored once per job by their content
+     *
+     * @return true if archived files are deduplicated
+     */
+    public boolean getDeduplicateArchivedFiles() {
+        return deduplicateArchivedFiles;
+    }
+
+    @DataBoundSetter
+    public void setDeduplicateArchivedFiles(boolean deduplicateArchivedFiles) {
+        this.deduplicateArchivedFiles = deduplicateArchivedFiles;
+    }
+
+    /**
+     * Gets the name the results are published under when a run publishes several result sets
+     *
+     * @return name of the result set, null to merge the suites as they are
+     */
+    public String getResultSetName() {
+        return resultSetName;
+    }
+
+    @DataBoundSetter
+    public void setResultSetName(String resultSetName) {
+        this.resultSetName = Util.fixEmptyAndTrim(resultSetName);
+    }
+
+    /**
+     * Gets if the output files are merged like rebot --merge, later files replacing
+     * earlier results of the same tests
+     *
+     * @return true if output files are merged
+     */
+    public boolean getMergeOutputs() {
+        return mergeOutputs;
+    }
+
+    @DataBoundSetter
+    public void setMergeOutputs(boolean mergeOutputs) {
+        this.mergeOutputs = mergeOutputs;
+    }
+
+    /**
+     * Gets if the output files are of pabot processes, combined into the suite hierarchy
+     * of the whole run
+     *
+     * @return true if the output files are of pabot processes
+     */
+    public boolean getPabotOutputs() {
+        return pabotOutputs;
+    }
+
+    @DataBoundSetter
+    public void setPabotOutputs(boolean pabotOutputs) {
+        this.pabotOutputs = pabotOutputs;
+    }
+
+    /**
+     * Gets if the calls and durations of the keywords are collected for the slowest keywords page
+     *
+     * @return true if keyword statistics are collected
+     */
+    public boolean getKeywordStatistics() {
+        return keywordStatistics;
+    }
+
+    @DataBoundSetter
+    public void setKeywordStatistics(boolean keywordStatistics) {
+        this.keywordStatistics = keywordStatistics;
+    }
+
+    static Object getPublishLock(Run<?, ?> build) {
+        return PUBLISH_LOCKS.computeIfAbsent(build, b -> new Object());
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -267,7 +397,12 @@ public class RobotPublisher extends Recorder implements Serializable,
     protected RobotResult parse(String expandedTestResults, String expandedLogFileName, String expandedReportFileName, String outputPath, Run<?, ?> build, FilePath workspace,
                                 Launcher launcher, TaskListener listener) throws IOException,
             InterruptedException {
-        return new RobotParser().parse(expandedTestResults, outputPath, build, workspace, expandedLogFileName, expandedReportFileName);
+        RobotParser.Options options = new RobotParser.Options()
+                .detailLevel(getDetailLevel())
+                .merge(getMergeOutputs())
+                .pabot(getPabotOutputs())
+                .keywordStatistics(getKeywordStatistics());
+        return new RobotParser().parse(expandedTestResults, outputPath, build, workspace, expandedLogFileName, expandedReportFileName, options);
     }
 
     /**
@@ -277,21 +412,137 @@ public class RobotPublisher extends Recorder implements Serializable,
     @SuppressFBWarnings(value = "DCN_NULLPOINTER_EXCEPTION",
             justification = "Lower risk to suppress the warning than to stop catching the null pointer exception")
     public void perform(Run<?, ?> build, @NonNull FilePath workspace, @NonNull EnvVars buildEnv, @NonNull Launcher launcher, @NonNull TaskListener listener) throws InterruptedException, IOException {
+        publish(build, workspace, buildEnv.expand(getOutputPath()), buildEnv, launcher, listener, true);
+    }
+
+    /**
+     * Publish with the parse, archiving and saving of the results left to a background job,
+     * see {@link RobotBackgroundPublishes}. The totals are read from the statistics of the
+     * output files and checked against the thresholds, and the files are copied to the build
+     * directory before this returns, so the background job doesn't read the workspace.
+     * Publishes at once if the statistics can't be read or the output files are merged.
+     *
+     * @param build     The Jenkins run
+     * @param workspace Build workspace
+     * @param buildEnv  Environment of the build
+     * @param launcher  A way to start processes
+     * @param listener  A place to send output
+     * @return passed, failed and skipped tests, null if nothing was published
+     * @throws InterruptedException if interrupted
+     * @throws IOException          if publishing at once fails
+     */
+    public long[] performInBackground(Run<?, ?> build, @NonNull FilePath workspace, @NonNull EnvVars buildEnv, @NonNull Launcher launcher, @NonNull TaskListener listener) throws InterruptedException, IOException {
+        if (build.getResult() == Result.ABORTED) {
+            return null;
+        }
+        PrintStream logger = listener.getLogger();
+        logger.println(Messages.robot_publisher_started());
+        long[] totals = null;
+        // statistics of merged files count rerun tests more than once
+        if (!mergeOutputs || pabotOutputs) {
+            try {
+                totals = new RobotParser().parseTotals(buildEnv.expand(getOutputFileName()), buildEnv.expand(getOutputPath()), workspace);
+            } catch (IOException e) {
+                logger.println(Messages.robot_publisher_totals_failed(e.getMessage()));
+            }
+        }
+        if (totals == null) {
+            publish(build, workspace, buildEnv.expand(getOutputPath()), buildEnv, launcher, listener, true);
+            RobotBuildAction action = build.getAction(RobotBuildAction.class);
+            if (action == null) {
+                return null;
+            }
+            RobotResult result = action.getResult();
+            return new long[]{result.getOverallPassed(), result.getOverallFailed(), result.getOverallSkipped()};
+        }
+        long total = totals[0] + totals[1] + totals[2];
+        logger.println(Messages.robot_publisher_totals(total, totals[0], totals[1], totals[2]));
+        logger.println(Messages.robot_publisher_checking());
+        build.setResult(getBuildResult(build, RobotResult.calculatePassPercentage(totals[0], total, totals[2], countSkippedTests)));
+        logger.println(Messages.robot_publisher_done());
+
+        FilePath staging = RobotBackgroundPublishes.createStagingDir(build);
+        try {
+            new FilePath(workspace, buildEnv.expand(getOutputPath())).copyRecursiveTo(getStagedMasks(buildEnv), staging);
+        } catch (IOException | InterruptedException e) {
+            staging.deleteRecursive();
+            throw e;
+        }
+
+        logger.println(Messages.robot_publisher_background());
+        RobotBackgroundPublishes.submit(build, () -> {
+            try {
+                publish(build, staging, ".", buildEnv, launcher, listener, false);
+            } finally {
+                staging.deleteRecursive();
+            }
+            return null;
+        });
+        return totals;
+    }
+
+    /**
+     * @param buildEnv Environment of the build
+     * @return masks of the files a publish reads, output files included even if they are not archived
+     */
+    private String getStagedMasks(EnvVars buildEnv) {
+        String expandedOutputFileName = buildEnv.expand(getOutputFileName());
+        List<String> masks = getArchivedMasks(buildEnv, false);
+        masks.add(expandedOutputFileName);
+        masks.addAll(Arrays.asList(modifyMasksforSplittedOutput(new String[]{expandedOutputFileName})));
+        return StringUtils.join(masks, ",");
+    }
+
+    /**
+     * @param buildEnv Environment of the build
+     * @param withOutput True to include the output files
+     * @return masks of the files to archive
+     */
+    private List<String> getArchivedMasks(EnvVars buildEnv, boolean withOutput) {
+        String expandedLogFileName = buildEnv.expand(getLogFileName());
+        String logFileJavascripts = trimSuffix(expandedLogFileName) + ".js";
+        List<String> masks = new ArrayList<>(Arrays.asList(modifyMasksforSplittedOutput(new String[]{buildEnv.expand(getReportFileName()), expandedLogFileName, logFileJavascripts})));
+        if (withOutput) {
+            masks.addAll(Arrays.asList(modifyMasksforSplittedOutput(new String[]{buildEnv.expand(getOutputFileName())})));
+        }
+        if (StringUtils.isNotBlank(getOtherFiles())) {
+            masks.add(buildEnv.expand(getOtherFiles()));
+        }
+        return masks;
+    }
+
+    private void publish(Run<?, ?> build, FilePath workspace, String expandedOutputPath, EnvVars buildEnv, Launcher launcher, TaskListener listener,
+                         boolean checkThresholds) throws InterruptedException, IOException {
         if (build.getResult() != Result.ABORTED) {
             PrintStream logger = listener.getLogger();
             logger.println(Messages.robot_publisher_started());
             logger.println(Messages.robot_publisher_parsing());
             RobotResult result;
+            RobotPublishLimiter.Permit permit = null;
+            Future<Long> archiving = null;
 
             try {
                 String expandedOutputFileName = buildEnv.expand(getOutputFileName());
-                String expandedOutputPath = buildEnv.expand(getOutputPath());
                 String expandedReportFileName = buildEnv.expand(getReportFileName());
                 String expandedLogFileName = buildEnv.expand(getLogFileName());
-                String logFileJavascripts = trimSuffix(expandedLogFileName) + ".js";
+                String expandedResultSetName = buildEnv.expand(getResultSetName());
+                // files of a named result set are kept apart from the files of other publishes
+                String resultSetDir = getResultSetDir(expandedResultSetName);
 
+                // archiving doesn't need the parse result, so the files are copied while parsing
+                if (!DEFAULT_JENKINS_ARCHIVE_DIR.equalsIgnoreCase(getArchiveDirName())) {
+                    List<String> masks = getArchivedMasks(buildEnv, !getDisableArchiveOutput());
+                    archiving = startArchiving(build, workspace, expandedOutputPath, StringUtils.join(masks, ","), resultSetDir, launcher, listener);
+                }
+
+                // limit the results held in controller memory at the same time
+                long estimatedSize = RobotPublishLimiter.estimateResultSize(new FilePath(workspace, expandedOutputPath), expandedOutputFileName);
+                permit = RobotPublishLimiter.get().acquire(estimatedSize, logger);
+                long parseStarted = System.nanoTime();
                 result = parse(expandedOutputFileName, expandedLogFileName, expandedReportFileName, expandedOutputPath, build, workspace, launcher, listener);
+                long parseEnded = System.nanoTime();
                 logger.println(Messages.robot_publisher_done());
+                logger.println(Messages.robot_publisher_parse_time(seconds(parseEnded - parseStarted)));
 
                 // Check if log and report files exist
                 FilePath outputDir = new FilePath(workspace, expandedOutputPath);
@@ -302,29 +553,44 @@ public class RobotPublisher extends Recorder implements Serializable,
                     logger.println(Messages.robot_publisher_file_not_found() + " " + expandedReportFileName);
                 }
 
-                if (!DEFAULT_JENKINS_ARCHIVE_DIR.equalsIgnoreCase(getArchiveDirName())) {
+                if (archiving != null) {
                     logger.println(Messages.robot_publisher_copying());
-                    //Save configured Robot files (including split output) to destination dir
-                    copyFilesToDestination(build, workspace, expandedOutputPath, StringUtils.join(modifyMasksforSplittedOutput(new String[]{expandedReportFileName, expandedLogFileName, logFileJavascripts}), ","), launcher, listener);
-
-                    if (!getDisableArchiveOutput()) {
-                        copyFilesToDestination(build, workspace, expandedOutputPath, StringUtils.join(modifyMasksforSplittedOutput(new String[]{expandedOutputFileName}), ","), launcher, listener);
-                    }
-
-                    //Save other configured files to destination dir
-                    if (StringUtils.isNotBlank(getOtherFiles())) {
-                        String filemask = buildEnv.expand(getOtherFiles());
-                        copyFilesToDestination(build, workspace, expandedOutputPath, filemask, launcher, listener);
-                    }
+                    long archiveTime = awaitArchiving(archiving);
                     logger.println(Messages.robot_publisher_done());
+                    logger.println(Messages.robot_publisher_archive_time(seconds(archiveTime), seconds(System.nanoTime() - parseEnded)));
                 }
 
                 logger.println(Messages.robot_publisher_assigning());
 
                 String label = buildEnv.expand(overwriteXAxisLabel);
-                RobotBuildAction action = new RobotBuildAction(build, result, getArchiveDirName(), listener,
-                        expandedReportFileName, expandedLogFileName, enableCache, label, countSkippedTests, useArtifactManager);
-                build.addAction(action);
+                String archivedLogFileName = resultSetDir + expandedLogFileName;
+                String archivedReportFileName = resultSetDir + expandedReportFileName;
+                result.setLogFile(archivedLogFileName);
+                result.setReportFile(archivedReportFileName);
+                // several publishes of a run, e.g. in parallel branches, share one action
+                synchronized (getPublishLock(build)) {
+                    RobotBuildAction action = build.getAction(RobotBuildAction.class);
+                    // results of the run in progress are replaced by the full ones
+                    if (action != null && action.isProvisional()) {
+                        build.removeAction(action);
+                        action = null;
+                    }
+                    if (action != null) {
+                        action.mergeResult(result, expandedResultSetName, listener);
+                    } else {
+                        RobotResult actionResult = result;
+                        if (StringUtils.isNotBlank(expandedResultSetName)) {
+                            actionResult = new RobotResult();
+                            actionResult.merge(result, expandedResultSetName);
+                        }
+                        action = new RobotBuildAction(build, actionResult, getArchiveDirName(), listener,
+                                archivedReportFileName, archivedLogFileName, enableCache, label, countSkippedTests, useArtifactManager);
+                        build.addAction(action);
+                    }
+                    // the result is saved in the background, within the capacity of this publish
+                    action.closeWhenSaved(permit);
+                    permit = null;
+                }
 
                 // set RobotProjectAction as project action
                 Job<?, ?> job = build.getParent();
@@ -338,12 +604,14 @@ public class RobotPublisher extends Recorder implements Serializable,
                     }
 
                     logger.println(Messages.robot_publisher_done());
-                    logger.println(Messages.robot_publisher_checking());
+                    if (checkThresholds) {
+                        logger.println(Messages.robot_publisher_checking());
 
-                    Result buildResult = getBuildResult(build, result);
-                    build.setResult(buildResult);
+                        Result buildResult = getBuildResult(build, result);
+                        build.setResult(buildResult);
 
-                    logger.println(Messages.robot_publisher_done());
+                        logger.println(Messages.robot_publisher_done());
+                    }
                     logger.println(Messages.robot_publisher_finished());
                 }
 
@@ -353,10 +621,113 @@ public class RobotPublisher extends Recorder implements Serializable,
                 logger.println(Messages.robot_publisher_fail());
                 e.printStackTrace(logger);
                 build.setResult(Result.FAILURE);
+            } finally {
+                if (archiving != null && !archiving.isDone()) {
+                    archiving.cancel(true);
+                }
+                if (permit != null) {
+                    permit.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Start archiving files with given filemasks in the background. All the files are
+     * transferred together, see {@link #archiveFiles}.
+     *
+     * @param build     The Jenkins run
+     * @param workspace Build workspace
+     * @param inputPath Base path for copy. Relative to build workspace.
+     * @param filemask  List of Ant GLOB style filemasks to copy from dirs specified at inputPathMask
+     * @param resultSetDir Directory of the result set under the archive directory, see {@link #getResultSetDir}
+     * @param launcher  A way to start processes
+     * @param listener  A place to send output
+     * @return nanoseconds archiving took, when done
+     */
+    private Future<Long> startArchiving(Run<?, ?> build, FilePath workspace, String inputPath, String filemask,
+                                        String resultSetDir, Launcher launcher, TaskListener listener) {
+        return Computer.threadPoolForRemoting.submit(() -> {
+            long started = System.nanoTime();
+            archiveFiles(build, workspace, inputPath, filemask, resultSetDir, getCompressArchivedFiles(), launcher, listener);
+            return System.nanoTime() - started;
+        });
+    }
+
+    private static long awaitArchiving(Future<Long> archiving) throws IOException, InterruptedException {
+        try {
+            return archiving.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
             }
+            if (cause instanceof InterruptedException interruptedException) {
+                throw interruptedException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException(cause);
         }
     }
 
+    private static String seconds(long nanos) {
+        return String.format("%.1f", nanos / 1e9);
+    }
+
+    /**
+     * Archive files with given filemasks the way configured: with the artifact manager, through the
+     * job's blob store, gzipped or as they are
+     *
+     * @param build          The Jenkins run
+     * @param workspace      Build workspace
+     * @param inputPath      Base path for copy. Relative to build workspace.
+     * @param filemask       List of Ant GLOB style filemasks to copy from dirs specified at inputPathMask
+     * @param resultSetDir   Directory of the result set under the archive directory, see {@link #getResultSetDir}
+     * @param compress       True to store log and report files gzipped
+     * @param launcher       A way to start processes
+     * @param listener       A place to send output
+     * @throws IOException          thrown exception
+     * @throws InterruptedException thrown exception
+     */
+    private void archiveFiles(Run<?, ?> build, FilePath workspace, String inputPath, String filemask, String resultSetDir,
+                              boolean compress, Launcher launcher, TaskListener listener) throws IOException, InterruptedException {
+        String archiveDir = getArchiveDirName() + "/" + resultSetDir;
+        if (!getUseArtifactManager() && getDeduplicateArchivedFiles()) {
+            int reused = RobotBlobStore.of(build.getParent()).archive(new FilePath(workspace, inputPath), filemask,
+                    new File(build.getRootDir(), archiveDir), compress);
+            if (reused > 0) {
+                listener.getLogger().println(Messages.robot_publisher_reused(reused));
+            }
+        } else if (!getUseArtifactManager() && compress) {
+            RobotGzipFiles.copyCompressed(new FilePath(workspace, inputPath), filemask,
+                    new FilePath(new FilePath(build.getRootDir()), archiveDir));
+        } else if (getUseArtifactManager()) {
+            archiveFilesToDestination(build, workspace, inputPath, filemask, resultSetDir, launcher, listener);
+        } else {
+            new FilePath(workspace, inputPath).copyRecursiveTo(filemask, new FilePath(new FilePath(build.getRootDir()), archiveDir));
+        }
+    }
+
+    /**
+     * Directory the files of a named result set are archived in, under the archive directory or
+     * artifacts, so publishes of a build don't overwrite each other's files
+     *
+     * @param resultSetName Expanded name of the result set
+     * @return the name made safe for a path, with a trailing slash, or empty if there is no name
+     */
+    static String getResultSetDir(String resultSetName) {
+        if (StringUtils.isBlank(resultSetName)) {
+            return "";
+        }
+        String dir = resultSetName.trim().replaceAll("[^\\w.-]", "_");
+        if (dir.matches("\\.+")) {
+            dir = dir.replace('.', '_');
+        }
+        return dir + "/";
+    }
+
     /**
      * Copy files with given filemasks from input path relative to build into
      * local build archive dir or artifact manager destination
@@ -410,6 +781,11 @@ public class RobotPublisher extends Recorder implements Serializable,
      */
     public void archiveFilesToDestination(Run<?, ?> build, FilePath workspace, String inputPath, String artifactsFilemask,
                                           Launcher launcher, TaskListener listener) throws IOException, InterruptedException {
+        archiveFilesToDestination(build, workspace, inputPath, artifactsFilemask, "", launcher, listener);
+    }
+
+    private void archiveFilesToDestination(Run<?, ?> build, FilePath workspace, String inputPath, String artifactsFilemask,
+                                           String resultSetDir, Launcher launcher, TaskListener listener) throws IOException, InterruptedException {
         FilePath srcDir = new FilePath(workspace, inputPath);
         FilePath[] artifactFiles = srcDir.list(artifactsFilemask);
 
@@ -417,7 +793,7 @@ public class RobotPublisher extends Recorder implements Serializable,
         for (FilePath file : artifactFiles) {
             // Use relative path as artifact name
             String relativePath = getRelativePath(srcDir, file);
-            artifacts.put(relativePath, relativePath);
+            artifacts.put(resultSetDir + relativePath, relativePath);
         }
 
         // This will automatically use the configured artifact manager (S3, etc.)
@@ -492,8 +868,11 @@ public class RobotPublisher extends Recorder implements Serializable,
      */
     protected Result getBuildResult(Run<?, ?> build,
                                     RobotResult result) {
+        return getBuildResult(build, result.getPassPercentage(countSkippedTests));
+    }
+
+    private Result getBuildResult(Run<?, ?> build, double passPercentage) {
         if (build.getResult() != Result.FAILURE) {
-            double passPercentage = result.getPassPercentage(countSkippedTests);
             if (passPercentage < getUnstableThreshold()) {
                 return Result.FAILURE;
             } else if (passPercentage < getPassThreshold()) {
@@ -0,0 +1,332 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*	http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot;
+
+import hudson.model.DirectoryBrowserSupport;
+import hudson.model.Run;
+import jenkins.security.ResourceDomainConfiguration;
+import jenkins.util.SystemProperties;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.kohsuke.stapler.Ancestor;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
+
+/**
+ * Serves archived log and report files. Files of completed builds don't
+ * change, so they are served with validators and byte range support, and
+ * with a long lived Cache-Control when the build is addressed by its number.
+ * A permalink such as lastSuccessfulBuild moves to later builds, so files
+ * requested through one are revalidated. Files stored gzipped, see {@link RobotGzipFiles}, are
+ * served by their original names. Anything else, such as directories,
+ * files of builds still running and links to outside the directory, is
+ * left to directory browsing.
+ */
+public final class RobotReportFiles {
+
+	static final String CACHE_CONTROL = "private, max-age=31536000, immutable";
+	static final String REVALIDATE = "private, no-cache";
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private RobotReportFiles() {
+	}
+
+	/**
+	 * Serve the file requested, if it is served by this class
+	 * @param dir directory of the archived files
+	 * @param req request for a file in the directory
+	 * @param rsp response
+	 * @param completed true if the build has completed, so its files don't change
+	 * @return true if the file was served
+	 * @throws IOException if reading the file fails
+	 */
+	public static boolean serve(File dir, StaplerRequest2 req, StaplerResponse2 rsp, boolean completed) throws IOException {
+		String path = req.getRestOfPath();
+		return serve(dir, path.startsWith("/") ? path.substring(1) : path, req, rsp, completed);
+	}
+
+	/**
+	 * Serve a file, if it is served by this class
+	 * @param dir directory of the archived files
+	 * @param path path of the file relative to the directory
+	 * @param req request
+	 * @param rsp response
+	 * @param completed true if the build has completed, so its files don't change
+	 * @return true if the file was served
+	 * @throws IOException if reading the file fails
+	 */
+	public static boolean serve(File dir, String path, StaplerRequest2 req, StaplerResponse2 rsp, boolean completed) throws IOException {
+		if (path.isEmpty() || path.contains("..") || path.contains("\\"))
+			return false;
+		File file = new File(dir, path);
+		boolean compressed = false;
+		if (!file.isFile()) {
+			file = new File(dir, path + RobotGzipFiles.SUFFIX);
+			compressed = RobotGzipFiles.isCompressible(path) && file.isFile();
+			if (!compressed)
+				return false;
+		} else if (!completed) {
+			return false;
+		}
+		// archived links may point anywhere, let directory browsing check them
+		if (!isInside(file, dir))
+			return false;
+		// let directory browsing redirect to the resource root URL like it does for other files
+		if (ResourceDomainConfiguration.isResourceDomainConfigured() && !ResourceDomainConfiguration.isResourceRequest(req))
+			return false;
+
+		setContentHeaders(path, compressed, req, rsp);
+		long length = file.length();
+		long lastModified = file.lastModified();
+		boolean encoded = compressed && RobotGzipFiles.acceptsGzip(req.getHeader("Accept-Encoding"));
+		if (compressed)
+			rsp.setHeader("Vary", "Accept-Encoding");
+		if (encoded)
+			rsp.setHeader("Content-Encoding", "gzip");
+		rsp.setDateHeader("Last-Modified", lastModified);
+
+		if (!completed) {
+			if (encoded)
+				write(file, 0, length, rsp);
+			else
+				writeDecompressed(file, rsp);
+			return true;
+		}
+
+		// the decompressed and the compressed are different representations
+		String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified)
+				+ (compressed ? encoded ? "-gz" : "-d" : "") + "\"";
+		rsp.setHeader("ETag", etag);
+		rsp.setHeader("Cache-Control", isNumberedBuild(req) ? CACHE_CONTROL : REVALIDATE);
+		if (isNotModified(req.getHeader("If-None-Match"), getDateHeader(req, "If-Modified-Since"), etag, lastModified)) {
+			rsp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return true;
+		}
+		if (compressed && !encoded) {
+			// length of the decompressed file is not known, so no ranges
+			writeDecompressed(file, rsp);
+			return true;
+		}
+
+		rsp.setHeader("Accept-Ranges", "bytes");
+		long[] range = null;
+		String ifRange = req.getHeader("If-Range");
+		if (ifRange == null || ifRange.equals(etag))
+			range = parseRange(req.getHeader("Range"), length);
+		if (range == null) {
+			write(file, 0, length, rsp);
+		} else if (range.length == 0) {
+			rsp.setHeader("Content-Range", "bytes */" + length);
+			rsp.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+		} else {
+			rsp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+			rsp.setHeader("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + length);
+			write(file, range[0], range[1] - range[0] + 1, rsp);
+		}
+		return true;
+	}
+
+	/**
+	 * @param dir directory of the archived files
+	 * @param path path of a file relative to the directory
+	 * @return true if the file is archived, compressed or not
+	 */
+	public static boolean exists(File dir, String path) {
+		return new File(dir, path).exists() || new File(dir, path + RobotGzipFiles.SUFFIX).exists();
+	}
+
+	/**
+	 * Check if the request addresses its build by number. A child build of
+	 * a matrix build is numbered when its parent build is.
+	 * @param req request
+	 * @return true if each build in the request URL is addressed by its number
+	 */
+	static boolean isNumberedBuild(StaplerRequest2 req) {
+		List<Ancestor> ancestors = req.getAncestors();
+		if (ancestors == null)
+			return false;
+		boolean found = false;
+		Object previous = null;
+		for (Ancestor ancestor : ancestors) {
+			Object object = ancestor.getObject();
+			if (object instanceof Run<?, ?> run) {
+				String url = ancestor.getUrl();
+				if (url.endsWith("/"))
+					url = url.substring(0, url.length() - 1);
+				String token = url.substring(url.lastIndexOf('/') + 1);
+				if (!token.equals(String.valueOf(run.getNumber())) && !(previous instanceof Run))
+					return false;
+				found = true;
+			}
+			previous = object;
+		}
+		return found;
+	}
+
+	/**
+	 * @param file file in the directory
+	 * @param dir directory
+	 * @return true if the file is in the directory with symbolic links resolved
+	 */
+	static boolean isInside(File file, File dir) {
+		try {
+			return file.toPath().toRealPath().startsWith(dir.toPath().toRealPath());
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Check a conditional request. If-None-Match takes precedence over
+	 * If-Modified-Since.
+	 * @param ifNoneMatch If-None-Match header, null if none
+	 * @param ifModifiedSince If-Modified-Since header in milliseconds, -1 if none
+	 * @param etag entity tag of the file
+	 * @param lastModified modification time of the file in milliseconds
+	 * @return true if the client has the file already
+	 */
+	static boolean isNotModified(String ifNoneMatch, long ifModifiedSince, String etag, long lastModified) {
+		if (ifNoneMatch != null) {
+			for (String tag : ifNoneMatch.split(",")) {
+				tag = tag.trim();
+				if (tag.startsWith("W/"))
+					tag = tag.substring(2);
+				if (tag.equals("*") || tag.equals(etag))
+					return true;
+			}
+			return false;
+		}
+		// header dates have whole seconds
+		return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+	}
+
+	/**
+	 * Parse a Range header. Only a single byte range is served, other
+	 * requests get the whole file.
+	 * @param header Range header, null if none
+	 * @param length length of the file
+	 * @return first and last byte, an empty array if the range is not
+	 * satisfiable or null for the whole file
+	 */
+	static long[] parseRange(String header, long length) {
+		if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0)
+			return null;
+		String spec = header.substring(6).trim();
+		int dash = spec.indexOf('-');
+		if (dash < 0)
+			return null;
+		try {
+			String first = spec.substring(0, dash).trim();
+			String last = spec.substring(dash + 1).trim();
+			long start;
+			long end;
+			if (first.isEmpty()) {
+				// suffix range, the last bytes of the file
+				long suffix = Long.parseLong(last);
+				if (suffix <= 0)
+					return new long[0];
+				start = Math.max(0, length - suffix);
+				end = length - 1;
+			} else {
+				start = Long.parseLong(first);
+				if (last.isEmpty()) {
+					end = length - 1;
+				} else {
+					end = Long.parseLong(last);
+					if (end < start)
+						return null;
+					end = Math.min(end, length - 1);
+				}
+			}
+			if (start < 0 || start >= length)
+				return new long[0];
+			return new long[]{start, end};
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private static void setContentHeaders(String path, boolean compressed, StaplerRequest2 req, StaplerResponse2 rsp) {
+		String contentType;
+		if (compressed)
+			contentType = path.endsWith(".js") ? "application/javascript;charset=UTF-8" : "text/html;charset=UTF-8";
+		else
+			contentType = req.getServletContext().getMimeType(path);
+		rsp.setContentType(contentType != null ? contentType : "application/octet-stream");
+		rsp.setHeader("X-Content-Type-Options", "nosniff");
+		if (!ResourceDomainConfiguration.isResourceRequest(req)) {
+			String csp = SystemProperties.getString(DirectoryBrowserSupport.CSP_PROPERTY_NAME, DirectoryBrowserSupport.DEFAULT_CSP_VALUE);
+			if (!csp.trim().isEmpty()) {
+				for (String header : new String[]{"Content-Security-Policy", "X-WebKit-CSP", "X-Content-Security-Policy"})
+					rsp.setHeader(header, csp);
+			}
+		}
+	}
+
+	private static long getDateHeader(StaplerRequest2 req, String name) {
+		try {
+			return req.getDateHeader(name);
+		} catch (IllegalArgumentException e) {
+			return -1;
+		}
+	}
+
+	private static void write(File file, long start, long count, StaplerResponse2 rsp) throws IOException {
+		rsp.setContentLengthLong(count);
+		try (OutputStream out = rsp.getOutputStream()) {
+			copy(file, start, count, out);
+		}
+	}
+
+	private static void writeDecompressed(File file, StaplerResponse2 rsp) throws IOException {
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(file.toPath()), BUFFER_SIZE);
+				OutputStream out = rsp.getOutputStream()) {
+			in.transferTo(out);
+		}
+	}
+
+	/**
+	 * Copy bytes of a file to a stream
+	 * @param file file to copy from
+	 * @param start first byte to copy
+	 * @param count number of bytes to copy
+	 * @param out stream to copy to
+	 * @throws IOException if copying fails
+	 */
+	static void copy(File file, long start, long count, OutputStream out) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+			in.seek(start);
+			while (count > 0) {
+				int read = in.read(buffer, 0, (int) Math.min(buffer.length, count));
+				if (read < 0)
+					throw new IOException(file + " ended before " + count + " more bytes");
+				out.write(buffer, 0, read);
+				count -= read;
+			}
+		}
+	}
+}
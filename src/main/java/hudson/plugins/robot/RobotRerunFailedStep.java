@@ -0,0 +1,88 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*	http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot;
+
+import java.util.Set;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import com.google.common.collect.ImmutableSet;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+
+/**
+ * Returns a Robot argument file that selects the tests that failed in the
+ * results published to the build, see {@link RobotFailureIndex}. Can also
+ * write it to the workspace for the rerun.
+ */
+public class RobotRerunFailedStep extends Step {
+
+	private boolean suites = false;
+	private @CheckForNull String argumentFile;
+
+	@DataBoundConstructor
+	public RobotRerunFailedStep() {
+	}
+
+	public boolean getSuites() {
+		return suites;
+	}
+
+	@DataBoundSetter
+	public void setSuites(boolean suites) {
+		this.suites = suites;
+	}
+
+	public String getArgumentFile() {
+		return argumentFile;
+	}
+
+	@DataBoundSetter
+	public void setArgumentFile(String argumentFile) {
+		this.argumentFile = Util.fixEmptyAndTrim(argumentFile);
+	}
+
+	@Override
+	public StepExecution start(StepContext context) throws Exception {
+		return new RobotRerunFailedStepExecution(this, context);
+	}
+
+	@Extension
+	public static final class DescriptorImpl extends StepDescriptor {
+
+		@Override public String getFunctionName() {
+			return "robotRerunFailed";
+		}
+
+		@Override public String getDisplayName() {
+			return "Write a Robot Framework argument file for rerunning failed tests";
+		}
+
+		@Override public Set<? extends Class<?>> getRequiredContext() {
+			return ImmutableSet.of(Run.class, TaskListener.class);
+		}
+	}
+}
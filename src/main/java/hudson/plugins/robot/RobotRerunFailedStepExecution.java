@@ -0,0 +1,68 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*	http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot;
+
+import java.io.Serial;
+import java.nio.charset.StandardCharsets;
+
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+
+import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+
+public class RobotRerunFailedStepExecution extends SynchronousNonBlockingStepExecution<String> {
+
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private transient final RobotRerunFailedStep step;
+
+	RobotRerunFailedStepExecution(RobotRerunFailedStep step, StepContext context) {
+		super(context);
+		this.step = step;
+	}
+
+	/**
+	 * @return content of the argument file, empty if no test failed
+	 */
+	@Override
+	protected String run() throws Exception {
+		Run<?, ?> build = getContext().get(Run.class);
+		TaskListener listener = getContext().get(TaskListener.class);
+		// results published in the background are not there before this
+		RobotBackgroundPublishes.await(build, listener);
+		RobotBuildAction action = build.getAction(RobotBuildAction.class);
+		if (action == null)
+			throw new AbortException(Messages.robot_rerun_no_results());
+		RobotFailureIndex failed = action.getFailureIndex();
+		String arguments = failed.toArgumentFile(step.getSuites());
+
+		if (step.getArgumentFile() != null) {
+			FilePath workspace = getContext().get(FilePath.class);
+			if (workspace == null)
+				throw new AbortException("Writing an argument file needs a workspace");
+			EnvVars env = getContext().get(EnvVars.class);
+			String argumentFile = env != null ? env.expand(step.getArgumentFile()) : step.getArgumentFile();
+			workspace.child(argumentFile).write(arguments, StandardCharsets.UTF_8.name());
+			listener.getLogger().println(Messages.robot_rerun_written(failed.getCount(), argumentFile));
+		}
+		return arguments;
+	}
+}
@@ -20,6 +20,15 @@ import hudson.matrix.MatrixBuild;
 import hudson.matrix.MatrixRun;
 import hudson.model.BuildListener;
 import hudson.Launcher;
+import hudson.plugins.robot.AggregatedRobotAction.ConfigurationResult;
+import hudson.plugins.robot.model.RobotResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class RobotResultAggregator extends MatrixAggregator {
 
@@ -27,16 +36,48 @@ public class RobotResultAggregator extends MatrixAggregator {
 		super(build, launcher, listener);
 	}
 
+	/**
+	 * Summarize the results of the configurations into the parent build. The
+	 * results are loaded in parallel, and only their summaries are kept.
+	 */
 	@Override
-	public boolean endBuild(){
+	public boolean endBuild() throws InterruptedException {
 		AggregatedRobotAction action = new AggregatedRobotAction(build);
-		for (MatrixRun run : build.getExactRuns()) {
-			RobotBuildAction robotAction = run.getAction(RobotBuildAction.class);
-			if (robotAction != null){
-				action.addResult(robotAction.getResult());
+		List<MatrixRun> runs = build.getExactRuns();
+		int threads = Math.max(1, Math.min(runs.size(), Runtime.getRuntime().availableProcessors()));
+		ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "Robot result aggregation for " + build);
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			List<Future<ConfigurationResult>> summaries = new ArrayList<>();
+			for (MatrixRun run : runs)
+				summaries.add(executor.submit(() -> summarize(run)));
+			for (int i = 0; i < runs.size(); i++) {
+				try {
+					ConfigurationResult configuration = summaries.get(i).get();
+					if (configuration != null)
+						action.addConfiguration(configuration);
+				} catch (ExecutionException e) {
+					listener.getLogger().println(Messages.robot_aggregator_failed(runs.get(i).getFullDisplayName()));
+					e.getCause().printStackTrace(listener.getLogger());
+				}
 			}
+		} finally {
+			executor.shutdownNow();
 		}
 		build.addAction(action);
 		return true;
 	}
+
+	private static ConfigurationResult summarize(MatrixRun run) {
+		RobotBuildAction robotAction = run.getAction(RobotBuildAction.class);
+		if (robotAction == null)
+			return null;
+		RobotResult result = robotAction.getResult();
+		if (result == null)
+			return null;
+		return ConfigurationResult.of(run.getParent().getDisplayName(), run.getParent().getCombination(), run.getUrl(), result);
+	}
 }
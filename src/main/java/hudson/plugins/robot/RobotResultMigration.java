@@ -0,0 +1,389 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*	http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot;
+
+import hudson.XmlFile;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.Job;
+import hudson.model.Run;
+import jenkins.model.Jenkins;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Saves the results of earlier builds again in the current format, one build
+ * at a time. Jobs are walked in the order of their full names and builds from
+ * the newest to the oldest. The position is saved as the walk goes, so a walk
+ * interrupted by a restart continues from where it was. The walk pauses
+ * between builds to keep within the given CPU and I/O budgets.
+ */
+public final class RobotResultMigration {
+
+	private static final Logger logger = Logger.getLogger(RobotResultMigration.class.getName());
+
+	static final int DEFAULT_CPU_PERCENT = 25;
+	static final int DEFAULT_IO_MEGABYTES_PER_SECOND = 10;
+	private static final int BUILDS_BETWEEN_SAVES = 100;
+
+	private static RobotResultMigration instance;
+
+	// saved state, see getStateFile()
+	private boolean running;
+	private boolean finished;
+	private String job;
+	private int build;
+	private int cpuPercent;
+	private int ioMegabytesPerSecond;
+	private int jobsDone;
+	private int jobsTotal;
+	private long migrated;
+	private long upToDate;
+	private long failed;
+	private long startedAt;
+	private long finishedAt;
+
+	private transient Thread thread;
+	private transient volatile boolean stopping;
+
+	private RobotResultMigration() {
+	}
+
+	/**
+	 * @return the migration of this controller
+	 */
+	public static synchronized RobotResultMigration get() {
+		if (instance == null) {
+			instance = new RobotResultMigration();
+			XmlFile file = getStateFile();
+			if (file.exists()) {
+				try {
+					file.unmarshal(instance);
+				} catch (IOException e) {
+					logger.log(Level.WARNING, "Couldn't load " + file, e);
+				}
+			}
+		}
+		return instance;
+	}
+
+	@Initializer(after = InitMilestone.JOB_CONFIG_ADAPTED)
+	public static void resumeAfterRestart() {
+		RobotResultMigration migration = get();
+		synchronized (migration) {
+			if (migration.running) {
+				logger.info("Resuming Robot result migration from " + migration.job + " #" + migration.build);
+				migration.startThread();
+			}
+		}
+	}
+
+	/**
+	 * Start the migration, or continue it if it was stopped
+	 * @param fromBeginning true to walk all builds again
+	 * @param cpuPercent share of one processor to use, 0 for the default
+	 * @param ioMegabytesPerSecond result files to read and write per second, 0 for the default
+	 */
+	public synchronized void start(boolean fromBeginning, int cpuPercent, int ioMegabytesPerSecond) {
+		this.cpuPercent = cpuPercent;
+		this.ioMegabytesPerSecond = ioMegabytesPerSecond;
+		if (isActive()) {
+			// continue with the new budgets, or keep going if stopping was asked
+			running = true;
+			stopping = false;
+			save();
+			return;
+		}
+		if (fromBeginning || finished) {
+			job = null;
+			build = 0;
+			jobsDone = 0;
+			migrated = 0;
+			upToDate = 0;
+			failed = 0;
+			startedAt = System.currentTimeMillis();
+			finishedAt = 0;
+		}
+		if (startedAt == 0)
+			startedAt = System.currentTimeMillis();
+		running = true;
+		finished = false;
+		save();
+		startThread();
+	}
+
+	/**
+	 * Stop the migration after the build being migrated. The position is
+	 * kept for continuing later.
+	 */
+	public synchronized void stop() {
+		running = false;
+		stopping = true;
+		save();
+	}
+
+	/**
+	 * Wait for the migration thread to end
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void join() throws InterruptedException {
+		Thread current;
+		synchronized (this) {
+			current = thread;
+		}
+		if (current != null)
+			current.join();
+	}
+
+	public synchronized boolean isActive() {
+		return thread != null && thread.isAlive();
+	}
+
+	public synchronized boolean isFinished() {
+		return finished;
+	}
+
+	public synchronized String getJob() {
+		return job;
+	}
+
+	public synchronized int getBuild() {
+		return build;
+	}
+
+	public synchronized int getCpuPercent() {
+		return cpuPercent > 0 ? Math.min(cpuPercent, 100) : DEFAULT_CPU_PERCENT;
+	}
+
+	public synchronized int getIoMegabytesPerSecond() {
+		return ioMegabytesPerSecond > 0 ? ioMegabytesPerSecond : DEFAULT_IO_MEGABYTES_PER_SECOND;
+	}
+
+	public synchronized int getJobsDone() {
+		return jobsDone;
+	}
+
+	public synchronized int getJobsTotal() {
+		return jobsTotal;
+	}
+
+	public synchronized long getMigrated() {
+		return migrated;
+	}
+
+	public synchronized long getUpToDate() {
+		return upToDate;
+	}
+
+	public synchronized long getFailed() {
+		return failed;
+	}
+
+	/**
+	 * @return start of the current or last walk, null if never started
+	 */
+	public synchronized Date getStartTime() {
+		return startedAt != 0 ? new Date(startedAt) : null;
+	}
+
+	/**
+	 * @return end of the last walk, null if not finished
+	 */
+	public synchronized Date getFinishTime() {
+		return finishedAt != 0 ? new Date(finishedAt) : null;
+	}
+
+	/**
+	 * @return one line description of the progress
+	 */
+	public synchronized String getStatus() {
+		String state = isActive() ? "running" : finished ? "finished" : startedAt == 0 ? "not started" : "stopped";
+		return state + ", " + jobsDone + "/" + jobsTotal + " jobs, " + migrated + " builds migrated, "
+				+ upToDate + " up to date, " + failed + " failed"
+				+ (job != null && !finished ? ", at " + job + (build > 0 ? " #" + build : "") : "");
+	}
+
+	private void startThread() {
+		stopping = false;
+		thread = new Thread(this::run, "Robot result migration");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	private void run() {
+		try {
+			migrateAll();
+		} catch (InterruptedException e) {
+			logger.info("Robot result migration interrupted");
+		} catch (RuntimeException e) {
+			logger.log(Level.SEVERE, "Robot result migration failed", e);
+			synchronized (this) {
+				running = false;
+			}
+		} finally {
+			save();
+		}
+	}
+
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	private void migrateAll() throws InterruptedException {
+		List<Job> jobs = new ArrayList<>();
+		for (Job candidate : Jenkins.get().allItems(Job.class))
+			jobs.add(candidate);
+		jobs.sort(Comparator.comparing(Job::getFullName));
+
+		String resumeJob;
+		int resumeBuild;
+		Throttle throttle;
+		synchronized (this) {
+			jobsTotal = jobs.size();
+			resumeJob = job;
+			resumeBuild = build;
+			throttle = new Throttle();
+			throttle.setBudgets(getCpuPercent(), getIoMegabytesPerSecond() * 1024L * 1024L);
+		}
+
+		int sinceSave = 0;
+		for (Job current : jobs) {
+			String name = current.getFullName();
+			int compared = resumeJob == null ? 1 : name.compareTo(resumeJob);
+			// done before the restart
+			if (compared < 0 || (compared == 0 && resumeBuild == 0))
+				continue;
+			int below = compared == 0 ? resumeBuild : Integer.MAX_VALUE;
+			for (Run<?, ?> run : (List<Run<?, ?>>) current.getBuilds()) {
+				if (stopping)
+					return;
+				if (run.getNumber() >= below || run.isBuilding())
+					continue;
+				migrate(run, throttle);
+				synchronized (this) {
+					job = name;
+					build = run.getNumber();
+					throttle.setBudgets(getCpuPercent(), getIoMegabytesPerSecond() * 1024L * 1024L);
+				}
+				if (++sinceSave >= BUILDS_BETWEEN_SAVES) {
+					save();
+					sinceSave = 0;
+				}
+			}
+			synchronized (this) {
+				job = name;
+				build = 0;
+				jobsDone++;
+			}
+			save();
+		}
+		synchronized (this) {
+			running = false;
+			finished = true;
+			finishedAt = System.currentTimeMillis();
+		}
+		logger.info("Robot result migration finished: " + getStatus());
+	}
+
+	private void migrate(Run<?, ?> run, Throttle throttle) throws InterruptedException {
+		long started = System.nanoTime();
+		long bytes = 0;
+		RobotBuildAction action = run.getAction(RobotBuildAction.class);
+		if (action != null && action.isMigrationNeeded()) {
+			File file = action.getResultFile();
+			bytes = file.length();
+			try {
+				action.migrateResult();
+				run.save();
+				bytes += file.length();
+				synchronized (this) {
+					migrated++;
+				}
+			} catch (IOException | RuntimeException e) {
+				logger.log(Level.WARNING, "Couldn't migrate Robot result of " + run, e);
+				synchronized (this) {
+					failed++;
+				}
+			}
+		} else if (action != null) {
+			synchronized (this) {
+				upToDate++;
+			}
+		}
+		throttle.spent(System.nanoTime() - started, bytes);
+	}
+
+	private synchronized void save() {
+		try {
+			getStateFile().write(this);
+		} catch (IOException e) {
+			logger.log(Level.WARNING, "Couldn't save Robot result migration state", e);
+		}
+	}
+
+	private static XmlFile getStateFile() {
+		return new XmlFile(new File(Jenkins.get().getRootDir(), RobotResultMigration.class.getName() + ".xml"));
+	}
+
+	/**
+	 * Pauses work to keep within a share of one processor and a rate of I/O
+	 */
+	static final class Throttle {
+
+		// shorter pauses are collected and taken together
+		private static final long MIN_PAUSE_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+		private int cpuPercent = DEFAULT_CPU_PERCENT;
+		private long bytesPerSecond = DEFAULT_IO_MEGABYTES_PER_SECOND * 1024L * 1024L;
+		private long owedNanos;
+
+		/**
+		 * @param cpuPercent share of one processor, 1-100
+		 * @param bytesPerSecond bytes to read and write per second, 0 for no limit
+		 */
+		void setBudgets(int cpuPercent, long bytesPerSecond) {
+			this.cpuPercent = cpuPercent;
+			this.bytesPerSecond = bytesPerSecond;
+		}
+
+		/**
+		 * Pause needed after work to stay within the budgets
+		 * @param workNanos time the work took
+		 * @param bytes bytes read and written by the work
+		 * @return nanoseconds to pause
+		 */
+		long pauseNanos(long workNanos, long bytes) {
+			long cpuPause = cpuPercent >= 100 ? 0 : workNanos * (100 - cpuPercent) / cpuPercent;
+			long ioPause = bytesPerSecond <= 0 ? 0
+					: (long) (bytes * (double) TimeUnit.SECONDS.toNanos(1) / bytesPerSecond) - workNanos;
+			return Math.max(0, Math.max(cpuPause, ioPause));
+		}
+
+		void spent(long workNanos, long bytes) throws InterruptedException {
+			owedNanos += pauseNanos(workNanos, bytes);
+			if (owedNanos >= MIN_PAUSE_NANOS) {
+				TimeUnit.NANOSECONDS.sleep(owedNanos);
+				owedNanos = 0;
+			}
+		}
+	}
+}
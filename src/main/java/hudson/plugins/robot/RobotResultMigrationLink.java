@@ -0,0 +1,75 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*	http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot;
+
+import hudson.Extension;
+import hudson.model.ManagementLink;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.verb.POST;
+
+/**
+ * Page for running {@link RobotResultMigration} in Manage Jenkins
+ */
+@Extension
+public class RobotResultMigrationLink extends ManagementLink {
+
+	@Override
+	public String getIconFileName() {
+		return "/plugin/robot/robot.png";
+	}
+
+	@Override
+	public String getDisplayName() {
+		return Messages.robot_migration_title();
+	}
+
+	@Override
+	public String getDescription() {
+		return Messages.robot_migration_description();
+	}
+
+	@Override
+	public String getUrlName() {
+		return "robot-migration";
+	}
+
+	@Override
+	public Category getCategory() {
+		return Category.TOOLS;
+	}
+
+	public RobotResultMigration getMigration() {
+		return RobotResultMigration.get();
+	}
+
+	@POST
+	public HttpResponse doStart(@QueryParameter boolean fromBeginning, @QueryParameter int cpuPercent,
+			@QueryParameter int ioMegabytesPerSecond) {
+		Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+		getMigration().start(fromBeginning, cpuPercent, ioMegabytesPerSecond);
+		return HttpResponses.redirectToDot();
+	}
+
+	@POST
+	public HttpResponse doStop() {
+		Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+		getMigration().stop();
+		return HttpResponses.redirectToDot();
+	}
+}
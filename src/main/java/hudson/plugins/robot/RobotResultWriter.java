@@ -0,0 +1,85 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*	http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot;
+
+import hudson.init.Terminator;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Saves results in the background so that publishing doesn't wait for the
+ * result files to be written. Writes are done one at a time in the order they
+ * were submitted. When the queue is full, or after shutdown, the submitting
+ * thread does the write itself. Pending writes are completed when Jenkins
+ * shuts down.
+ */
+public final class RobotResultWriter {
+
+	private static final Logger logger = Logger.getLogger(RobotResultWriter.class.getName());
+
+	private static final int QUEUE_SIZE = Integer.getInteger(RobotResultWriter.class.getName() + ".queueSize", 16);
+	private static final long SHUTDOWN_TIMEOUT_MINUTES = 5;
+
+	private static final RobotResultWriter INSTANCE = new RobotResultWriter(QUEUE_SIZE);
+
+	private final ThreadPoolExecutor executor;
+
+	RobotResultWriter(int queueSize) {
+		executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+				task -> {
+					Thread thread = new Thread(task, "Robot result writer");
+					thread.setDaemon(true);
+					return thread;
+				},
+				(task, executor) -> task.run());
+	}
+
+	public static RobotResultWriter get() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Submit a write
+	 * @param write write to do
+	 * @return completion of the write
+	 */
+	public Future<?> submit(Runnable write) {
+		FutureTask<?> task = new FutureTask<>(write, null);
+		executor.execute(task);
+		return task;
+	}
+
+	/**
+	 * Complete the pending writes and stop the writer. Writes submitted after
+	 * this are done by the submitting thread.
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	void shutdown() throws InterruptedException {
+		executor.shutdown();
+		if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_MINUTES, TimeUnit.MINUTES))
+			logger.warning("Robot results still being saved after " + SHUTDOWN_TIMEOUT_MINUTES + " minutes");
+	}
+
+	@Terminator
+	public static void flushOnShutdown() throws InterruptedException {
+		INSTANCE.shutdown();
+	}
+}
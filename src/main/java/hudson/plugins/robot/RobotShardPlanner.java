@@ -0,0 +1,236 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*	http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot;
+
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.plugins.robot.model.RobotSuiteResult;
+import hudson.plugins.robot.model.RobotTestObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Splits suites or tests into shards of about equal duration. Durations are
+ * estimated as the mean of the durations in recent builds of the job, and
+ * the items are assigned longest first to the shard with the least work so
+ * far (longest processing time first), which keeps the longest shard within
+ * 4/3 - 1/(3m) of the optimal makespan for m shards. Durations are read from
+ * the {@link RobotDurationIndex} of each build, so results are not loaded.
+ * Items not run in the builds looked at are not in the plan, and pabot runs
+ * them after the ones in its ordering file.
+ */
+@ExportedBean
+public final class RobotShardPlanner {
+
+	/**
+	 * Builds looked at by default
+	 */
+	public static final int DEFAULT_BUILDS = 10;
+
+	private final List<Shard> shards;
+	private final boolean tests;
+
+	private RobotShardPlanner(List<Shard> shards, boolean tests) {
+		this.shards = shards;
+		this.tests = tests;
+	}
+
+	/**
+	 * Plan shards from the results of recent builds of a job
+	 * @param job job
+	 * @param count number of shards
+	 * @param tests true to split tests, false to split the suites that have tests
+	 * @param builds number of builds with results to look at
+	 * @param exclude a build to leave out, e.g. the one planning, may be null
+	 * @return the plan
+	 */
+	public static RobotShardPlanner plan(Job<?, ?> job, int count, boolean tests, int builds, Run<?, ?> exclude) {
+		return plan(estimateDurations(job, tests, builds, exclude), count, tests);
+	}
+
+	/**
+	 * Plan shards for items with known durations
+	 * @param durations estimated duration of each item in milliseconds
+	 * @param count number of shards
+	 * @param tests true if the items are tests
+	 * @return the plan
+	 */
+	public static RobotShardPlanner plan(Map<String, Long> durations, int count, boolean tests) {
+		if (count < 1)
+			throw new IllegalArgumentException("Number of shards must be at least 1, was " + count);
+		List<Map.Entry<String, Long>> items = new ArrayList<>(durations.entrySet());
+		// names break ties so the same history gives the same plan
+		items.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+		List<Shard> shards = new ArrayList<>(count);
+		PriorityQueue<Shard> byLoad = new PriorityQueue<>(Comparator.comparingLong(Shard::getEstimatedDuration).thenComparingInt(Shard::getIndex));
+		for (int i = 0; i < count; i++) {
+			Shard shard = new Shard(i + 1);
+			shards.add(shard);
+			byLoad.add(shard);
+		}
+		for (Map.Entry<String, Long> item : items) {
+			Shard shard = byLoad.poll();
+			shard.add(item.getKey(), item.getValue());
+			byLoad.add(shard);
+		}
+		return new RobotShardPlanner(shards, tests);
+	}
+
+	/**
+	 * Estimate durations from the results of recent builds of a job
+	 * @param job job
+	 * @param tests true for tests, false for suites that have tests
+	 * @param builds number of builds with results to look at
+	 * @param exclude a build to leave out, may be null
+	 * @return mean duration of each item in milliseconds by its full name
+	 */
+	public static Map<String, Long> estimateDurations(Job<?, ?> job, boolean tests, int builds, Run<?, ?> exclude) {
+		Map<String, long[]> sums = new HashMap<>();
+		int found = 0;
+		for (Run<?, ?> run = job.getLastBuild(); run != null && found < builds; run = run.getPreviousBuild()) {
+			RobotBuildAction action = run.getAction(RobotBuildAction.class);
+			if (run == exclude || action == null || action.isProvisional())
+				continue;
+			RobotDurationIndex index = action.getDurationIndex();
+			if (index == null)
+				continue;
+			addDurations(index, tests, sums);
+			found++;
+		}
+		Map<String, Long> durations = new LinkedHashMap<>();
+		sums.forEach((name, sum) -> durations.put(name, sum[0] / sum[1]));
+		return durations;
+	}
+
+	static void addDurations(RobotDurationIndex index, boolean tests, Map<String, long[]> sums) {
+		for (Map.Entry<String, Long> item : index.getDurations(tests)) {
+			long[] sum = sums.computeIfAbsent(item.getKey(), n -> new long[2]);
+			sum[0] += Math.max(0, item.getValue());
+			sum[1]++;
+		}
+	}
+
+	/**
+	 * @param suite suite
+	 * @return name of the suite with the names of its parents, like Robot shows it
+	 */
+	static String getFullName(RobotSuiteResult suite) {
+		List<String> names = new ArrayList<>();
+		RobotTestObject object = suite;
+		while (object instanceof RobotSuiteResult parentSuite) {
+			names.add(parentSuite.getName());
+			object = parentSuite.getParent();
+		}
+		Collections.reverse(names);
+		return String.join(".", names);
+	}
+
+	/**
+	 * @return the shards, the first one first
+	 */
+	@Exported
+	public List<Shard> getShards() {
+		return shards;
+	}
+
+	/**
+	 * @return true if the items are tests, false if they are suites
+	 */
+	@Exported
+	public boolean isTests() {
+		return tests;
+	}
+
+	/**
+	 * @return estimated duration of the longest shard in milliseconds
+	 */
+	@Exported
+	public long getMakespan() {
+		long makespan = 0;
+		for (Shard shard : shards)
+			makespan = Math.max(makespan, shard.getEstimatedDuration());
+		return makespan;
+	}
+
+	/**
+	 * Write a pabot ordering file of a shard. Longest items come first, so
+	 * pabot starts them early.
+	 * @param shard number of the shard, starting from 1
+	 * @return content of the ordering file
+	 */
+	public String toPabotOrdering(int shard) {
+		if (shard < 1 || shard > shards.size())
+			throw new IllegalArgumentException("No shard " + shard + " in " + shards.size() + " shards");
+		StringBuilder sb = new StringBuilder();
+		for (String item : shards.get(shard - 1).getItems())
+			sb.append(tests ? "--test " : "--suite ").append(item).append('\n');
+		return sb.toString();
+	}
+
+	/**
+	 * Suites or tests to run together
+	 */
+	@ExportedBean(defaultVisibility = 2)
+	public static final class Shard {
+
+		private final int index;
+		private final List<String> items = new ArrayList<>();
+		private long estimatedDuration;
+
+		Shard(int index) {
+			this.index = index;
+		}
+
+		private void add(String item, long duration) {
+			items.add(item);
+			estimatedDuration += duration;
+		}
+
+		/**
+		 * @return number of the shard, starting from 1
+		 */
+		@Exported
+		public int getIndex() {
+			return index;
+		}
+
+		/**
+		 * @return full names of the suites or tests, longest first
+		 */
+		@Exported
+		public List<String> getItems() {
+			return items;
+		}
+
+		/**
+		 * @return sum of the estimated durations of the items in milliseconds
+		 */
+		@Exported
+		public long getEstimatedDuration() {
+			return estimatedDuration;
+		}
+	}
+}
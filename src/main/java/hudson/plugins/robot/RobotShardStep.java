@@ -0,0 +1,108 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*	http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot;
+
+import java.util.Set;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import com.google.common.collect.ImmutableSet;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+
+/**
+ * Splits the suites or tests of the job into shards of about equal duration
+ * by their durations in earlier builds, see {@link RobotShardPlanner}. Returns
+ * the full names of the items of each shard and can write pabot ordering
+ * files for the shards.
+ */
+public class RobotShardStep extends Step {
+
+	private final int shards;
+	private boolean splitTests = false;
+	private int builds = RobotShardPlanner.DEFAULT_BUILDS;
+	private @CheckForNull String orderingFile;
+
+	/**
+	 * @param shards number of shards
+	 */
+	@DataBoundConstructor
+	public RobotShardStep(int shards) {
+		this.shards = shards;
+	}
+
+	public int getShards() {
+		return shards;
+	}
+
+	public boolean getSplitTests() {
+		return splitTests;
+	}
+
+	@DataBoundSetter
+	public void setSplitTests(boolean splitTests) {
+		this.splitTests = splitTests;
+	}
+
+	public int getBuilds() {
+		return builds;
+	}
+
+	@DataBoundSetter
+	public void setBuilds(int builds) {
+		this.builds = builds > 0 ? builds : RobotShardPlanner.DEFAULT_BUILDS;
+	}
+
+	public String getOrderingFile() {
+		return orderingFile;
+	}
+
+	@DataBoundSetter
+	public void setOrderingFile(String orderingFile) {
+		this.orderingFile = Util.fixEmptyAndTrim(orderingFile);
+	}
+
+	@Override
+	public StepExecution start(StepContext context) throws Exception {
+		return new RobotShardStepExecution(this, context);
+	}
+
+	@Extension
+	public static final class DescriptorImpl extends StepDescriptor {
+
+		@Override public String getFunctionName() {
+			return "robotShards";
+		}
+
+		@Override public String getDisplayName() {
+			return "Split Robot Framework suites into shards of equal duration";
+		}
+
+		@Override public Set<? extends Class<?>> getRequiredContext() {
+			return ImmutableSet.of(Run.class, TaskListener.class);
+		}
+	}
+}
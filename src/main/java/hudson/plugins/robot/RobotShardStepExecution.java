@@ -0,0 +1,87 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*	http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot;
+
+import java.io.Serial;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+
+import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+
+public class RobotShardStepExecution extends SynchronousNonBlockingStepExecution<List<List<String>>> {
+
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private transient final RobotShardStep step;
+
+	RobotShardStepExecution(RobotShardStep step, StepContext context) {
+		super(context);
+		this.step = step;
+	}
+
+	/**
+	 * @return full names of the suites or tests of each shard
+	 */
+	@Override
+	protected List<List<String>> run() throws Exception {
+		if (step.getShards() < 1)
+			throw new AbortException("Number of shards must be at least 1, was " + step.getShards());
+		Run<?, ?> build = getContext().get(Run.class);
+		TaskListener listener = getContext().get(TaskListener.class);
+		RobotShardPlanner plan = RobotShardPlanner.plan(build.getParent(), step.getShards(), step.getSplitTests(), step.getBuilds(), build);
+
+		List<List<String>> shards = new ArrayList<>();
+		int items = 0;
+		for (RobotShardPlanner.Shard shard : plan.getShards()) {
+			shards.add(new ArrayList<>(shard.getItems()));
+			items += shard.getItems().size();
+		}
+		listener.getLogger().println(Messages.robot_shards_planned(items, shards.size(), plan.getMakespan() / 1000));
+
+		if (step.getOrderingFile() != null) {
+			FilePath workspace = getContext().get(FilePath.class);
+			if (workspace == null)
+				throw new AbortException("Writing an ordering file needs a workspace");
+			EnvVars env = getContext().get(EnvVars.class);
+			String orderingFile = env != null ? env.expand(step.getOrderingFile()) : step.getOrderingFile();
+			for (int i = 1; i <= shards.size(); i++)
+				workspace.child(getOrderingFileName(orderingFile, i, shards.size())).write(plan.toPabotOrdering(i), StandardCharsets.UTF_8.name());
+		}
+		return shards;
+	}
+
+	/**
+	 * @return the file name as it is for a single shard, otherwise with the
+	 * number of the shard before the extension, e.g. ordering-2.txt
+	 */
+	static String getOrderingFileName(String orderingFile, int shard, int shards) {
+		if (shards == 1)
+			return orderingFile;
+		int dot = orderingFile.lastIndexOf('.');
+		if (dot <= orderingFile.lastIndexOf('/') + 1)
+			return orderingFile + "-" + shard;
+		return orderingFile.substring(0, dot) + "-" + shard + orderingFile.substring(dot);
+	}
+}
@@ -22,6 +22,7 @@ import hudson.Launcher;
 import hudson.Util;
 import hudson.model.Run;
 import hudson.model.TaskListener;
+import hudson.plugins.robot.model.RobotDetailLevel;
 
 public class RobotStep extends Step {
 	
@@ -40,6 +41,14 @@ public class RobotStep extends Step {
 	private boolean countSkippedTests = false;
 	private @CheckForNull String overwriteXAxisLabel;
 	private boolean useArtifactManager = false;
+	private @CheckForNull RobotDetailLevel detailLevel;
+	private boolean compressArchivedFiles = false;
+	private boolean deduplicateArchivedFiles = false;
+	private @CheckForNull String resultSetName;
+	private boolean mergeOutputs = false;
+	private boolean pabotOutputs = false;
+	private boolean keywordStatistics = false;
+	private boolean publishInBackground = false;
 
 	
 	
@@ -169,6 +178,78 @@ public class RobotStep extends Step {
 		this.useArtifactManager = useArtifactManager;
 	}
 
+	public RobotDetailLevel getDetailLevel() {
+		return this.detailLevel;
+	}
+
+	@DataBoundSetter
+	public void setDetailLevel(RobotDetailLevel detailLevel) {
+		this.detailLevel = detailLevel;
+	}
+
+	public boolean getCompressArchivedFiles() {
+		return this.compressArchivedFiles;
+	}
+
+	@DataBoundSetter
+	public void setCompressArchivedFiles(boolean compressArchivedFiles) {
+		this.compressArchivedFiles = compressArchivedFiles;
+	}
+
+	public boolean getDeduplicateArchivedFiles() {
+		return this.deduplicateArchivedFiles;
+	}
+
+	@DataBoundSetter
+	public void setDeduplicateArchivedFiles(boolean deduplicateArchivedFiles) {
+		this.deduplicateArchivedFiles = deduplicateArchivedFiles;
+	}
+
+	public String getResultSetName() {
+		return this.resultSetName;
+	}
+
+	@DataBoundSetter
+	public void setResultSetName(String resultSetName) {
+		this.resultSetName = Util.fixEmptyAndTrim(resultSetName);
+	}
+
+	public boolean getMergeOutputs() {
+		return this.mergeOutputs;
+	}
+
+	@DataBoundSetter
+	public void setMergeOutputs(boolean mergeOutputs) {
+		this.mergeOutputs = mergeOutputs;
+	}
+
+	public boolean getPabotOutputs() {
+		return this.pabotOutputs;
+	}
+
+	@DataBoundSetter
+	public void setPabotOutputs(boolean pabotOutputs) {
+		this.pabotOutputs = pabotOutputs;
+	}
+
+	public boolean getKeywordStatistics() {
+		return this.keywordStatistics;
+	}
+
+	@DataBoundSetter
+	public void setKeywordStatistics(boolean keywordStatistics) {
+		this.keywordStatistics = keywordStatistics;
+	}
+
+	public boolean getPublishInBackground() {
+		return this.publishInBackground;
+	}
+
+	@DataBoundSetter
+	public void setPublishInBackground(boolean publishInBackground) {
+		this.publishInBackground = publishInBackground;
+	}
+
 	@Override
 	public StepExecution start(StepContext context) throws Exception {
 		return new RobotStepExecution(this, context);
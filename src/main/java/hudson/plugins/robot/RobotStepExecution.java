@@ -1,6 +1,8 @@
 package hudson.plugins.robot;
 
 import java.io.Serial;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.logging.Logger;
 
 import hudson.EnvVars;
@@ -12,7 +14,7 @@ import hudson.Launcher;
 import hudson.model.Run;
 import hudson.model.TaskListener;
 
-public class RobotStepExecution extends SynchronousNonBlockingStepExecution<Void> {
+public class RobotStepExecution extends SynchronousNonBlockingStepExecution<Map<String, Long>> {
 
 	private static final Logger logger = Logger.getLogger(RobotStepExecution.class.getName());
 
@@ -26,10 +28,31 @@ public class RobotStepExecution extends SynchronousNonBlockingStepExecution<Void
         this.step = step;
     }
 
-    @Override protected Void run() throws Exception {
+    /**
+     * @return totals of the published results when publishing in the background, otherwise null
+     */
+    @Override protected Map<String, Long> run() throws Exception {
     	FilePath workspace = getContext().get(FilePath.class);
         workspace.mkdirs();
     	RobotPublisher rp = new RobotPublisher(step.getArchiveDirName(), step.getOutputPath(), step.getOutputFileName(), step.getDisableArchiveOutput(), step.getReportFileName(), step.getLogFileName(), step.getPassThreshold(), step.getUnstableThreshold(), step.getCountSkippedTests(), step.getOtherFiles(), step.getEnableCache(), step.getOverwriteXAxisLabel(), step.getUseArtifactManager());
+    	rp.setDetailLevel(step.getDetailLevel());
+    	rp.setCompressArchivedFiles(step.getCompressArchivedFiles());
+    	rp.setDeduplicateArchivedFiles(step.getDeduplicateArchivedFiles());
+    	rp.setResultSetName(step.getResultSetName());
+    	rp.setMergeOutputs(step.getMergeOutputs());
+    	rp.setPabotOutputs(step.getPabotOutputs());
+    	rp.setKeywordStatistics(step.getKeywordStatistics());
+    	if (step.getPublishInBackground()) {
+    		long[] totals = rp.performInBackground(getContext().get(Run.class), workspace, getContext().get(EnvVars.class), getContext().get(Launcher.class), getContext().get(TaskListener.class));
+    		if (totals == null)
+    			return null;
+    		Map<String, Long> handle = new LinkedHashMap<>();
+    		handle.put("total", totals[0] + totals[1] + totals[2]);
+    		handle.put("passed", totals[0]);
+    		handle.put("failed", totals[1]);
+    		handle.put("skipped", totals[2]);
+    		return handle;
+    	}
     	rp.perform(getContext().get(Run.class), workspace, getContext().get(EnvVars.class), getContext().get(Launcher.class), getContext().get(TaskListener.class));
     	return null;
     }
@@ -0,0 +1,640 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*	http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot;
+
+import hudson.model.Api;
+import hudson.model.Run;
+import hudson.plugins.robot.model.RobotCaseResult;
+import hudson.plugins.robot.model.RobotResult;
+import hudson.plugins.robot.model.RobotSuiteResult;
+import hudson.plugins.robot.model.RobotTestObject;
+import hudson.plugins.robot.model.RobotTimestamp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.commons.lang.time.DurationFormatUtils;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Suites and tests of a build laid out on a time axis, stored next to the
+ * result xml when the result is saved, so the timeline is shown without
+ * loading the result.
+ * <p>
+ * The timeline is drawn from steps: the tests with start times, and the
+ * suites whose tests were published without times, as their tests then show
+ * only as the suite. Steps are put into lanes so that steps in a lane don't
+ * overlap, which takes as many lanes as there were steps running at most at
+ * the same time. Idle gaps are the times no step was running. The critical
+ * path is the chain of steps ending with the step that ended last, each
+ * step preceded by the step that ended last before it started, the longer
+ * one of steps ending at the same time. It is the chain of work the run
+ * waited for, and its gaps are time lost between steps rather than to
+ * waiting for other lanes.
+ * <p>
+ * Robot writes its times in the local time of the machine it ran on,
+ * without a zone, so the start of the timeline is in that local time, see
+ * {@link RobotTimestamp}. The other times are relative to the start.
+ */
+@ExportedBean
+public final class RobotTimeline {
+
+	static final String FILE = "robot_timeline.dat";
+
+	/**
+	 * Largest idle gaps kept
+	 */
+	static final int MAX_GAPS = 50;
+
+	/**
+	 * Steps drawn at most, the API has all of them
+	 */
+	public static final int MAX_DRAWN_STEPS = 5000;
+
+	private static final Comparator<Bar> BY_START = Comparator.comparingLong((Bar bar) -> bar.start).thenComparingLong(bar -> bar.elapsed);
+
+	// start as epoch microseconds in Robot's local time, the other times as microseconds from it
+	private final long start;
+	private final long span;
+	private final List<Bar> suites;
+	private final List<Bar> steps;
+	private final List<Gap> gaps;
+	private final long idle;
+	private final int gapCount;
+	private final int untimedTests;
+	private transient Run<?, ?> owner;
+
+	private RobotTimeline(long start, long span, List<Bar> suites, List<Bar> steps, List<Gap> gaps, long idle, int gapCount, int untimedTests) {
+		this.start = start;
+		this.span = span;
+		this.suites = suites;
+		this.steps = steps;
+		this.gaps = gaps;
+		this.idle = idle;
+		this.gapCount = gapCount;
+		this.untimedTests = untimedTests;
+	}
+
+	/**
+	 * @param result tallied result
+	 * @return timeline of the result
+	 */
+	public static RobotTimeline of(RobotResult result) {
+		List<Bar> suites = new ArrayList<>();
+		List<Bar> steps = new ArrayList<>();
+		int untimedTests = 0;
+		long first = Long.MAX_VALUE;
+		long last = Long.MIN_VALUE;
+		for (RobotSuiteResult suite : result.getAllSuites()) {
+			String suiteName = RobotShardPlanner.getFullName(suite);
+			long suiteStart = suite.getStartMicros();
+			if (suiteStart != 0) {
+				suites.add(new Bar(suiteName, true, getStatus(suite), suiteStart, suite.getDuration() * 1000, getDepth(suite)));
+				first = Math.min(first, suiteStart);
+				last = Math.max(last, suiteStart + suite.getDuration() * 1000);
+			}
+			List<Bar> tests = new ArrayList<>();
+			// passed tests published only as totals have no times either
+			boolean timed = suite.getOmittedPassed() == 0;
+			for (RobotCaseResult caseResult : suite.getCaseResults()) {
+				if (!timed || caseResult.getStartMicros() == 0) {
+					timed = false;
+					break;
+				}
+				tests.add(new Bar(suiteName + "." + caseResult.getName(), false, getStatus(caseResult),
+						caseResult.getStartMicros(), caseResult.getDuration() * 1000, 0));
+			}
+			if (timed) {
+				steps.addAll(tests);
+			} else if (suiteStart != 0) {
+				steps.add(new Bar(suiteName, true, getStatus(suite), suiteStart, suite.getDuration() * 1000, getDepth(suite)));
+			} else {
+				untimedTests += suite.getCaseResults().size() + suite.getOmittedPassed();
+			}
+		}
+		for (Bar step : steps) {
+			first = Math.min(first, step.start);
+			last = Math.max(last, step.start + step.elapsed);
+		}
+		if (first == Long.MAX_VALUE)
+			return new RobotTimeline(0, 0, Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), 0, 0, untimedTests);
+
+		for (Bar bar : suites)
+			bar.start -= first;
+		for (Bar step : steps)
+			step.start -= first;
+		suites.sort(BY_START);
+		steps.sort(BY_START);
+		assignLanes(steps);
+		markCriticalPath(steps);
+
+		// gaps in the steps, the steps sorted by start
+		List<Gap> gaps = new ArrayList<>();
+		long idle = 0;
+		long covered = 0;
+		for (Bar step : steps) {
+			if (step.start > covered) {
+				gaps.add(new Gap(covered, step.start - covered));
+				idle += step.start - covered;
+			}
+			covered = Math.max(covered, step.start + step.elapsed);
+		}
+		int gapCount = gaps.size();
+		gaps.sort(Comparator.comparingLong((Gap gap) -> gap.length).reversed());
+		gaps = new ArrayList<>(gaps.subList(0, Math.min(gaps.size(), MAX_GAPS)));
+		gaps.sort(Comparator.comparingLong(gap -> gap.start));
+		return new RobotTimeline(first, last - first, suites, steps, gaps, idle, gapCount, untimedTests);
+	}
+
+	/**
+	 * Put each step to the lane that has been free the longest, or to a new
+	 * lane if none is free. The steps must be sorted by start.
+	 */
+	private static void assignLanes(List<Bar> steps) {
+		// end and lane of the last step of each lane
+		PriorityQueue<long[]> lanes = new PriorityQueue<>(Comparator.comparingLong(lane -> lane[0]));
+		for (Bar step : steps) {
+			long[] lane = lanes.peek();
+			if (lane != null && lane[0] <= step.start) {
+				lanes.poll();
+			} else {
+				lane = new long[] {0, lanes.size()};
+			}
+			step.lane = (int) lane[1];
+			lane[0] = step.start + step.elapsed;
+			lanes.add(lane);
+		}
+	}
+
+	private static void markCriticalPath(List<Bar> steps) {
+		List<Bar> byEnd = new ArrayList<>(steps);
+		byEnd.sort(Comparator.comparingLong((Bar bar) -> bar.start + bar.elapsed).thenComparingLong(bar -> bar.elapsed));
+		int index = byEnd.size() - 1;
+		while (index >= 0) {
+			Bar step = byEnd.get(index);
+			step.critical = true;
+			// last step ending before this one starts, found among the steps before it
+			int low = 0;
+			int high = index - 1;
+			int previous = -1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				Bar candidate = byEnd.get(middle);
+				if (candidate.start + candidate.elapsed <= step.start) {
+					previous = middle;
+					low = middle + 1;
+				} else {
+					high = middle - 1;
+				}
+			}
+			index = previous;
+		}
+	}
+
+	private static String getStatus(RobotSuiteResult suite) {
+		if (suite.getFailed() > 0)
+			return "FAIL";
+		return suite.getPassed() == 0 && suite.getSkipped() > 0 ? "SKIP" : "PASS";
+	}
+
+	private static String getStatus(RobotCaseResult caseResult) {
+		if (caseResult.isPassed())
+			return "PASS";
+		return caseResult.isSkipped() ? "SKIP" : "FAIL";
+	}
+
+	private static int getDepth(RobotSuiteResult suite) {
+		int depth = 0;
+		RobotTestObject parent = suite.getParent();
+		while (parent instanceof RobotSuiteResult parentSuite) {
+			depth++;
+			parent = parentSuite.getParent();
+		}
+		return depth;
+	}
+
+	/**
+	 * Write to file. The previous file is replaced only when the new one has
+	 * been completely written.
+	 * @param file file to write to
+	 * @throws IOException if writing fails
+	 */
+	public void write(File file) throws IOException {
+		File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+			out.writeLong(start);
+			out.writeLong(span);
+			out.writeLong(idle);
+			out.writeInt(gapCount);
+			out.writeInt(untimedTests);
+			writeBars(out, suites);
+			writeBars(out, steps);
+			out.writeInt(gaps.size());
+			for (Gap gap : gaps) {
+				out.writeLong(gap.start);
+				out.writeLong(gap.length);
+			}
+		}
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void writeBars(DataOutputStream out, List<Bar> bars) throws IOException {
+		out.writeInt(bars.size());
+		for (Bar bar : bars) {
+			out.writeUTF(bar.name);
+			out.writeBoolean(bar.suite);
+			out.writeUTF(bar.status);
+			out.writeLong(bar.start);
+			out.writeLong(bar.elapsed);
+			out.writeInt(bar.depth);
+			out.writeInt(bar.lane);
+			out.writeBoolean(bar.critical);
+		}
+	}
+
+	/**
+	 * @param file file written by {@link #write(File)}
+	 * @return timeline in the file
+	 * @throws IOException if reading fails
+	 */
+	public static RobotTimeline read(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			long start = in.readLong();
+			long span = in.readLong();
+			long idle = in.readLong();
+			int gapCount = in.readInt();
+			int untimedTests = in.readInt();
+			List<Bar> suites = readBars(in);
+			List<Bar> steps = readBars(in);
+			int count = in.readInt();
+			List<Gap> gaps = new ArrayList<>();
+			for (int i = 0; i < count; i++)
+				gaps.add(new Gap(in.readLong(), in.readLong()));
+			return new RobotTimeline(start, span, suites, steps, gaps, idle, gapCount, untimedTests);
+		}
+	}
+
+	private static List<Bar> readBars(DataInputStream in) throws IOException {
+		int count = in.readInt();
+		List<Bar> bars = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Bar bar = new Bar(in.readUTF(), in.readBoolean(), in.readUTF(), in.readLong(), in.readLong(), in.readInt());
+			bar.lane = in.readInt();
+			bar.critical = in.readBoolean();
+			bars.add(bar);
+		}
+		return bars;
+	}
+
+	void setOwner(Run<?, ?> owner) {
+		this.owner = owner;
+	}
+
+	public Run<?, ?> getOwner() {
+		return owner;
+	}
+
+	public Api getApi() {
+		return new Api(this);
+	}
+
+	/**
+	 * @return start of the first suite or step as microseconds since epoch
+	 * as if Robot's local time were UTC, 0 if there are no times
+	 */
+	@Exported
+	public long getStartMicros() {
+		return start;
+	}
+
+	/**
+	 * @return start of the first suite or step in Robot's local time, null if there are no times
+	 */
+	@Exported
+	public String getStartTime() {
+		return start != 0 ? RobotTimestamp.format(start, true) : null;
+	}
+
+	/**
+	 * @return wall clock time from the start of the first suite or step to the end of the last one in milliseconds
+	 */
+	@Exported
+	public long getDuration() {
+		return span / 1000;
+	}
+
+	public String getHumanReadableDuration() {
+		return DurationFormatUtils.formatDurationHMS(getDuration());
+	}
+
+	/**
+	 * @return suites with start times in the order they started
+	 */
+	@Exported
+	public List<Bar> getSuites() {
+		return Collections.unmodifiableList(suites);
+	}
+
+	/**
+	 * @return tests and suites the timeline is drawn from in the order they started
+	 */
+	@Exported
+	public List<Bar> getSteps() {
+		return Collections.unmodifiableList(steps);
+	}
+
+	/**
+	 * @return steps in each lane, for drawing
+	 */
+	public List<List<Bar>> getLanes() {
+		List<List<Bar>> lanes = new ArrayList<>();
+		for (Bar step : steps) {
+			while (lanes.size() <= step.lane)
+				lanes.add(new ArrayList<>());
+			lanes.get(step.lane).add(step);
+		}
+		return lanes;
+	}
+
+	/**
+	 * @return most steps running at the same time
+	 */
+	@Exported
+	public int getPeakParallelism() {
+		int lanes = 0;
+		for (Bar step : steps)
+			lanes = Math.max(lanes, step.lane + 1);
+		return lanes;
+	}
+
+	/**
+	 * @return sum of the step durations in milliseconds
+	 */
+	@Exported
+	public long getBusyTime() {
+		long busy = 0;
+		for (Bar step : steps)
+			busy += step.elapsed;
+		return busy / 1000;
+	}
+
+	/**
+	 * @return steps running at the same time on average, the sum of the step durations divided by the duration
+	 */
+	@Exported
+	public double getEffectiveParallelism() {
+		if (span <= 0)
+			return 0;
+		return Math.round(100.0 * getBusyTime() / getDuration()) / 100.0;
+	}
+
+	/**
+	 * @return time no step was running in milliseconds
+	 */
+	@Exported
+	public long getIdleTime() {
+		return idle / 1000;
+	}
+
+	/**
+	 * @return number of idle gaps
+	 */
+	@Exported
+	public int getGapCount() {
+		return gapCount;
+	}
+
+	/**
+	 * @return the longest idle gaps, at most {@value #MAX_GAPS}, in the order they were
+	 */
+	@Exported
+	public List<Gap> getGaps() {
+		return Collections.unmodifiableList(gaps);
+	}
+
+	/**
+	 * @return steps of the critical path in the order they ran
+	 */
+	@Exported
+	public List<Bar> getCriticalPath() {
+		List<Bar> path = new ArrayList<>();
+		for (Bar step : steps)
+			if (step.critical)
+				path.add(step);
+		return path;
+	}
+
+	/**
+	 * @return sum of the durations of the steps of the critical path in milliseconds
+	 */
+	@Exported
+	public long getCriticalPathDuration() {
+		long duration = 0;
+		for (Bar step : getCriticalPath())
+			duration += step.elapsed;
+		return duration / 1000;
+	}
+
+	/**
+	 * @return tests that are not on the timeline as neither they nor their suite have times
+	 */
+	@Exported
+	public int getUntimedTests() {
+		return untimedTests;
+	}
+
+	/**
+	 * @return true if there are too many steps to draw them all
+	 */
+	public boolean isTooManyToDraw() {
+		return steps.size() > MAX_DRAWN_STEPS;
+	}
+
+	/**
+	 * Wrapper for positioning a bar in jelly
+	 * @param micros time from the start of the timeline
+	 * @return the time as percentage of the duration of the timeline
+	 */
+	public double getPercentage(long micros) {
+		return span > 0 ? Math.round(100_000.0 * micros / span) / 1000.0 : 0;
+	}
+
+	/**
+	 * A suite or a test on the time axis
+	 */
+	@ExportedBean(defaultVisibility = 2)
+	public static final class Bar {
+
+		private final String name;
+		private final boolean suite;
+		private final String status;
+		private long start;
+		private final long elapsed;
+		private final int depth;
+		private int lane;
+		private boolean critical;
+
+		Bar(String name, boolean suite, String status, long start, long elapsed, int depth) {
+			this.name = name;
+			this.suite = suite;
+			this.status = status;
+			this.start = start;
+			this.elapsed = elapsed;
+			this.depth = depth;
+		}
+
+		/**
+		 * @return full name of the suite or test
+		 */
+		@Exported
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return true for a suite
+		 */
+		@Exported
+		public boolean isSuite() {
+			return suite;
+		}
+
+		/**
+		 * @return PASS, FAIL or SKIP
+		 */
+		@Exported
+		public String getStatus() {
+			return status;
+		}
+
+		/**
+		 * @return start in milliseconds from the start of the timeline
+		 */
+		@Exported
+		public long getStart() {
+			return start / 1000;
+		}
+
+		public long getStartMicros() {
+			return start;
+		}
+
+		/**
+		 * @return duration in milliseconds
+		 */
+		@Exported
+		public long getDuration() {
+			return elapsed / 1000;
+		}
+
+		public long getElapsedMicros() {
+			return elapsed;
+		}
+
+		public String getHumanReadableStart() {
+			return DurationFormatUtils.formatDurationHMS(getStart());
+		}
+
+		public String getHumanReadableDuration() {
+			return DurationFormatUtils.formatDurationHMS(getDuration());
+		}
+
+		/**
+		 * @return depth of a suite, starting from 0 for top level suites
+		 */
+		@Exported
+		public int getDepth() {
+			return depth;
+		}
+
+		/**
+		 * @return lane of a step, starting from 0
+		 */
+		@Exported
+		public int getLane() {
+			return lane;
+		}
+
+		/**
+		 * @return true if the step is on the critical path
+		 */
+		@Exported
+		public boolean isCritical() {
+			return critical;
+		}
+	}
+
+	/**
+	 * Time no step was running
+	 */
+	@ExportedBean(defaultVisibility = 2)
+	public static final class Gap {
+
+		private final long start;
+		private final long length;
+
+		Gap(long start, long length) {
+			this.start = start;
+			this.length = length;
+		}
+
+		/**
+		 * @return start in milliseconds from the start of the timeline
+		 */
+		@Exported
+		public long getStart() {
+			return start / 1000;
+		}
+
+		public long getStartMicros() {
+			return start;
+		}
+
+		/**
+		 * @return duration in milliseconds
+		 */
+		@Exported
+		public long getDuration() {
+			return length / 1000;
+		}
+
+		public long getLengthMicros() {
+			return length;
+		}
+
+		public String getHumanReadableStart() {
+			return DurationFormatUtils.formatDurationHMS(getStart());
+		}
+
+		public String getHumanReadableDuration() {
+			return DurationFormatUtils.formatDurationHMS(getDuration());
+		}
+	}
+}
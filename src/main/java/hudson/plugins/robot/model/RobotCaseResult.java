@@ -22,10 +22,13 @@ import hudson.util.Graph;
 
 import java.io.IOException;
 import java.io.Serial;
+import java.io.Serializable;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -41,15 +44,37 @@ public class RobotCaseResult extends RobotTestObject{
 
 	private static final Logger LOGGER = Logger.getLogger(RobotCaseResult.class.getName());
 
-	private boolean passed;
-	private boolean skipped;
-	private String errorMsg;
+	private static final byte FAIL = 0;
+	private static final byte PASS = 1;
+	private static final byte SKIP = 2;
+
+	private static final byte ISO_TIME = 1;
+	private static final byte END_TIME = 2;
+	private static final byte ELAPSED_TIME = 4;
+
 	private String name;
 	private String description;
+	private byte status;
+	private byte timeFlags;
+	// start as epoch microseconds (UTC) and elapsed microseconds, end time is
+	// start + elapsed. 0 when not known.
+	private long start;
+	private long elapsed;
+	private int testIndex;
+	private List<String> tags;
+	private Details details;
+	// statuses of the earlier results of the test this result replaced when
+	// outputs were merged, earliest first and separated with commas
+	private String mergeHistory;
+
+	// values that are not in the compact form: results saved by older
+	// versions, times that don't round trip and cases not attached to a result
+	private Boolean passed;
+	private Boolean skipped;
 	private String starttime;
 	private String endtime;
-	private double elapsedtime;
-	private List<String> tags;
+	private Double elapsedtime;
+	private String errorMsg;
 	private String stackTrace;
 
 	private RobotSuiteResult parent;
@@ -65,6 +90,11 @@ public class RobotCaseResult extends RobotTestObject{
 	 * @throws ParseException thrown exception
 	 */
 	public static long timeDifference(String time1, String time2) throws ParseException {
+		long start = RobotTimestamp.parse(time1);
+		long end = RobotTimestamp.parse(time2);
+		if (start != 0 && end != 0)
+			return (end - start) / 1000;
+
 		long difference = 0;
 		String dateFormat = "yyyyMMdd HH:mm:ss.SS";
 		DateFormat format = new SimpleDateFormat(dateFormat);
@@ -93,11 +123,11 @@ public class RobotCaseResult extends RobotTestObject{
 	 */
 	@Override
 	public String getDescription() {
-		return description;
+		return description != null ? description : "";
 	}
 
 	public void setDescription(String description) {
-		this.description = description;
+		this.description = StringUtils.isEmpty(description) ? null : description;
 	}
 
 	/**
@@ -112,15 +142,51 @@ public class RobotCaseResult extends RobotTestObject{
 		this.parent = parent;
 	}
 
+	/**
+	 * Get the id of the case. Ids of the form &lt;suite id&gt;-t&lt;n&gt; are
+	 * stored as the index n only.
+	 * @return id of the case
+	 */
+	@Override
+	public String getId() {
+		if (testIndex > 0 && parent != null)
+			return parent.getId() + "-t" + testIndex;
+		return super.getId();
+	}
+
+	/**
+	 * Set the id of the case. Parent must be set before the id.
+	 * @param id id of the case
+	 */
+	@Override
+	public void setId(String id) {
+		testIndex = parseTestIndex(id);
+		super.setId(testIndex > 0 ? null : id);
+	}
+
+	private int parseTestIndex(String id) {
+		if (id == null || parent == null)
+			return 0;
+		String prefix = parent.getId() + "-t";
+		if (prefix.length() == 2 || !id.startsWith(prefix) || id.length() - prefix.length() > 9)
+			return 0;
+		int index = 0;
+		for (int i = prefix.length(); i < id.length(); i++) {
+			char c = id.charAt(i);
+			if (c < '0' || c > '9' || (index == 0 && c == '0'))
+				return 0;
+			index = index * 10 + (c - '0');
+		}
+		return index;
+	}
+
 	@Override
 	public long getDuration() {
-		if (duration != 0)
-			return duration;
-		if (elapsedtime != 0)
-			return Double.valueOf(elapsedtime * 1000).longValue(); // convert seconds to milliseconds
+		if (elapsed != 0)
+			return elapsed / 1000; // convert microseconds to milliseconds
 		if (StringUtils.isNotEmpty(this.endtime)) {
 			try {
-				return timeDifference(this.starttime, this.endtime);
+				return timeDifference(getStarttime(), this.endtime);
 			} catch (ParseException e) {
 				LOGGER.warn("Couldn't parse duration for test case " + name);
 			}
@@ -129,51 +195,201 @@ public class RobotCaseResult extends RobotTestObject{
 	}
 
 	public String getStarttime() {
-		return starttime;
+		return starttime != null ? starttime : formatTime(start);
+	}
+
+	/**
+	 * Get the start time
+	 * @return start time as microseconds since epoch, 0 if not known
+	 */
+	public long getStartMicros() {
+		return start;
 	}
 
 	public void setStarttime(String starttime) {
-		this.starttime = starttime;
+		if (RobotTimestamp.isIsoFormat(starttime))
+			timeFlags |= ISO_TIME;
+		else
+			timeFlags &= ~ISO_TIME;
+		this.start = parseTime(starttime);
+		this.starttime = start == 0 ? starttime : null;
 	}
 
 	public String getEndtime() {
+		if ((timeFlags & END_TIME) != 0)
+			return formatTime(start + elapsed);
 		return endtime;
 	}
 
+	/**
+	 * Set the end time. The value is stored compactly only if it has the same
+	 * format as the start time, so start time must be set first.
+	 * @param endtime end time as in the output file
+	 */
 	public void setEndtime(String endtime) {
-		this.endtime = endtime;
+		long end = start != 0 && (timeFlags & ELAPSED_TIME) == 0 ? parseTime(endtime) : 0;
+		if (end != 0) {
+			this.elapsed = end - start;
+			this.timeFlags |= END_TIME;
+			this.endtime = null;
+		} else {
+			if ((timeFlags & END_TIME) != 0)
+				this.elapsed = 0;
+			this.timeFlags &= ~END_TIME;
+			this.endtime = endtime;
+		}
 	}
 
 	public double getElapsedtime() {
-		return elapsedtime;
+		return (timeFlags & ELAPSED_TIME) != 0 ? elapsed / 1_000_000d : 0;
 	}
 
 	public void setElapsedTime(String elapsed) {
-		this.elapsedtime = Double.parseDouble(elapsed);
+		if ((timeFlags & END_TIME) != 0) {
+			// keep the end time as such, it can't be derived from this value
+			this.endtime = getEndtime();
+			this.timeFlags &= ~END_TIME;
+		}
+		this.elapsed = RobotTimestamp.parseSeconds(elapsed);
+		this.timeFlags |= ELAPSED_TIME;
+	}
+
+	private long parseTime(String value) {
+		if (RobotTimestamp.isIsoFormat(value) != ((timeFlags & ISO_TIME) != 0))
+			return 0;
+		return RobotTimestamp.parse(value);
+	}
+
+	private String formatTime(long micros) {
+		if (micros == 0)
+			return null;
+		return RobotTimestamp.format(micros, (timeFlags & ISO_TIME) != 0);
 	}
 
 	public String getErrorMsg() {
-		return errorMsg;
+		if (errorMsg != null || details == null || details.errorMsg < 0)
+			return errorMsg;
+		RobotResult result = getRobotResult();
+		return result == null ? null : result.getStringPool().get(details.errorMsg);
 	}
 
+	/**
+	 * Set the error message. Non-empty messages are stored in the string
+	 * table of the result so identical messages of a build are kept once.
+	 * @param errorMsg error message
+	 */
 	public void setErrorMsg(String errorMsg) {
-		this.errorMsg = errorMsg;
+		int ref = addToPool(errorMsg);
+		if (ref >= 0 || details != null)
+			getDetails().errorMsg = ref;
+		this.errorMsg = ref < 0 ? errorMsg : null;
+		releaseDetails();
 	}
 
+	/**
+	 * Get the stack trace. Traces of saved results are read from the build
+	 * directory on each call.
+	 * @return keyword trace of the case
+	 */
 	public String getStackTrace() {
-		return stackTrace;
+		if (stackTrace != null || details == null || details.stackTrace < 0)
+			return stackTrace;
+		RobotResult result = getRobotResult();
+		return result == null ? null : result.getStackTrace(details.stackTrace);
 	}
 
+	/**
+	 * Set the stack trace. Non-empty traces are stored with the result so
+	 * identical traces of a build are kept once and they can be saved
+	 * separately from the rest of the result.
+	 * @param stackTrace keyword trace of the case
+	 */
 	public void setStackTrace(String stackTrace) {
-		this.stackTrace = stackTrace;
+		RobotResult result = getRobotResult();
+		int ref = StringUtils.isEmpty(stackTrace) || result == null ? -1 : result.addStackTrace(stackTrace);
+		if (ref >= 0 || details != null)
+			getDetails().stackTrace = ref;
+		this.stackTrace = ref < 0 ? stackTrace : null;
+		releaseDetails();
+	}
+
+	private Details getDetails() {
+		if (details == null)
+			details = new Details();
+		return details;
+	}
+
+	private void releaseDetails() {
+		if (details != null && details.errorMsg < 0 && details.stackTrace < 0)
+			details = null;
+	}
+
+	private int addToPool(String value) {
+		if (StringUtils.isEmpty(value))
+			return -1;
+		RobotResult result = getRobotResult();
+		return result == null ? -1 : result.getStringPool().add(value);
+	}
+
+	/**
+	 * Drop everything but name, id, status, duration and tags
+	 */
+	void omitDetails() {
+		setDescription(null);
+		setErrorMsg(null);
+		setStackTrace(null);
+		long duration = elapsed;
+		if ((timeFlags & (END_TIME | ELAPSED_TIME)) == 0)
+			duration = getDuration() * 1000;
+		start = 0;
+		elapsed = duration;
+		timeFlags = duration != 0 ? ELAPSED_TIME : 0;
+		starttime = null;
+		endtime = null;
+	}
+
+	/**
+	 * Check if details of this case were not published
+	 * @return true if only name, id, status, duration and tags are known
+	 */
+	public boolean isDetailOmitted() {
+		RobotResult result = getRobotResult();
+		return isPassed() && result != null && result.getDetailLevel() != RobotDetailLevel.FULL;
 	}
 
 	public void setPassed(boolean passed) {
-		this.passed = passed;
+		if (passed)
+			status = PASS;
+		else if (status == PASS)
+			status = FAIL;
 	}
 
 	public void setSkipped(boolean skipped) {
-		this.skipped = skipped;
+		if (skipped)
+			status = SKIP;
+		else if (status == SKIP)
+			status = FAIL;
+	}
+
+	/**
+	 * Get the statuses of the earlier results of this test that this result
+	 * replaced when outputs were merged, see
+	 * {@link RobotSuiteResult#replaceCaseResult(RobotCaseResult, RobotCaseResult)}
+	 * @return statuses like FAIL, earliest first, empty if nothing was replaced
+	 */
+	public List<String> getMergeHistory() {
+		if (mergeHistory == null)
+			return Collections.emptyList();
+		return Arrays.asList(mergeHistory.split(","));
+	}
+
+	/**
+	 * Record an earlier result of the test that this result replaces
+	 * @param earlier the replaced result
+	 */
+	void addMergeHistory(RobotCaseResult earlier) {
+		String earlierStatus = earlier.isPassed() ? "PASS" : earlier.isSkipped() ? "SKIP" : "FAIL";
+		mergeHistory = earlier.mergeHistory == null ? earlierStatus : earlier.mergeHistory + "," + earlierStatus;
 	}
 
 	public String getDisplayName() {
@@ -185,17 +401,21 @@ public class RobotCaseResult extends RobotTestObject{
 	}
 
 	public boolean isPassed() {
-		return passed;
+		return status == PASS;
 	}
 
 	public boolean isSkipped() {
-		return skipped;
+		return status == SKIP;
 	}
 
+	/**
+	 * Get tags of the case. Cases with the same tags share one list.
+	 * @return unmodifiable list of tags
+	 */
 	public List<String> getTags(){
 		if(tags == null)
-			return new ArrayList<>();
-		return tags;
+			return Collections.emptyList();
+		return Collections.unmodifiableList(tags);
 	}
 
 	public String getCommaSeparatedTags(){
@@ -212,9 +432,12 @@ public class RobotCaseResult extends RobotTestObject{
 	}
 
 	public void addTags(List<String> taglist){
-		if(tags == null)
-			tags = new ArrayList<>();
-		tags.addAll(taglist);
+		if(taglist.isEmpty())
+			return;
+		List<String> newTags = new ArrayList<>(getTags());
+		newTags.addAll(taglist);
+		RobotResult result = getRobotResult();
+		tags = result != null ? result.getStringPool().internTags(newTags) : newTags;
 	}
 
 	/**
@@ -335,4 +558,118 @@ public class RobotCaseResult extends RobotTestObject{
 		if (isSkipped()) return 1;
 		return 0;
 	}
+
+	@Override
+	void writeTo(RobotWireFormat.Output out) throws IOException {
+		super.writeTo(out);
+		out.writeString(name);
+		out.writeString(description);
+		out.writeByte(status);
+		out.writeByte(timeFlags);
+		out.writeLong(start);
+		out.writeLong(elapsed);
+		out.writeInt(testIndex);
+		List<String> tagList = getTags();
+		out.writeInt(tagList.size());
+		for (String tag : tagList)
+			out.writeString(tag);
+		out.writeInt(details != null ? details.errorMsg : -1);
+		out.writeInt(details != null ? details.stackTrace : -1);
+		out.writeString(starttime);
+		out.writeString(endtime);
+		out.writeString(errorMsg);
+		out.writeString(stackTrace);
+		out.writeInt(failedSince);
+		out.writeInt(skippedSince);
+		out.writeString(mergeHistory);
+	}
+
+	/**
+	 * Read the fields of this case. Parent must be set first so tags can be
+	 * shared through the result.
+	 */
+	@Override
+	void readFrom(RobotWireFormat.Input in) throws IOException {
+		super.readFrom(in);
+		name = in.readString();
+		description = in.readString();
+		status = in.readByte();
+		timeFlags = in.readByte();
+		start = in.readLong();
+		elapsed = in.readLong();
+		testIndex = in.readInt();
+		int tagCount = in.readCount();
+		if (tagCount > 0) {
+			List<String> tagList = new ArrayList<>(tagCount);
+			for (int i = 0; i < tagCount; i++)
+				tagList.add(in.readString());
+			RobotResult result = getRobotResult();
+			tags = result != null ? result.getStringPool().internTags(tagList) : tagList;
+		}
+		int errorMsgIndex = in.readInt();
+		int stackTraceIndex = in.readInt();
+		if (errorMsgIndex >= 0 || stackTraceIndex >= 0) {
+			details = new Details();
+			details.errorMsg = errorMsgIndex;
+			details.stackTrace = stackTraceIndex;
+		}
+		starttime = in.readString();
+		endtime = in.readString();
+		errorMsg = in.readString();
+		stackTrace = in.readString();
+		failedSince = in.readInt();
+		skippedSince = in.readInt();
+		mergeHistory = in.readString();
+	}
+
+	/**
+	 * Convert results saved by older versions to the compact form.
+	 * @return this case
+	 */
+	@Serial
+	private Object readResolve() {
+		if (passed != null || skipped != null) {
+			status = Boolean.TRUE.equals(skipped) ? SKIP : Boolean.TRUE.equals(passed) ? PASS : FAIL;
+			passed = null;
+			skipped = null;
+		}
+		if (start == 0 && starttime != null) {
+			setStarttime(starttime);
+			if (endtime != null)
+				setEndtime(endtime);
+		}
+		if (elapsedtime != null) {
+			// an end time that was parsed gives the duration already
+			if (elapsedtime != 0 && (timeFlags & END_TIME) == 0)
+				setElapsedTime(elapsedtime.toString());
+			elapsedtime = null;
+		}
+		return this;
+	}
+
+	/**
+	 * Move the error message and stack trace a result saved by an older
+	 * version has inline to the tables of the result. Times that don't parse
+	 * back to the same text are kept as they are. The case must be attached
+	 * to a result.
+	 */
+	void compactLegacyDetails() {
+		if (errorMsg != null)
+			setErrorMsg(errorMsg);
+		if (stackTrace != null)
+			setStackTrace(stackTrace);
+	}
+
+	/**
+	 * Indexes of error message and stack trace in the tables of the result.
+	 * Only cases that have either of them carry this.
+	 */
+	private static final class Details implements Serializable {
+
+		@Serial
+		private static final long serialVersionUID = 1L;
+
+		private int errorMsg = -1;
+		private int stackTrace = -1;
+	}
 }
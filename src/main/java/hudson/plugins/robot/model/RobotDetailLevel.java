@@ -0,0 +1,57 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot.model;
+
+import hudson.plugins.robot.Messages;
+
+/**
+ * How much of the passed cases is published. Failed and skipped cases are
+ * always published in full.
+ */
+public enum RobotDetailLevel {
+
+	/**
+	 * All details of all cases
+	 */
+	FULL {
+		@Override
+		public String getDisplayName() {
+			return Messages.robot_detaillevel_full();
+		}
+	},
+
+	/**
+	 * Passed cases only with name, id, duration and tags
+	 */
+	FAILURES {
+		@Override
+		public String getDisplayName() {
+			return Messages.robot_detaillevel_failures();
+		}
+	},
+
+	/**
+	 * Passed cases only as counts and durations of their suites
+	 */
+	TOTALS {
+		@Override
+		public String getDisplayName() {
+			return Messages.robot_detaillevel_totals();
+		}
+	};
+
+	public abstract String getDisplayName();
+}
@@ -0,0 +1,528 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot.model;
+
+import hudson.Util;
+import hudson.model.Api;
+import hudson.model.Run;
+import hudson.plugins.robot.RobotBuildAction;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Serial;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.time.DurationFormatUtils;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Calls, failures and durations of the keywords of a build, per keyword
+ * name. The time of a keyword includes the keywords it calls. Stored in a
+ * file of its own next to the result xml, see {@link RobotBuildAction}.
+ */
+@ExportedBean
+public class RobotKeywordStatistics implements Serializable {
+
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Name of the file in the build directory that has the statistics
+	 */
+	public static final String FILE = "robot_keywords.dat";
+
+	/**
+	 * Keywords shown on the page of the slowest keywords
+	 */
+	public static final int SLOWEST = 100;
+
+	/**
+	 * Builds looked at for the trend of a keyword
+	 */
+	public static final int TREND_BUILDS = 20;
+
+	// slowest first by total time
+	private final List<Keyword> keywords;
+	private transient Map<String, Keyword> byName;
+	private transient Run<?, ?> owner;
+
+	private RobotKeywordStatistics(List<Keyword> keywords) {
+		keywords.sort(Comparator.comparingLong((Keyword keyword) -> keyword.total).reversed().thenComparing(keyword -> keyword.name));
+		this.keywords = keywords;
+	}
+
+	/**
+	 * Combine the statistics of two publishes of a build. The 95th
+	 * percentile of a keyword in both is the larger of the two.
+	 * @param other statistics to add
+	 * @return combined statistics
+	 */
+	public RobotKeywordStatistics combine(RobotKeywordStatistics other) {
+		Map<String, Keyword> combined = new LinkedHashMap<>();
+		for (Keyword keyword : keywords)
+			combined.put(keyword.name, keyword);
+		for (Keyword keyword : other.keywords)
+			combined.merge(keyword.name, keyword, (a, b) -> new Keyword(a.name, a.calls + b.calls, a.failures + b.failures,
+					a.total + b.total, Math.max(a.p95, b.p95), Math.max(a.max, b.max)));
+		return new RobotKeywordStatistics(new ArrayList<>(combined.values()));
+	}
+
+	/**
+	 * @return all keywords, slowest first by total time
+	 */
+	@Exported
+	public List<Keyword> getKeywords() {
+		return Collections.unmodifiableList(keywords);
+	}
+
+	/**
+	 * @return the slowest keywords by total time, at most {@value #SLOWEST}
+	 */
+	public List<Keyword> getSlowest() {
+		return getKeywords().subList(0, Math.min(keywords.size(), SLOWEST));
+	}
+
+	/**
+	 * @param name keyword name
+	 * @return the keyword, null if it was not called
+	 */
+	public synchronized Keyword getKeyword(String name) {
+		if (byName == null) {
+			byName = new HashMap<>();
+			for (Keyword keyword : keywords)
+				byName.put(keyword.name, keyword);
+		}
+		return byName.get(name);
+	}
+
+	public void setOwner(Run<?, ?> owner) {
+		this.owner = owner;
+	}
+
+	public Run<?, ?> getOwner() {
+		return owner;
+	}
+
+	public Api getApi() {
+		return new Api(this);
+	}
+
+	/**
+	 * @return statistics of the latest earlier build that has them, null if none
+	 */
+	public RobotKeywordStatistics getPrevious() {
+		Run<?, ?> build = owner;
+		while (build != null && (build = build.getPreviousBuild()) != null) {
+			RobotBuildAction action = build.getAction(RobotBuildAction.class);
+			if (action != null && action.getHasKeywordStatistics())
+				return action.getKeywordStatistics();
+		}
+		return null;
+	}
+
+	/**
+	 * Wrapper for comparing to an earlier build in jelly
+	 * @param keyword keyword of this build
+	 * @param previous statistics of an earlier build, may be null
+	 * @return difference of the mean durations in human readable form, empty if the keyword was not called earlier
+	 */
+	public String getMeanDiff(Keyword keyword, RobotKeywordStatistics previous) {
+		Keyword earlier = previous != null ? previous.getKeyword(keyword.name) : null;
+		if (earlier == null)
+			return "";
+		long diff = keyword.getMean() - earlier.getMean();
+		if (diff == 0) return "\u00B10";
+		else if (diff > 0) return "+" + DurationFormatUtils.formatDurationHMS(Math.abs(diff));
+		else return "-" + DurationFormatUtils.formatDurationHMS(Math.abs(diff));
+	}
+
+	/**
+	 * Trend of a keyword, e.g. robot/keywords/BuiltIn.Sleep
+	 * @param token keyword name
+	 * @param req StaplerRequest
+	 * @param rsp StaplerResponse
+	 * @return trend of the keyword over the last {@value #TREND_BUILDS} builds with statistics
+	 */
+	public Trend getDynamic(String token, StaplerRequest2 req, StaplerResponse2 rsp) {
+		if (getKeyword(token) == null)
+			return null;
+		List<TrendPoint> points = new ArrayList<>();
+		Run<?, ?> build = owner;
+		RobotKeywordStatistics statistics = this;
+		while (build != null && points.size() < TREND_BUILDS) {
+			if (statistics != null)
+				points.add(new TrendPoint(build, statistics.getKeyword(token)));
+			build = build.getPreviousBuild();
+			RobotBuildAction action = build != null ? build.getAction(RobotBuildAction.class) : null;
+			statistics = action != null && action.getHasKeywordStatistics() ? action.getKeywordStatistics() : null;
+		}
+		return new Trend(token, owner, points);
+	}
+
+	/**
+	 * Write to file. The previous file is replaced only when the new one has
+	 * been completely written.
+	 * @param file file to write to
+	 * @throws IOException if writing fails
+	 */
+	public void write(File file) throws IOException {
+		File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+			out.writeInt(keywords.size());
+			for (Keyword keyword : keywords) {
+				out.writeUTF(keyword.name);
+				out.writeInt(keyword.calls);
+				out.writeInt(keyword.failures);
+				out.writeLong(keyword.total);
+				out.writeLong(keyword.p95);
+				out.writeLong(keyword.max);
+			}
+		}
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * @param file file written by {@link #write(File)}
+	 * @return statistics in the file
+	 * @throws IOException if reading fails
+	 */
+	public static RobotKeywordStatistics read(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			int count = in.readInt();
+			List<Keyword> keywords = new ArrayList<>();
+			for (int i = 0; i < count; i++)
+				keywords.add(new Keyword(in.readUTF(), in.readInt(), in.readInt(), in.readLong(), in.readLong(), in.readLong()));
+			return new RobotKeywordStatistics(keywords);
+		}
+	}
+
+	void writeTo(RobotWireFormat.Output out) throws IOException {
+		out.writeInt(keywords.size());
+		for (Keyword keyword : keywords) {
+			out.writeString(keyword.name);
+			out.writeInt(keyword.calls);
+			out.writeInt(keyword.failures);
+			out.writeLong(keyword.total);
+			out.writeLong(keyword.p95);
+			out.writeLong(keyword.max);
+		}
+	}
+
+	static RobotKeywordStatistics readFrom(RobotWireFormat.Input in) throws IOException {
+		int count = in.readCount();
+		List<Keyword> keywords = new ArrayList<>();
+		for (int i = 0; i < count; i++)
+			keywords.add(new Keyword(in.readString(), in.readInt(), in.readInt(), in.readLong(), in.readLong(), in.readLong()));
+		return new RobotKeywordStatistics(keywords);
+	}
+
+	/**
+	 * Collects the keyword calls while parsing. The durations of a keyword
+	 * are counted in a histogram with eight buckets for each power of two,
+	 * so the 95th percentile is within an eighth of its value, and memory
+	 * doesn't grow with the number of calls.
+	 */
+	public static final class Collector {
+
+		private static final int SUB_BUCKET_BITS = 3;
+		private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+		private final Map<String, Calls> calls = new HashMap<>();
+
+		/**
+		 * Add a call of a keyword
+		 * @param name keyword name
+		 * @param micros duration in microseconds
+		 * @param failed true if the keyword failed
+		 */
+		public void add(String name, long micros, boolean failed) {
+			calls.computeIfAbsent(name, n -> new Calls()).add(Math.max(0, micros), failed);
+		}
+
+		/**
+		 * Add the calls collected by another collector
+		 * @param other collector to add
+		 */
+		public void addAll(Collector other) {
+			other.calls.forEach((name, otherCalls) -> calls.computeIfAbsent(name, n -> new Calls()).addAll(otherCalls));
+		}
+
+		/**
+		 * @return statistics of the calls
+		 */
+		public RobotKeywordStatistics finish() {
+			List<Keyword> keywords = new ArrayList<>(calls.size());
+			calls.forEach((name, keywordCalls) -> keywords.add(new Keyword(name, keywordCalls.count, keywordCalls.failures,
+					keywordCalls.total, keywordCalls.getPercentile(95), keywordCalls.max)));
+			return new RobotKeywordStatistics(keywords);
+		}
+
+		static int bucket(long micros) {
+			if (micros < SUB_BUCKETS)
+				return (int) micros;
+			int exponent = 63 - Long.numberOfLeadingZeros(micros);
+			int sub = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+			return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+		}
+
+		static long bucketMax(int bucket) {
+			if (bucket < SUB_BUCKETS)
+				return bucket;
+			int shift = bucket / SUB_BUCKETS - 1;
+			long low = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+			return low + (1L << shift) - 1;
+		}
+
+		private static final class Calls {
+			private int count;
+			private int failures;
+			private long total;
+			private long max;
+			private int[] histogram = new int[0];
+
+			private void add(long micros, boolean failed) {
+				count++;
+				if (failed)
+					failures++;
+				total += micros;
+				max = Math.max(max, micros);
+				int bucket = bucket(micros);
+				if (bucket >= histogram.length)
+					histogram = Arrays.copyOf(histogram, bucket + 1);
+				histogram[bucket]++;
+			}
+
+			private void addAll(Calls other) {
+				count += other.count;
+				failures += other.failures;
+				total += other.total;
+				max = Math.max(max, other.max);
+				if (other.histogram.length > histogram.length)
+					histogram = Arrays.copyOf(histogram, other.histogram.length);
+				for (int i = 0; i < other.histogram.length; i++)
+					histogram[i] += other.histogram[i];
+			}
+
+			private long getPercentile(int percentile) {
+				long rank = Math.max(1, (count * (long) percentile + 99) / 100);
+				long seen = 0;
+				for (int i = 0; i < histogram.length; i++) {
+					seen += histogram[i];
+					if (seen >= rank)
+						return Math.min(bucketMax(i), max);
+				}
+				return max;
+			}
+		}
+	}
+
+	/**
+	 * Statistics of one keyword
+	 */
+	@ExportedBean(defaultVisibility = 2)
+	public static final class Keyword implements Serializable {
+
+		@Serial
+		private static final long serialVersionUID = 1L;
+
+		private final String name;
+		private final int calls;
+		private final int failures;
+		// durations in microseconds
+		private final long total;
+		private final long p95;
+		private final long max;
+
+		Keyword(String name, int calls, int failures, long total, long p95, long max) {
+			this.name = name;
+			this.calls = calls;
+			this.failures = failures;
+			this.total = total;
+			this.p95 = p95;
+			this.max = max;
+		}
+
+		/**
+		 * @return name of the keyword, prefixed with its library or resource if known
+		 */
+		@Exported
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return name of the keyword encoded for a trend url
+		 */
+		public String getUrlName() {
+			return Util.rawEncode(name);
+		}
+
+		@Exported
+		public int getCalls() {
+			return calls;
+		}
+
+		@Exported
+		public int getFailures() {
+			return failures;
+		}
+
+		/**
+		 * @return sum of the durations in milliseconds
+		 */
+		@Exported
+		public long getTotal() {
+			return total / 1000;
+		}
+
+		/**
+		 * @return mean duration in milliseconds
+		 */
+		@Exported
+		public long getMean() {
+			return calls > 0 ? total / calls / 1000 : 0;
+		}
+
+		/**
+		 * @return 95th percentile of the durations in milliseconds
+		 */
+		@Exported
+		public long getP95() {
+			return p95 / 1000;
+		}
+
+		/**
+		 * @return longest duration in milliseconds
+		 */
+		@Exported
+		public long getMax() {
+			return max / 1000;
+		}
+
+		public long getTotalMicros() {
+			return total;
+		}
+
+		public long getP95Micros() {
+			return p95;
+		}
+
+		public String getHumanReadableTotal() {
+			return DurationFormatUtils.formatDurationHMS(getTotal());
+		}
+
+		public String getHumanReadableMean() {
+			return DurationFormatUtils.formatDurationHMS(getMean());
+		}
+
+		public String getHumanReadableP95() {
+			return DurationFormatUtils.formatDurationHMS(getP95());
+		}
+
+		public String getHumanReadableMax() {
+			return DurationFormatUtils.formatDurationHMS(getMax());
+		}
+	}
+
+	/**
+	 * Statistics of a keyword in recent builds
+	 */
+	@ExportedBean
+	public static final class Trend {
+
+		private final String name;
+		private final Run<?, ?> owner;
+		private final List<TrendPoint> points;
+
+		Trend(String name, Run<?, ?> owner, List<TrendPoint> points) {
+			this.name = name;
+			this.owner = owner;
+			this.points = points;
+		}
+
+		@Exported
+		public String getName() {
+			return name;
+		}
+
+		public Run<?, ?> getOwner() {
+			return owner;
+		}
+
+		/**
+		 * @return the builds with keyword statistics, latest first
+		 */
+		@Exported
+		public List<TrendPoint> getBuilds() {
+			return points;
+		}
+
+		public Api getApi() {
+			return new Api(this);
+		}
+	}
+
+	/**
+	 * Statistics of a keyword in one build
+	 */
+	@ExportedBean(defaultVisibility = 2)
+	public static final class TrendPoint {
+
+		private final Run<?, ?> build;
+		private final Keyword keyword;
+
+		TrendPoint(Run<?, ?> build, Keyword keyword) {
+			this.build = build;
+			this.keyword = keyword;
+		}
+
+		public Run<?, ?> getBuild() {
+			return build;
+		}
+
+		@Exported
+		public int getNumber() {
+			return build.getNumber();
+		}
+
+		/**
+		 * @return statistics of the keyword, null if it was not called in the build
+		 */
+		@Exported
+		public Keyword getKeyword() {
+			return keyword;
+		}
+	}
+}
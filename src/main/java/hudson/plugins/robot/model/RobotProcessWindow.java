@@ -0,0 +1,137 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot.model;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.io.Serializable;
+
+import org.apache.commons.lang.time.DurationFormatUtils;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Execution window of one pabot process, from the start of the first suite
+ * in its output file to the end of the last one.
+ */
+@ExportedBean
+public class RobotProcessWindow implements Serializable {
+
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private final String name;
+	// start as epoch microseconds (UTC) and elapsed microseconds, 0 when not known
+	private final long start;
+	private final long elapsed;
+	private final int tests;
+
+	public RobotProcessWindow(String name, long start, long elapsed, int tests) {
+		this.name = name;
+		this.start = start;
+		this.elapsed = elapsed;
+		this.tests = tests;
+	}
+
+	/**
+	 * Get the window of a result parsed from the output file of one process
+	 * @param name name of the process
+	 * @param part result of the process
+	 * @return the window covering the top level suites of the result
+	 */
+	public static RobotProcessWindow of(String name, RobotResult part) {
+		long start = 0;
+		long end = 0;
+		long elapsed = 0;
+		int tests = 0;
+		for (RobotSuiteResult suite : part.getSuites()) {
+			long suiteStart = suite.getStartMicros();
+			long suiteElapsed = suite.getDuration() * 1000;
+			if (suiteStart != 0) {
+				start = start == 0 ? suiteStart : Math.min(start, suiteStart);
+				end = Math.max(end, suiteStart + suiteElapsed);
+			} else {
+				elapsed += suiteElapsed;
+			}
+			tests += suite.getAllCases().size();
+		}
+		return new RobotProcessWindow(name, start, start != 0 ? end - start : elapsed, tests);
+	}
+
+	@Exported
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Get the start time
+	 * @return start time as microseconds since epoch, 0 if not known
+	 */
+	@Exported
+	public long getStartMicros() {
+		return start;
+	}
+
+	/**
+	 * Get the end time
+	 * @return end time as microseconds since epoch, 0 if not known
+	 */
+	public long getEndMicros() {
+		return start != 0 ? start + elapsed : 0;
+	}
+
+	/**
+	 * Get the duration of the window
+	 * @return duration in milliseconds
+	 */
+	@Exported
+	public long getDuration() {
+		return elapsed / 1000;
+	}
+
+	public String getHumanReadableDuration() {
+		return DurationFormatUtils.formatDurationHMS(getDuration());
+	}
+
+	/**
+	 * Wrapper for showing the start relative to the start of the run in jelly
+	 * @param runStart start of the run as microseconds since epoch
+	 * @return offset in human readable form
+	 */
+	public String getHumanReadableOffset(long runStart) {
+		return DurationFormatUtils.formatDurationHMS(start != 0 && runStart != 0 ? (start - runStart) / 1000 : 0);
+	}
+
+	/**
+	 * Get the number of tests run by the process
+	 * @return test count
+	 */
+	@Exported
+	public int getTests() {
+		return tests;
+	}
+
+	void writeTo(RobotWireFormat.Output out) throws IOException {
+		out.writeString(name);
+		out.writeLong(start);
+		out.writeLong(elapsed);
+		out.writeInt(tests);
+	}
+
+	static RobotProcessWindow readFrom(RobotWireFormat.Input in) throws IOException {
+		return new RobotProcessWindow(in.readString(), in.readLong(), in.readLong(), in.readInt());
+	}
+}
@@ -20,9 +20,13 @@ import hudson.model.Api;
 import hudson.model.DirectoryBrowserSupport;
 import hudson.model.Run;
 import hudson.plugins.robot.RobotBuildAction;
+import hudson.plugins.robot.RobotReportFiles;
+import hudson.plugins.robot.RobotTimeline;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.Serial;
+import java.io.StreamCorruptedException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
@@ -31,10 +35,12 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import jakarta.servlet.ServletException;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
 import org.kohsuke.stapler.StaplerRequest2;
 import org.kohsuke.stapler.StaplerResponse2;
 import org.kohsuke.stapler.export.Exported;
@@ -51,14 +57,34 @@ public class RobotResult extends RobotTestObject {
 	@Serial
 	private static final long serialVersionUID = 1L;
 
+	private static final Logger LOGGER = Logger.getLogger(RobotResult.class.getName());
+
+	/**
+	 * Name of the file in the build directory that has the stack traces
+	 */
+	public static final String STACK_TRACE_FILE = "robot_stacktraces.bin";
+
 	private String timeStamp;
 
-	private transient int passed, failed, skipped;
+	private int passed, failed, skipped;
+	private long duration;
 
 	//backwards compatibility with old builds
 	private transient List<RobotResultStatistics> overallStats;
 
 	private Map<String, RobotSuiteResult> suites;
+	private transient Map<String, Integer> suiteSuffixes;
+
+	private RobotStringPool stringPool;
+	// not persisted with the rest of the result, see storeStackTraces()
+	private RobotStringPool stackTraces;
+	// null for results with all details
+	private RobotDetailLevel detailLevel;
+	private transient RobotStackTraceFile stackTraceFile;
+	// null if the result was not parsed from pabot output files
+	private List<RobotProcessWindow> processes;
+	// not persisted with the rest of the result, null if not collected
+	private RobotKeywordStatistics keywordStatistics;
 
 	/**
 	 * Find a testobject in the result tree with id-path
@@ -140,6 +166,103 @@ public class RobotResult extends RobotTestObject {
 		this.overallStats = statsByCategory;
 	}
 
+	@Override
+	protected RobotResult getRobotResult() {
+		return this;
+	}
+
+	/**
+	 * Get the table of strings shared by the test objects of this result.
+	 * @return string table
+	 */
+	synchronized RobotStringPool getStringPool() {
+		if (stringPool == null)
+			stringPool = new RobotStringPool();
+		return stringPool;
+	}
+
+	/**
+	 * Add a stack trace to the traces of this result
+	 * @param trace stack trace
+	 * @return index of the trace
+	 */
+	synchronized int addStackTrace(String trace) {
+		if (stackTraces == null)
+			stackTraces = loadStackTraces();
+		return stackTraces.add(trace);
+	}
+
+	/**
+	 * Get a stack trace of this result. Traces that have been stored to the
+	 * build directory are read from there.
+	 * @param index index of the trace
+	 * @return stack trace, null if not found
+	 */
+	synchronized String getStackTrace(int index) {
+		if (stackTraces != null)
+			return stackTraces.get(index);
+		RobotStackTraceFile file = getStackTraceFile();
+		if (file == null)
+			return null;
+		try {
+			return file.read(index);
+		} catch (IOException e) {
+			LOGGER.warn("Couldn't read stack trace from " + file.getFile(), e);
+			return null;
+		}
+	}
+
+	/**
+	 * Move details that a result saved by an older version keeps in its
+	 * cases to the tables of this result, see
+	 * {@link RobotCaseResult#compactLegacyDetails()}. Used when the result
+	 * is migrated.
+	 */
+	public synchronized void compactLegacyDetails() {
+		for (RobotCaseResult caseResult : getAllCases())
+			caseResult.compactLegacyDetails();
+	}
+
+	/**
+	 * Move the stack traces of this result to a file in the build directory.
+	 * After this they are read from the file one at a time when needed.
+	 * @throws IOException if writing the file fails
+	 */
+	public synchronized void storeStackTraces() throws IOException {
+		Run<?,?> owner = getOwner();
+		if (stackTraces == null || owner == null)
+			return;
+		File file = new File(owner.getRootDir(), STACK_TRACE_FILE);
+		RobotStackTraceFile.write(file, stackTraces);
+		stackTraceFile = new RobotStackTraceFile(file);
+		stackTraces = null;
+	}
+
+	private RobotStringPool loadStackTraces() {
+		RobotStackTraceFile file = getStackTraceFile();
+		if (file != null) {
+			try {
+				return file.readAll();
+			} catch (IOException e) {
+				LOGGER.warn("Couldn't read stack traces from " + file.getFile(), e);
+			}
+		}
+		return new RobotStringPool();
+	}
+
+	private RobotStackTraceFile getStackTraceFile() {
+		if (stackTraceFile == null) {
+			Run<?,?> owner = getOwner();
+			if (owner == null)
+				return null;
+			File file = new File(owner.getRootDir(), STACK_TRACE_FILE);
+			if (!file.exists())
+				return null;
+			stackTraceFile = new RobotStackTraceFile(file);
+		}
+		return stackTraceFile;
+	}
+
 	/**
 	 * Get the timestamp of the original test run.
 	 * @return timestamp of the original test run
@@ -157,17 +280,48 @@ public class RobotResult extends RobotTestObject {
 		this.timeStamp = timeStamp;
 	}
 
+	/**
+	 * Get how much of the passed cases was published
+	 * @return detail level of the result
+	 */
+	public RobotDetailLevel getDetailLevel() {
+		return detailLevel != null ? detailLevel : RobotDetailLevel.FULL;
+	}
+
+	/**
+	 * Drop details of passed cases. This is done on the agent before the
+	 * result is sent to the controller.
+	 * @param detailLevel what to keep of passed cases
+	 */
+	public void omitPassedDetails(RobotDetailLevel detailLevel) {
+		if (detailLevel == null || detailLevel == RobotDetailLevel.FULL)
+			return;
+		this.detailLevel = detailLevel;
+		for (RobotSuiteResult suite : getAllSuites())
+			suite.omitPassedDetails(detailLevel);
+	}
+
 	/**
 	 * Returns pass percentage of passed tests per total tests.
 	 * @param countSkipped true if skipped tests should be included in calculating total tests
 	 * @return Percentage value rounded to 1 decimal
 	 */
 	public double getPassPercentage(boolean countSkipped) {
-		long passed, total;
-		passed = getOverallPassed();
-		total = getOverallTotal();
+		return calculatePassPercentage(getOverallPassed(), getOverallTotal(), getOverallSkipped(), countSkipped);
+	}
+
+	/**
+	 * Calculate a pass percentage like {@link #getPassPercentage(boolean)}
+	 * for totals known without a result
+	 * @param passed passed tests
+	 * @param total all tests
+	 * @param skipped skipped tests
+	 * @param countSkipped true if skipped tests count as tests
+	 * @return pass percentage rounded down to one decimal
+	 */
+	public static double calculatePassPercentage(long passed, long total, long skipped, boolean countSkipped) {
 		if (!countSkipped)
-			total -= getOverallSkipped();
+			total -= skipped;
 
 		if(total == 0) return 100;
 
@@ -223,17 +377,26 @@ public class RobotResult extends RobotTestObject {
 	public void addSuite(RobotSuiteResult suite){
 		if(suites == null)
 			this.suites = new HashMap<>();
-		int i = 1;
-		String originalName = suite.getName();
-		String checkedSuiteName = originalName;
-		while(suites.get(checkedSuiteName) != null){
-			checkedSuiteName = originalName + "_" + i;
-			i++;
+		String checkedSuiteName = suite.getName();
+		if(suites.get(checkedSuiteName) != null){
+			if(suiteSuffixes == null)
+				suiteSuffixes = new HashMap<>();
+			checkedSuiteName = nextDuplicateSafeName(suites, suiteSuffixes, checkedSuiteName);
 		}
 		suite.setDuplicateSafeName(checkedSuiteName);
 		suites.put(checkedSuiteName, suite);
 	}
 
+	/**
+	 * Add a suite under the duplicate safe name it already has
+	 * @param suite suite to add
+	 */
+	void putSuite(RobotSuiteResult suite){
+		if(suites == null)
+			this.suites = new HashMap<>();
+		suites.put(suite.getDuplicateSafeName(), suite);
+	}
+
 	/**
 	 * Get all top level suites
 	 * @return Collection of suiteresults
@@ -379,18 +542,229 @@ public class RobotResult extends RobotTestObject {
 		skipped = 0;
 		duration = 0;
 
-		Collection<RobotSuiteResult> newSuites = getSuites();
-		HashMap<String, RobotSuiteResult> newMap = new HashMap<>(newSuites.size());
+		if(suites == null)
+			suites = new HashMap<>();
+		RobotSuiteResult.tallyAll(suites.values(), robotBuildAction);
+		for (RobotSuiteResult suite : suites.values()) {
+			failed += suite.getFailed();
+			passed += suite.getPassed();
+			skipped += suite.getSkipped();
+			duration += suite.getDuration();
+		}
+		suites = duplicateSafeMap(suites);
+	}
+
+	/**
+	 * Assign parent action to a result loaded from disk. The totals are
+	 * saved with the result, so the tree is tallied only if it was saved by
+	 * an older version.
+	 * @param robotBuildAction The action to be used as the base
+	 */
+	public void restore(RobotBuildAction robotBuildAction){
+		if (suites == null || (!suites.isEmpty() && passed + failed + skipped == 0))
+			tally(robotBuildAction);
+		else
+			setParentAction(robotBuildAction);
+	}
+
+	/**
+	 * Merge the suites of another result into this one. Only the merged
+	 * suites are tallied, and their counts are added to the totals of this
+	 * result. The log and report files of the other result are kept for its
+	 * suites. The other result is not usable after this.
+	 * @param other result to merge
+	 * @param name name of a suite to put the merged suites under, null or blank to add them as they are
+	 */
+	public synchronized void merge(RobotResult other, String name) {
+		if (getLogFile() == null)
+			setLogFile(other.getLogFile());
+		if (getReportFile() == null)
+			setReportFile(other.getReportFile());
+		boolean otherLogFile = !Objects.equals(getLogFile(), other.getLogFile());
+		boolean otherReportFile = !Objects.equals(getReportFile(), other.getReportFile());
+
+		// messages and traces are pooled per result, so they are added again after moving
+		List<RobotCaseResult> cases = other.getAllCases();
+		String[] errorMsgs = new String[cases.size()];
+		String[] stackTraces = new String[cases.size()];
+		for (int i = 0; i < cases.size(); i++) {
+			errorMsgs[i] = cases.get(i).getErrorMsg();
+			stackTraces[i] = cases.get(i).getStackTrace();
+		}
+
+		List<RobotSuiteResult> merged = new ArrayList<>();
+		if (StringUtils.isBlank(name)) {
+			for (RobotSuiteResult suite : new ArrayList<>(other.getSuites())) {
+				if (otherLogFile)
+					suite.setLogFile(other.getLogFile());
+				if (otherReportFile)
+					suite.setReportFile(other.getReportFile());
+				suite.setParent(this);
+				addSuite(suite);
+				merged.add(suite);
+			}
+		} else {
+			RobotSuiteResult set = new RobotSuiteResult();
+			set.setName(name);
+			if (otherLogFile)
+				set.setLogFile(other.getLogFile());
+			if (otherReportFile)
+				set.setReportFile(other.getReportFile());
+			for (RobotSuiteResult suite : new ArrayList<>(other.getSuites())) {
+				suite.setParent(set);
+				set.addChild(suite);
+			}
+			set.setParent(this);
+			addSuite(set);
+			merged.add(set);
+		}
+		for (int i = 0; i < cases.size(); i++) {
+			cases.get(i).setErrorMsg(errorMsgs[i]);
+			cases.get(i).setStackTrace(stackTraces[i]);
+		}
 
-		for (RobotSuiteResult suite : newSuites) {
-			suite.tally(robotBuildAction);
+		RobotSuiteResult.tallyAll(merged, getParentAction());
+		for (RobotSuiteResult suite : merged) {
 			failed += suite.getFailed();
 			passed += suite.getPassed();
 			skipped += suite.getSkipped();
 			duration += suite.getDuration();
-			newMap.put(suite.getDuplicateSafeName(), suite);
 		}
-		suites = newMap;
+		if (timeStamp == null)
+			timeStamp = other.getTimeStamp();
+		if (other.keywordStatistics != null)
+			keywordStatistics = keywordStatistics != null ? keywordStatistics.combine(other.keywordStatistics) : other.keywordStatistics;
+	}
+
+	/**
+	 * Add the cases of another result to the suites of the same names in
+	 * this one, adding suites this result doesn't have. Used for the tests
+	 * of a run still in progress, see {@link hudson.plugins.robot.RobotLiveParser}.
+	 * Only the added cases are counted, in the suites they are added to and
+	 * the suites above them, so the result is not tallied again. The other
+	 * result is not usable after this.
+	 * @param other result to add the cases of
+	 */
+	public synchronized void addCases(RobotResult other) {
+		for (RobotCaseResult caseResult : other.getAllCases()) {
+			String errorMsg = caseResult.getErrorMsg();
+			String stackTrace = caseResult.getStackTrace();
+			RobotSuiteResult suite = getOrAddSuite((RobotSuiteResult) caseResult.getParent());
+			caseResult.setParent(suite);
+			suite.addCaseResult(caseResult);
+			caseResult.setErrorMsg(errorMsg);
+			caseResult.setStackTrace(stackTrace);
+			suite.countAddedCase(caseResult);
+			if (caseResult.isPassed())
+				passed++;
+			else if (caseResult.isSkipped())
+				skipped++;
+			else
+				failed++;
+			duration += caseResult.getDuration();
+		}
+	}
+
+	/**
+	 * Add the result of one pabot process to this result. Its suites are
+	 * combined with the suites of the same names, so the processes together
+	 * give the suite hierarchy of the whole run, and the execution window of
+	 * the process is recorded. The suites and cases of the process are
+	 * renumbered after the ones already added, see
+	 * {@link RobotSuiteResult#combine}. The result is not tallied. The other
+	 * result is not usable after this.
+	 * @param part result parsed from the output file of the process
+	 * @param process name of the process
+	 */
+	public synchronized void addProcess(RobotResult part, String process) {
+		if (processes == null)
+			processes = new ArrayList<>();
+		processes.add(RobotProcessWindow.of(process, part));
+
+		// messages and traces are pooled per result, so they are added again after moving
+		List<RobotCaseResult> cases = part.getAllCases();
+		String[] errorMsgs = new String[cases.size()];
+		String[] stackTraces = new String[cases.size()];
+		for (int i = 0; i < cases.size(); i++) {
+			errorMsgs[i] = cases.get(i).getErrorMsg();
+			stackTraces[i] = cases.get(i).getStackTrace();
+		}
+		int nextSuite = suites != null ? RobotSuiteResult.nextIndex("s", suites.values()) : 1;
+		for (RobotSuiteResult suite : new ArrayList<>(part.getSuites())) {
+			RobotSuiteResult existing = suites != null ? suites.get(suite.getName()) : null;
+			if (existing != null) {
+				existing.combine(suite);
+			} else {
+				suite.setParent(this);
+				addSuite(suite);
+				if (!suite.getId().isEmpty())
+					suite.renumber("s" + nextSuite++);
+			}
+		}
+		for (int i = 0; i < cases.size(); i++) {
+			cases.get(i).setErrorMsg(errorMsgs[i]);
+			cases.get(i).setStackTrace(stackTraces[i]);
+		}
+		if (timeStamp == null)
+			timeStamp = part.getTimeStamp();
+	}
+
+	/**
+	 * Get the execution windows of the pabot processes
+	 * @return windows in the order the processes were added, empty if not parsed from pabot output files
+	 */
+	@Exported
+	public List<RobotProcessWindow> getProcesses() {
+		return processes != null ? Collections.unmodifiableList(processes) : Collections.emptyList();
+	}
+
+	/**
+	 * Get the start of the first pabot process
+	 * @return start time as microseconds since epoch, 0 if not known
+	 */
+	public long getProcessesStart() {
+		long start = 0;
+		for (RobotProcessWindow process : getProcesses())
+			if (process.getStartMicros() != 0)
+				start = start == 0 ? process.getStartMicros() : Math.min(start, process.getStartMicros());
+		return start;
+	}
+
+	/**
+	 * Get how much of the time from the start of the first pabot process to
+	 * the end of the last one the processes were running.
+	 * @return percentage of the time all the processes could have run, 0 if not known
+	 */
+	@Exported
+	public double getProcessUtilization() {
+		long start = getProcessesStart();
+		long end = 0;
+		long busy = 0;
+		for (RobotProcessWindow process : getProcesses()) {
+			end = Math.max(end, process.getEndMicros());
+			busy += process.getDuration() * 1000;
+		}
+		if (start == 0 || end <= start)
+			return 0;
+		return roundToDecimals(100.0 * busy / ((double) (end - start) * getProcesses().size()), 1);
+	}
+
+	private RobotSuiteResult getOrAddSuite(RobotSuiteResult other) {
+		RobotSuiteResult parent = other.getParent() instanceof RobotSuiteResult otherParent ? getOrAddSuite(otherParent) : null;
+		RobotSuiteResult suite = parent != null ? parent.getSuite(other.getName()) : suites != null ? suites.get(other.getName()) : null;
+		if (suite == null) {
+			suite = new RobotSuiteResult();
+			suite.setName(other.getName());
+			suite.setId(other.getId());
+			if (parent != null) {
+				suite.setParent(parent);
+				parent.addChild(suite);
+			} else {
+				suite.setParent(this);
+				addSuite(suite);
+			}
+		}
+		return suite;
 	}
 
 	/**
@@ -404,6 +778,41 @@ public class RobotResult extends RobotTestObject {
 		return suites.get(token);
 	}
 
+	/**
+	 * Get the suites and tests laid out on a time axis
+	 * @return timeline of this result
+	 */
+	public RobotTimeline getTimeline() {
+		RobotBuildAction parent = getParentAction();
+		if (parent != null)
+			return parent.getTimeline();
+		return RobotTimeline.of(this);
+	}
+
+	/**
+	 * Statistics of the keywords collected while parsing, only kept in
+	 * memory until the result is saved, see {@link RobotBuildAction#getKeywordStatistics()}
+	 * @return statistics, null if not collected
+	 */
+	public RobotKeywordStatistics getKeywordStatistics() {
+		return keywordStatistics;
+	}
+
+	public void setKeywordStatistics(RobotKeywordStatistics keywordStatistics) {
+		this.keywordStatistics = keywordStatistics;
+	}
+
+	/**
+	 * Get the keyword statistics of the build for the slowest keywords page
+	 * @return statistics, null if not collected for the build
+	 */
+	public RobotKeywordStatistics getKeywords() {
+		RobotBuildAction parent = getParentAction();
+		if (parent != null)
+			return parent.getKeywordStatistics();
+		return keywordStatistics;
+	}
+
 	/**
 	 * Serves Robot html report via robot url. Shows not found page if file is missing. If reportfilename is specified, the report is served (To be compatible with v1.0 builds)
 	 * @param req StaplerRequest
@@ -422,6 +831,8 @@ public class RobotResult extends RobotTestObject {
 			robotDir = parent.getRobotDir();
 
 		if(robotDir != null && robotDir.exists()) {
+			if(RobotReportFiles.serve(new File(robotDir.getRemote()), req, rsp, !parent.getOwner().isBuilding()))
+				return null;
 			if(StringUtils.isBlank(parent.getReportFileName()))
 				return new DirectoryBrowserSupport(this, robotDir, getDisplayName(), "folder.gif", true);
 		}
@@ -488,4 +899,57 @@ public class RobotResult extends RobotTestObject {
 		allCases.sort(new RobotCaseComparator());
 		return allCases;
 	}
+
+	@Override
+	void writeTo(RobotWireFormat.Output out) throws IOException {
+		super.writeTo(out);
+		out.writeString(timeStamp);
+		out.writeInt(passed);
+		out.writeInt(failed);
+		out.writeInt(skipped);
+		out.writeLong(duration);
+		out.writeString(detailLevel != null ? detailLevel.name() : null);
+		if (stringPool != null)
+			stringPool.writeTo(out);
+		else
+			out.writeInt(0);
+		if (stackTraces != null)
+			stackTraces.writeTo(out);
+		else
+			out.writeInt(0);
+		// one more than the number of processes, 0 for no processes at all
+		List<RobotProcessWindow> windows = getProcesses();
+		out.writeInt(processes != null ? windows.size() + 1 : 0);
+		for (RobotProcessWindow process : windows)
+			process.writeTo(out);
+		out.writeByte(keywordStatistics != null ? 1 : 0);
+		if (keywordStatistics != null)
+			keywordStatistics.writeTo(out);
+	}
+
+	@Override
+	void readFrom(RobotWireFormat.Input in) throws IOException {
+		super.readFrom(in);
+		timeStamp = in.readString();
+		passed = in.readInt();
+		failed = in.readInt();
+		skipped = in.readInt();
+		duration = in.readLong();
+		String level = in.readString();
+		try {
+			detailLevel = level != null ? RobotDetailLevel.valueOf(level) : null;
+		} catch (IllegalArgumentException e) {
+			throw new StreamCorruptedException("Unknown detail level " + level);
+		}
+		stringPool = RobotStringPool.readFrom(in);
+		stackTraces = RobotStringPool.readFrom(in);
+		int processCount = in.readCount();
+		if (processCount > 0) {
+			processes = new ArrayList<>();
+			for (int i = 1; i < processCount; i++)
+				processes.add(RobotProcessWindow.readFrom(in));
+		}
+		if (in.readByte() != 0)
+			keywordStatistics = RobotKeywordStatistics.readFrom(in);
+	}
 }
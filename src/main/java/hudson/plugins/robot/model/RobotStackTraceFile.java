@@ -0,0 +1,130 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stack traces of a build stored next to the result xml. The file starts with
+ * the number of traces and the offset of each trace, followed by the traces
+ * in UTF-8. Traces are read one at a time, so they are not kept in memory
+ * with the rest of the result.
+ */
+public class RobotStackTraceFile {
+
+	private final File file;
+	private long[] offsets;
+
+	public RobotStackTraceFile(File file) {
+		this.file = file;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Write traces to file. The previous file is replaced only when the new
+	 * one has been completely written and synced to disk.
+	 * @param file file to write to
+	 * @param traces traces to write, index in the file is the index in the table
+	 * @throws IOException if writing fails
+	 */
+	public static void write(File file, RobotStringPool traces) throws IOException {
+		List<byte[]> data = new ArrayList<>(traces.size());
+		for (int i = 0; i < traces.size(); i++)
+			data.add(traces.get(i).getBytes(StandardCharsets.UTF_8));
+
+		File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+		try (FileOutputStream fos = new FileOutputStream(tmp);
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos))) {
+			out.writeInt(data.size());
+			long offset = 0;
+			for (byte[] trace : data) {
+				out.writeLong(offset);
+				offset += trace.length;
+			}
+			out.writeLong(offset);
+			for (byte[] trace : data)
+				out.write(trace);
+			out.flush();
+			fos.getFD().sync();
+		}
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Read a single trace
+	 * @param index index of the trace
+	 * @return trace, null if the file doesn't have such index
+	 * @throws IOException if reading fails
+	 */
+	public synchronized String read(int index) throws IOException {
+		try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+			long[] offsets = getOffsets(in);
+			if (index < 0 || index >= offsets.length - 1)
+				return null;
+			byte[] trace = new byte[(int) (offsets[index + 1] - offsets[index])];
+			in.seek(getDataStart(offsets) + offsets[index]);
+			in.readFully(trace);
+			return new String(trace, StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Read all traces
+	 * @return table with the traces of the file in the same order
+	 * @throws IOException if reading fails
+	 */
+	public synchronized RobotStringPool readAll() throws IOException {
+		RobotStringPool traces = new RobotStringPool();
+		try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+			long[] offsets = getOffsets(in);
+			in.seek(getDataStart(offsets));
+			for (int i = 0; i < offsets.length - 1; i++) {
+				byte[] trace = new byte[(int) (offsets[i + 1] - offsets[i])];
+				in.readFully(trace);
+				traces.add(new String(trace, StandardCharsets.UTF_8));
+			}
+		}
+		return traces;
+	}
+
+	private long[] getOffsets(RandomAccessFile in) throws IOException {
+		if (offsets == null) {
+			in.seek(0);
+			long[] read = new long[in.readInt() + 1];
+			for (int i = 0; i < read.length; i++)
+				read[i] = in.readLong();
+			offsets = read;
+		}
+		return offsets;
+	}
+
+	private static long getDataStart(long[] offsets) {
+		return Integer.BYTES + (long) Long.BYTES * offsets.length;
+	}
+}
@@ -0,0 +1,139 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot.model;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per build table of distinct strings. Test objects store an index to this
+ * table instead of their own copy of values that repeat across the build,
+ * e.g. identical error messages of failed cases. The table is persisted once
+ * with the result. Tag lists are shared the same way between cases that have
+ * identical tags.
+ */
+public class RobotStringPool implements Serializable {
+
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private List<String> strings;
+	private transient Map<String, Integer> indexes;
+	private transient Map<List<String>, List<String>> tagLists;
+
+	/**
+	 * Add a value to the table unless it already exists.
+	 * @param value value to add
+	 * @return index of the value in the table, -1 for null
+	 */
+	public synchronized int add(String value) {
+		if (value == null)
+			return -1;
+		Map<String, Integer> lookup = getIndexes();
+		Integer index = lookup.get(value);
+		if (index == null) {
+			index = strings.size();
+			strings.add(value);
+			lookup.put(value, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Get value by index
+	 * @param index index returned by {@link #add(String)}
+	 * @return value, null if index is not in the table
+	 */
+	public synchronized String get(int index) {
+		if (strings == null || index < 0 || index >= strings.size())
+			return null;
+		return strings.get(index);
+	}
+
+	/**
+	 * Get the canonical instance of a value. The value is added to the table
+	 * if it does not exist yet.
+	 * @param value value to look up
+	 * @return canonical instance equal to value, null for null
+	 */
+	public String intern(String value) {
+		return get(add(value));
+	}
+
+	/**
+	 * Get the shared instance of a tag list. Callers must not modify lists
+	 * given to or returned by this method.
+	 * @param tags tags of a case
+	 * @return shared list equal to tags
+	 */
+	public synchronized List<String> internTags(List<String> tags) {
+		if (tagLists == null)
+			tagLists = new HashMap<>();
+		return tagLists.computeIfAbsent(tags, t -> t);
+	}
+
+	/**
+	 * Get number of distinct values in the table
+	 * @return number of values
+	 */
+	public synchronized int size() {
+		return strings == null ? 0 : strings.size();
+	}
+
+	private Map<String, Integer> getIndexes() {
+		if (strings == null)
+			strings = new ArrayList<>();
+		if (indexes == null) {
+			indexes = new HashMap<>(strings.size() * 2);
+			for (int i = 0; i < strings.size(); i++)
+				indexes.putIfAbsent(strings.get(i), i);
+		}
+		return indexes;
+	}
+
+	/**
+	 * Write the values of the table
+	 * @param out data to write to
+	 * @throws IOException if writing fails
+	 */
+	synchronized void writeTo(RobotWireFormat.Output out) throws IOException {
+		out.writeInt(size());
+		for (int i = 0; i < size(); i++)
+			out.writeString(strings.get(i));
+	}
+
+	/**
+	 * Read a table written by {@link #writeTo(RobotWireFormat.Output)}
+	 * @param in data to read from
+	 * @return table, null if it was empty
+	 * @throws IOException if reading fails
+	 */
+	static RobotStringPool readFrom(RobotWireFormat.Input in) throws IOException {
+		int size = in.readCount();
+		if (size == 0)
+			return null;
+		RobotStringPool pool = new RobotStringPool();
+		pool.strings = new ArrayList<>(size);
+		for (int i = 0; i < size; i++)
+			pool.strings.add(in.readString());
+		return pool;
+	}
+}
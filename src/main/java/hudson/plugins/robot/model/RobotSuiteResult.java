@@ -17,14 +17,16 @@ package hudson.plugins.robot.model;
 
 import hudson.plugins.robot.RobotBuildAction;
 
+import java.io.IOException;
 import java.io.Serial;
-import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinTask;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
@@ -37,17 +39,32 @@ public class RobotSuiteResult extends RobotTestObject {
 
 	private static final Logger LOGGER = Logger.getLogger(RobotSuiteResult.class.getName());
 
+	/**
+	 * Trees with fewer cases than this are tallied in the calling thread.
+	 */
+	static final int PARALLEL_TALLY_THRESHOLD = 5000;
+
 	private Map<String, RobotSuiteResult> children;
 	private RobotTestObject parent;
 	private String name;
 	private String description;
 	private Map<String, RobotCaseResult> caseResults;
+	private transient Map<String, Integer> childSuffixes;
+	private transient Map<String, Integer> caseSuffixes;
+	// start as epoch microseconds (UTC) and elapsed microseconds, 0 when not known
+	private long start;
+	private long elapsed;
+	// times as text in results saved by older versions
 	private String elapsedTime;
 	private String startTime;
 	private String endTime;
-	private transient int failed;
-	private transient int passed;
-	private transient int skipped;
+	private int failed;
+	private int passed;
+	private int skipped;
+	private long duration;
+	// passed cases published only as totals
+	private int omittedPassed;
+	private long omittedDuration;
 
 	private int schemaVersion;
 
@@ -60,17 +77,26 @@ public class RobotSuiteResult extends RobotTestObject {
 	public void addChild(RobotSuiteResult child) {
 		if(children == null)
 			this.children = new HashMap<>();
-		int i = 1;
-		String originalName = child.getName();
-		String checkedSuiteName = originalName;
-		while(children.get(checkedSuiteName) != null){
-			checkedSuiteName = originalName + "_" + i;
-			i++;
+		String checkedSuiteName = child.getName();
+		if(children.get(checkedSuiteName) != null){
+			if(childSuffixes == null)
+				childSuffixes = new HashMap<>();
+			checkedSuiteName = nextDuplicateSafeName(children, childSuffixes, checkedSuiteName);
 		}
 		child.setDuplicateSafeName(checkedSuiteName);
 		children.put(checkedSuiteName, child);
 	}
 
+	/**
+	 * Add a child suite under the duplicate safe name it already has
+	 * @param child suite to add
+	 */
+	void putChild(RobotSuiteResult child) {
+		if(children == null)
+			this.children = new HashMap<>();
+		children.put(child.getDuplicateSafeName(), child);
+	}
+
 	/**
 	 * Get the immediate child suites of this suite
 	 * @return the immediate child suites of this suite
@@ -117,6 +143,16 @@ public class RobotSuiteResult extends RobotTestObject {
 		this.description = description;
 	}
 
+	/**
+	 * Get case results belonging to this suite without sorting them
+	 * @return case results in no particular order
+	 */
+	Collection<RobotCaseResult> getUnsortedCaseResults() {
+		if(caseResults != null)
+			return caseResults.values();
+		return Collections.emptyList();
+	}
+
 	/**
 	 * Get all case results belonging to this suite
 	 * @return Collection of all case results belonging to this suite
@@ -158,6 +194,35 @@ public class RobotSuiteResult extends RobotTestObject {
 		return passed + failed + skipped;
 	}
 
+	/**
+	 * Get number of passed tests that were published only as totals
+	 * @return number of passed tests without details in this suite
+	 */
+	public int getOmittedPassed() {
+		return omittedPassed;
+	}
+
+	/**
+	 * Drop details of passed cases of this suite
+	 * @param detailLevel what to keep of passed cases
+	 */
+	void omitPassedDetails(RobotDetailLevel detailLevel) {
+		if (caseResults == null)
+			return;
+		for (Iterator<RobotCaseResult> it = caseResults.values().iterator(); it.hasNext();) {
+			RobotCaseResult caseResult = it.next();
+			if (!caseResult.isPassed())
+				continue;
+			if (detailLevel == RobotDetailLevel.TOTALS) {
+				omittedPassed++;
+				omittedDuration += caseResult.getDuration();
+				it.remove();
+			} else {
+				caseResult.omitDetails();
+			}
+		}
+	}
+
 	public void setSchemaVersion(int version) {
 		this.schemaVersion = version;
 	}
@@ -170,47 +235,166 @@ public class RobotSuiteResult extends RobotTestObject {
 	public void addCaseResult(RobotCaseResult caseResult) {
 		if(caseResults == null)
 			this.caseResults = new HashMap<>();
-		int i = 1;
-		String originalName = caseResult.getName();
-		String checkedTestName = originalName;
-		while(caseResults.get(checkedTestName) != null){
-		    checkedTestName = originalName + "_" + i;
-		    i++;
+		String checkedTestName = caseResult.getName();
+		if(caseResults.get(checkedTestName) != null){
+			if(caseSuffixes == null)
+				caseSuffixes = new HashMap<>();
+			checkedTestName = nextDuplicateSafeName(caseResults, caseSuffixes, checkedTestName);
 		}
 		caseResult.setDuplicateSafeName(checkedTestName);
 		caseResults.put(caseResult.getDuplicateSafeName(), caseResult);
 	}
 
+	/**
+	 * Replace a case result with a later result of the same test, like rebot
+	 * --merge does with the result of a rerun. The later result takes the
+	 * place of the earlier one and records its status in its merge history.
+	 * @param earlier case result of this suite to replace
+	 * @param caseResult later result of the test
+	 */
+	public void replaceCaseResult(RobotCaseResult earlier, RobotCaseResult caseResult) {
+		caseResult.addMergeHistory(earlier);
+		caseResult.setDuplicateSafeName(earlier.getDuplicateSafeName());
+		caseResults.put(earlier.getDuplicateSafeName(), caseResult);
+	}
+
+	/**
+	 * Combine a suite of the same name run by another pabot process into
+	 * this suite. Child suites of the same name are combined too, and the
+	 * times are widened to cover both suites. Each process numbers its suites
+	 * and cases from 1, so the suites and cases moved here are renumbered
+	 * after the ones already here. The other suite is not usable after this.
+	 * @param other suite to combine into this one
+	 */
+	void combine(RobotSuiteResult other) {
+		if (start != 0 && other.start != 0) {
+			long end = Math.max(start + elapsed, other.start + other.elapsed);
+			start = Math.min(start, other.start);
+			elapsed = end - start;
+		} else {
+			if (start == 0)
+				start = other.start;
+			elapsed = Math.max(elapsed, other.elapsed);
+		}
+		if (StringUtils.isEmpty(description))
+			description = other.description;
+		String id = getId();
+		int nextSuite = nextIndex(id + "-s", getChildSuites());
+		for (RobotSuiteResult child : new ArrayList<>(other.getChildSuites())) {
+			RobotSuiteResult existing = getSuite(child.getName());
+			if (existing != null) {
+				existing.combine(child);
+			} else {
+				child.setParent(this);
+				addChild(child);
+				if (!id.isEmpty())
+					child.renumber(id + "-s" + nextSuite++);
+			}
+		}
+		int nextCase = nextIndex(id + "-t", getUnsortedCaseResults());
+		for (RobotCaseResult caseResult : new ArrayList<>(other.getUnsortedCaseResults())) {
+			caseResult.setParent(this);
+			if (!id.isEmpty())
+				caseResult.setId(id + "-t" + nextCase++);
+			addCaseResult(caseResult);
+		}
+	}
+
+	/**
+	 * Change the id of this suite, and the ids of the suites and cases in it
+	 * that start with the old id
+	 * @param id new id
+	 */
+	void renumber(String id) {
+		String old = getId() + "-";
+		if (old.equals(id + "-"))
+			return;
+		setId(id);
+		if (old.length() == 1)
+			return;
+		for (RobotSuiteResult child : getChildSuites())
+			if (child.getId().startsWith(old))
+				child.renumber(id + child.getId().substring(old.length() - 1));
+		// ids of the form <suite id>-t<n> follow the suite already
+		for (RobotCaseResult caseResult : getUnsortedCaseResults())
+			if (caseResult.getId().startsWith(old))
+				caseResult.setId(id + caseResult.getId().substring(old.length() - 1));
+	}
+
+	/**
+	 * @param prefix prefix of the ids, e.g. "s1-s"
+	 * @param objects suites or cases
+	 * @return number after the largest of the ids of the form prefix + number
+	 */
+	static int nextIndex(String prefix, Collection<? extends RobotTestObject> objects) {
+		int max = 0;
+		for (RobotTestObject object : objects) {
+			String id = object.getId();
+			if (id.length() > prefix.length() && id.length() - prefix.length() < 10 && id.startsWith(prefix)
+					&& id.chars().skip(prefix.length()).allMatch(c -> c >= '0' && c <= '9'))
+				max = Math.max(max, Integer.parseInt(id.substring(prefix.length())));
+		}
+		return max + 1;
+	}
+
+	/**
+	 * Add a case result under the duplicate safe name it already has
+	 * @param caseResult case to add
+	 */
+	void putCaseResult(RobotCaseResult caseResult) {
+		if(caseResults == null)
+			this.caseResults = new HashMap<>();
+		caseResults.put(caseResult.getDuplicateSafeName(), caseResult);
+	}
+
+	/**
+	 * Set the elapsed time. Robot Framework 7 gives it in seconds and older
+	 * versions in milliseconds, so schema version must be set first.
+	 * @param elapsedTime elapsed time as in the output file
+	 */
 	public void setElapsedTime(String elapsedTime) {
-		this.elapsedTime = elapsedTime;
+		this.elapsed = 0;
+		if (StringUtils.isEmpty(elapsedTime))
+			return;
+		try {
+			this.elapsed = schemaVersion >= 5 ? RobotTimestamp.parseSeconds(elapsedTime) : Long.parseLong(elapsedTime) * 1000;
+		} catch (NumberFormatException e) {
+			LOGGER.warn("Couldn't parse duration for suite " + name);
+		}
 	}
 
 	public void setStartTime(String startTime){
-		this.startTime = startTime;
+		this.start = RobotTimestamp.parse(startTime);
 	}
 
+	/**
+	 * Set the end time. Elapsed time is calculated from start and end time if
+	 * it was not given, so start time must be set first.
+	 * @param endTime end time as in the output file
+	 */
 	public void setEndTime(String endTime){
-		this.endTime = endTime;
+		if (elapsed != 0 || StringUtils.isEmpty(endTime))
+			return;
+		long end = RobotTimestamp.parse(endTime);
+		if (start != 0 && end != 0)
+			this.elapsed = end - start;
+		else
+			LOGGER.warn("Couldn't parse duration for suite " + name);
+	}
+
+	/**
+	 * Get the start time
+	 * @return start time as microseconds since epoch, 0 if not known
+	 */
+	public long getStartMicros() {
+		return start;
 	}
 
 	@Override
 	public long getDuration() {
-		if (schemaVersion >= 5) {
-			double d = Double.parseDouble(this.elapsedTime) * 1000;
-			return Double.valueOf(d).longValue();
-		}
-		if (StringUtils.isNotEmpty(this.elapsedTime)) {
-			return Long.parseLong(this.elapsedTime);
-		} else if (StringUtils.isEmpty(this.startTime) || StringUtils.isEmpty(this.endTime)) {
-			return duration;
-		}
-
-		try{
-			return RobotCaseResult.timeDifference(this.startTime, this.endTime);
-		} catch (ParseException e){
-			LOGGER.warn("Couldn't parse duration for suite " + name);
-			return 0;
-		}
+		if (elapsed != 0)
+			return elapsed / 1000; // convert microseconds to milliseconds
+		return duration;
 	}
 
 	public String getDisplayName() {
@@ -364,7 +548,8 @@ public class RobotSuiteResult extends RobotTestObject {
 	}
 
 	/**
-	 * Count total values from children and set same parentaction to all
+	 * Count total values from children and set same parentaction to all.
+	 * Child suites of large trees are tallied in parallel.
 	 * @param parentAction Common parent action
 	 */
 	public void tally(RobotBuildAction parentAction) {
@@ -374,8 +559,9 @@ public class RobotSuiteResult extends RobotTestObject {
 		skipped = 0;
 		duration = 0;
 
-		HashMap<String, RobotCaseResult> newCases = new HashMap<>();
-		for(RobotCaseResult caseResult : getCaseResults()) {
+		if(caseResults == null)
+			caseResults = new HashMap<>();
+		for(RobotCaseResult caseResult : caseResults.values()) {
 			if(caseResult.isPassed()) {
 				passed++;
 			} else if(caseResult.isSkipped()) {
@@ -385,20 +571,74 @@ public class RobotSuiteResult extends RobotTestObject {
 			}
 			duration += caseResult.getDuration();
 			caseResult.setParentAction(parentAction);
-			newCases.put(caseResult.getDuplicateSafeName(), caseResult);
 		}
-		caseResults = newCases;
+		caseResults = duplicateSafeMap(caseResults);
 
-		HashMap<String, RobotSuiteResult> newSuites = new HashMap<>();
-		for (RobotSuiteResult suite : getChildSuites()) {
-			suite.tally(parentAction);
+		passed += omittedPassed;
+		duration += omittedDuration;
+
+		if(children == null)
+			children = new HashMap<>();
+		tallyAll(children.values(), parentAction);
+		for (RobotSuiteResult suite : children.values()) {
 			failed += suite.getFailed();
 			passed += suite.getPassed();
 			skipped += suite.getSkipped();
 			duration += suite.getDuration();
-			newSuites.put(suite.getDuplicateSafeName(), suite);
 		}
-		children = newSuites;
+		children = duplicateSafeMap(children);
+	}
+
+	/**
+	 * Count a case added after tallying in this suite and the suites above it
+	 * @param caseResult case added to this suite
+	 */
+	void countAddedCase(RobotCaseResult caseResult) {
+		for (RobotTestObject object = this; object instanceof RobotSuiteResult suite; object = suite.getParent()) {
+			if (caseResult.isPassed())
+				suite.passed++;
+			else if (caseResult.isSkipped())
+				suite.skipped++;
+			else
+				suite.failed++;
+			suite.duration += caseResult.getDuration();
+		}
+	}
+
+	/**
+	 * Tally suites. Suites are tallied in parallel when there are more than
+	 * one and they have at least {@link #PARALLEL_TALLY_THRESHOLD} cases.
+	 * @param suites suites to tally
+	 * @param parentAction Common parent action
+	 */
+	static void tallyAll(Collection<RobotSuiteResult> suites, RobotBuildAction parentAction) {
+		if (suites.size() > 1 && countCases(suites, PARALLEL_TALLY_THRESHOLD) >= PARALLEL_TALLY_THRESHOLD) {
+			List<ForkJoinTask<?>> tasks = new ArrayList<>(suites.size());
+			for (RobotSuiteResult suite : suites)
+				tasks.add(ForkJoinTask.adapt(() -> suite.tally(parentAction)));
+			ForkJoinTask.invokeAll(tasks);
+		} else {
+			for (RobotSuiteResult suite : suites)
+				suite.tally(parentAction);
+		}
+	}
+
+	/**
+	 * Count cases in suites and their children, stopping at limit
+	 * @param suites suites to count
+	 * @param limit count to stop at
+	 * @return number of cases, at most limit if counting stopped
+	 */
+	private static int countCases(Collection<RobotSuiteResult> suites, int limit) {
+		int count = 0;
+		for (RobotSuiteResult suite : suites) {
+			if (count >= limit)
+				break;
+			if (suite.caseResults != null)
+				count += suite.caseResults.size();
+			count += countCases(suite.getChildSuites(), limit - count);
+		}
+		return count;
 	}
 
 	/**
@@ -436,4 +676,56 @@ public class RobotSuiteResult extends RobotTestObject {
 			caseResults.putIfAbsent(caseResult.getDuplicateSafeName(), caseResult);
 		}
 	}
+
+	@Override
+	void writeTo(RobotWireFormat.Output out) throws IOException {
+		super.writeTo(out);
+		out.writeString(name);
+		out.writeString(description);
+		out.writeLong(start);
+		out.writeLong(elapsed);
+		out.writeInt(failed);
+		out.writeInt(passed);
+		out.writeInt(skipped);
+		out.writeLong(duration);
+		out.writeInt(omittedPassed);
+		out.writeLong(omittedDuration);
+		out.writeInt(schemaVersion);
+	}
+
+	@Override
+	void readFrom(RobotWireFormat.Input in) throws IOException {
+		super.readFrom(in);
+		name = in.readString();
+		description = in.readString();
+		start = in.readLong();
+		elapsed = in.readLong();
+		failed = in.readInt();
+		passed = in.readInt();
+		skipped = in.readInt();
+		duration = in.readLong();
+		omittedPassed = in.readInt();
+		omittedDuration = in.readLong();
+		schemaVersion = in.readInt();
+	}
+
+	/**
+	 * Convert times of results saved by older versions.
+	 * @return this suite
+	 */
+	@Serial
+	private Object readResolve() {
+		if (elapsedTime != null || startTime != null || endTime != null) {
+			String elapsedText = elapsedTime;
+			String startText = startTime;
+			String endText = endTime;
+			elapsedTime = null;
+			startTime = null;
+			endTime = null;
+			setElapsedTime(elapsedText);
+			setStartTime(startText);
+			setEndTime(endText);
+		}
+		return this;
+	}
 }
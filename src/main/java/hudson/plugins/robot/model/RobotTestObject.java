@@ -28,6 +28,9 @@ import java.io.IOException;
 import java.io.Serial;
 import java.io.Serializable;
 import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.time.DurationFormatUtils;
@@ -42,6 +45,8 @@ public abstract class RobotTestObject extends AbstractModelObject implements Ser
 	private transient RobotBuildAction parentAction;
 
 	public RobotBuildAction getParentAction() {
+		if (parentAction == null && getParent() != null)
+			return getParent().getParentAction();
 		return parentAction;
 	}
 
@@ -56,7 +61,6 @@ public abstract class RobotTestObject extends AbstractModelObject implements Ser
 	public abstract  RobotTestObject getParent();
 
 	private String duplicateSafeName;
-	protected transient long duration;
 
 	private String logFile;
 	private String reportFile;
@@ -70,7 +74,14 @@ public abstract class RobotTestObject extends AbstractModelObject implements Ser
 		this.id = id;
 	}
 
+	/**
+	 * Get name of the log file. Objects without their own value share the
+	 * one of their parent.
+	 * @return log file name
+	 */
 	public String getLogFile() {
+		if (logFile == null && getParent() != null)
+			return getParent().getLogFile();
 		return logFile;
 	}
 
@@ -78,7 +89,14 @@ public abstract class RobotTestObject extends AbstractModelObject implements Ser
 		this.logFile = logFileName;
 	}
 
+	/**
+	 * Get name of the report file. Objects without their own value share the
+	 * one of their parent.
+	 * @return report file name
+	 */
 	public String getReportFile() {
+		if (reportFile == null && getParent() != null)
+			return getParent().getReportFile();
 		return reportFile;
 	}
 
@@ -87,11 +105,46 @@ public abstract class RobotTestObject extends AbstractModelObject implements Ser
 	}
 
 	public boolean getHasLog() {
-		return this.logFile != null && !this.logFile.isEmpty();
+		String logFile = getLogFile();
+		return logFile != null && !logFile.isEmpty();
 	}
 
 	public boolean getHasReport() {
-		return this.reportFile != null && !this.reportFile.isEmpty();
+		String reportFile = getReportFile();
+		return reportFile != null && !reportFile.isEmpty();
+	}
+
+	/**
+	 * Write the fields of this object
+	 * @param out data to write to
+	 * @throws IOException if writing fails
+	 */
+	void writeTo(RobotWireFormat.Output out) throws IOException {
+		out.writeString(duplicateSafeName);
+		out.writeString(logFile);
+		out.writeString(reportFile);
+		out.writeString(id);
+	}
+
+	/**
+	 * Read the fields written by {@link #writeTo(RobotWireFormat.Output)}
+	 * @param in data to read from
+	 * @throws IOException if reading fails
+	 */
+	void readFrom(RobotWireFormat.Input in) throws IOException {
+		duplicateSafeName = in.readString();
+		logFile = in.readString();
+		reportFile = in.readString();
+		id = in.readString();
+	}
+
+	/**
+	 * Get the result this object belongs to
+	 * @return result, null if this object is not attached to a result
+	 */
+	protected RobotResult getRobotResult() {
+		RobotTestObject parent = getParent();
+		return parent != null ? parent.getRobotResult() : null;
 	}
 
 	/**
@@ -180,6 +233,45 @@ public abstract class RobotTestObject extends AbstractModelObject implements Ser
 		duplicateSafeName = name;
 	}
 
+	/**
+	 * Get a name for a duplicate in a map keyed by duplicate safe names.
+	 * Duplicates get the first free suffix _1, _2 and so on. Suffixes already
+	 * found taken are not probed again, so adding many objects with the same
+	 * name takes linear time.
+	 * @param objects objects by duplicate safe name
+	 * @param nextSuffixes next suffix to try by original name, updated
+	 * @param name original name that is taken in the map
+	 * @return name that is free in the map
+	 */
+	static String nextDuplicateSafeName(Map<String, ?> objects, Map<String, Integer> nextSuffixes, String name) {
+		int i = nextSuffixes.getOrDefault(name, 1);
+		String checkedName = name + "_" + i;
+		while(objects.get(checkedName) != null){
+			i++;
+			checkedName = name + "_" + i;
+		}
+		nextSuffixes.put(name, i + 1);
+		return checkedName;
+	}
+
+	/**
+	 * Get a map with objects keyed by their duplicate safe names. Results
+	 * saved by old versions may use other keys.
+	 * @param objects objects to check
+	 * @return objects if already keyed by duplicate safe names, otherwise a new map
+	 */
+	static <T extends RobotTestObject> Map<String, T> duplicateSafeMap(Map<String, T> objects) {
+		for (Map.Entry<String, T> entry : objects.entrySet()) {
+			if (!Objects.equals(entry.getKey(), entry.getValue().getDuplicateSafeName())) {
+				Map<String, T> newObjects = new HashMap<>(objects.size());
+				for (T object : objects.values())
+					newObjects.put(object.getDuplicateSafeName(), object);
+				return newObjects;
+			}
+		}
+		return objects;
+	}
+
 	/**
 	 * The name format used in case hashmap was changed in commit
 	 * 59c8eec3e16f28baf1288848fccbac228bbe4748, July 2013. This method allows
@@ -211,11 +303,12 @@ public abstract class RobotTestObject extends AbstractModelObject implements Ser
     }
 
 	/**
-	 * Get duration of this testobject run
+	 * Get duration of this testobject run. The subclasses keep the duration
+	 * themselves, so this is 0 unless overridden.
 	 * @return Duration of this testobject run
 	 */
 	public long getDuration() {
-		return duration;
+		return 0;
 	}
 
 	/**
@@ -258,7 +351,7 @@ public abstract class RobotTestObject extends AbstractModelObject implements Ser
 	public void doGraph(StaplerRequest2 req, StaplerResponse2 rsp)
 			throws IOException {
 		if(!isNeedToGenerate(req, rsp)) return;
-		String label = parentAction.getxAxisLabel();
+		String label = getParentAction().getxAxisLabel();
 		String labelFormat = StringUtils.isBlank(label) ? RobotConfig.getInstance().getXAxisLabelFormat() : label;
 		Graph g = RobotGraphHelper.createTestResultsGraphForTestObject(this,
 				Boolean.parseBoolean(req.getParameter("zoomSignificant")),
@@ -278,7 +371,7 @@ public abstract class RobotTestObject extends AbstractModelObject implements Ser
 	public void doDurationGraph(StaplerRequest2 req, StaplerResponse2 rsp)
 			throws IOException {
 		if(!isNeedToGenerate(req, rsp)) return;
-		String label = parentAction.getxAxisLabel();
+		String label = getParentAction().getxAxisLabel();
 		String labelFormat = StringUtils.isBlank(label) ? RobotConfig.getInstance().getXAxisLabelFormat() : label;
 		Graph g = RobotGraphHelper.createDurationGraphForTestObject(this,
 				req.hasParameter("hd"),
@@ -0,0 +1,193 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot.model;
+
+/**
+ * Timestamps of Robot Framework output files. Older outputs use format
+ * yyyyMMdd HH:mm:ss.SSS and Robot Framework 7 ISO 8601 with microseconds,
+ * e.g. 2023-11-13T15:33:07.168330. Times are handled as microseconds since
+ * epoch as if they were UTC. Parsing doesn't allocate, and a value that is
+ * parsed is always formatted back to the same text.
+ */
+public final class RobotTimestamp {
+
+	private static final long MICROS_PER_SECOND = 1_000_000;
+	private static final int SECONDS_PER_DAY = 86400;
+	private static final int[] POWERS_OF_TEN = {1, 10, 100, 1000, 10000, 100000};
+
+	private RobotTimestamp() {
+	}
+
+	/**
+	 * Parse a timestamp in either format
+	 * @param value timestamp from output file
+	 * @return microseconds since epoch, 0 if the value is not a valid timestamp
+	 */
+	public static long parse(String value) {
+		if (value == null)
+			return 0;
+		if (value.length() == 21 && value.charAt(8) == ' ')
+			return parseLegacy(value);
+		if ((value.length() == 19 || value.length() == 26) && value.charAt(4) == '-')
+			return parseIso(value);
+		return 0;
+	}
+
+	/**
+	 * Check if a timestamp is in the Robot Framework 7 format
+	 * @param value timestamp from output file
+	 * @return true for ISO 8601 timestamps
+	 */
+	public static boolean isIsoFormat(String value) {
+		return value != null && value.length() > 4 && value.charAt(4) == '-';
+	}
+
+	/**
+	 * Parse elapsed time given in seconds, e.g. 0.001748
+	 * @param value elapsed seconds
+	 * @return elapsed microseconds
+	 * @throws NumberFormatException if the value is not a number
+	 */
+	public static long parseSeconds(String value) {
+		int length = value.length();
+		int point = value.indexOf('.');
+		int wholeEnd = point < 0 ? length : point;
+		if (wholeEnd == 0 || wholeEnd > 12 || length - wholeEnd > 7)
+			return Math.round(Double.parseDouble(value) * MICROS_PER_SECOND);
+		long seconds = 0;
+		for (int i = 0; i < wholeEnd; i++) {
+			int digit = value.charAt(i) - '0';
+			if (digit < 0 || digit > 9)
+				return Math.round(Double.parseDouble(value) * MICROS_PER_SECOND);
+			seconds = seconds * 10 + digit;
+		}
+		long micros = 0;
+		for (int i = wholeEnd + 1; i < wholeEnd + 7; i++) {
+			int digit = i < length ? value.charAt(i) - '0' : 0;
+			if (digit < 0 || digit > 9)
+				return Math.round(Double.parseDouble(value) * MICROS_PER_SECOND);
+			micros = micros * 10 + digit;
+		}
+		return seconds * MICROS_PER_SECOND + micros;
+	}
+
+	/**
+	 * Format a timestamp
+	 * @param micros microseconds since epoch
+	 * @param isoFormat true for the Robot Framework 7 format
+	 * @return timestamp as it is in output files
+	 */
+	public static String format(long micros, boolean isoFormat) {
+		long seconds = Math.floorDiv(micros, MICROS_PER_SECOND);
+		int fraction = (int) Math.floorMod(micros, MICROS_PER_SECOND);
+		long days = Math.floorDiv(seconds, SECONDS_PER_DAY);
+		int secondOfDay = (int) Math.floorMod(seconds, SECONDS_PER_DAY);
+
+		// civil date from days since epoch, see http://howardhinnant.github.io/date_algorithms.html
+		long z = days + 719468;
+		long era = Math.floorDiv(z, 146097);
+		long dayOfEra = z - era * 146097;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long mp = (5 * dayOfYear + 2) / 153;
+		int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+		int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+		int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+		StringBuilder sb = new StringBuilder(26);
+		append(sb, year, 4);
+		if (isoFormat)
+			sb.append('-');
+		append(sb, month, 2);
+		if (isoFormat)
+			sb.append('-');
+		append(sb, day, 2);
+		sb.append(isoFormat ? 'T' : ' ');
+		append(sb, secondOfDay / 3600, 2);
+		sb.append(':');
+		append(sb, secondOfDay / 60 % 60, 2);
+		sb.append(':');
+		append(sb, secondOfDay % 60, 2);
+		if (!isoFormat) {
+			sb.append('.');
+			append(sb, fraction / 1000, 3);
+		} else if (fraction != 0) {
+			sb.append('.');
+			append(sb, fraction, 6);
+		}
+		return sb.toString();
+	}
+
+	private static long parseLegacy(String value) {
+		if (value.charAt(11) != ':' || value.charAt(14) != ':' || value.charAt(17) != '.')
+			return 0;
+		int millis = digits(value, 18, 3);
+		if (millis < 0)
+			return 0;
+		return toMicros(digits(value, 0, 4), digits(value, 4, 2), digits(value, 6, 2),
+				digits(value, 9, 2), digits(value, 12, 2), digits(value, 15, 2), millis * 1000);
+	}
+
+	private static long parseIso(String value) {
+		if (value.charAt(7) != '-' || value.charAt(10) != 'T' || value.charAt(13) != ':' || value.charAt(16) != ':')
+			return 0;
+		int micros = 0;
+		if (value.length() == 26) {
+			micros = value.charAt(19) == '.' ? digits(value, 20, 6) : -1;
+			// a zero fraction is left out in the output files
+			if (micros <= 0)
+				return 0;
+		}
+		return toMicros(digits(value, 0, 4), digits(value, 5, 2), digits(value, 8, 2),
+				digits(value, 11, 2), digits(value, 14, 2), digits(value, 17, 2), micros);
+	}
+
+	private static long toMicros(int year, int month, int day, int hour, int minute, int second, int micros) {
+		if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+				|| hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59)
+			return 0;
+		// days since epoch from civil date, see http://howardhinnant.github.io/date_algorithms.html
+		int y = month <= 2 ? year - 1 : year;
+		long era = Math.floorDiv(y, 400);
+		long yearOfEra = y - era * 400;
+		long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		long days = era * 146097 + dayOfEra - 719468;
+		return (days * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second) * MICROS_PER_SECOND + micros;
+	}
+
+	private static int daysInMonth(int year, int month) {
+		if (month == 2)
+			return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28;
+		return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+	}
+
+	private static int digits(String value, int from, int count) {
+		int result = 0;
+		for (int i = from; i < from + count; i++) {
+			int digit = value.charAt(i) - '0';
+			if (digit < 0 || digit > 9)
+				return -1;
+			result = result * 10 + digit;
+		}
+		return result;
+	}
+
+	private static void append(StringBuilder sb, int value, int width) {
+		for (int divisor = POWERS_OF_TEN[width - 1]; divisor > 0; divisor /= 10)
+			sb.append((char) ('0' + value / divisor % 10));
+	}
+}
@@ -0,0 +1,241 @@
+/*
+* Copyright 2008-2014 Nokia Solutions and Networks Oy
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package hudson.plugins.robot.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Flat encoding of a parsed result for sending it from agent to controller.
+ * Java serialization of the result tree recurses through the parent
+ * references and repeats class descriptions and field names. This format
+ * writes a table of suites and a table of cases, each row referring to its
+ * parent by index, so neither writing nor reading recurses. Strings are
+ * written once and referred to by index after that. Numbers are written as
+ * variable length integers.
+ */
+public final class RobotWireFormat {
+
+	private static final int MAGIC = 0x52425752; // RBWR
+	private static final int VERSION = 4;
+
+	private RobotWireFormat() {
+	}
+
+	/**
+	 * Write a result
+	 * @param result result to write
+	 * @param stream stream to write to, not closed
+	 * @throws IOException if writing fails
+	 */
+	public static void write(RobotResult result, OutputStream stream) throws IOException {
+		List<RobotSuiteResult> suites = new ArrayList<>();
+		List<Integer> parents = new ArrayList<>();
+		for (RobotSuiteResult suite : result.getSuites()) {
+			suites.add(suite);
+			parents.add(-1);
+		}
+		int caseCount = 0;
+		for (int i = 0; i < suites.size(); i++) {
+			for (RobotSuiteResult child : suites.get(i).getChildSuites()) {
+				suites.add(child);
+				parents.add(i);
+			}
+			caseCount += suites.get(i).getUnsortedCaseResults().size();
+		}
+
+		Output out = new Output(stream);
+		out.data.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		result.writeTo(out);
+		out.writeInt(suites.size());
+		for (int i = 0; i < suites.size(); i++) {
+			out.writeInt(parents.get(i));
+			suites.get(i).writeTo(out);
+		}
+		out.writeInt(caseCount);
+		for (int i = 0; i < suites.size(); i++) {
+			for (RobotCaseResult caseResult : suites.get(i).getUnsortedCaseResults()) {
+				out.writeInt(i);
+				caseResult.writeTo(out);
+			}
+		}
+		out.data.flush();
+	}
+
+	/**
+	 * Read a result written by {@link #write(RobotResult, OutputStream)}
+	 * @param stream stream to read from, not closed
+	 * @return result
+	 * @throws IOException if reading fails or the data is not in this format
+	 */
+	public static RobotResult read(InputStream stream) throws IOException {
+		Input in = new Input(stream);
+		if (in.data.readInt() != MAGIC)
+			throw new StreamCorruptedException("Not a Robot result");
+		int version = in.readInt();
+		if (version != VERSION)
+			throw new StreamCorruptedException("Unsupported Robot result version " + version);
+
+		RobotResult result = new RobotResult();
+		result.readFrom(in);
+		RobotSuiteResult[] suites = new RobotSuiteResult[in.readCount()];
+		for (int i = 0; i < suites.length; i++) {
+			int parent = in.readInt();
+			if (parent >= i)
+				throw new StreamCorruptedException("Suite " + i + " refers to parent " + parent);
+			RobotSuiteResult suite = new RobotSuiteResult();
+			suite.readFrom(in);
+			if (parent < 0) {
+				suite.setParent(result);
+				result.putSuite(suite);
+			} else {
+				suite.setParent(suites[parent]);
+				suites[parent].putChild(suite);
+			}
+			suites[i] = suite;
+		}
+		int caseCount = in.readCount();
+		for (int i = 0; i < caseCount; i++) {
+			int parent = in.readInt();
+			if (parent < 0 || parent >= suites.length)
+				throw new StreamCorruptedException("Case " + i + " refers to suite " + parent);
+			RobotCaseResult caseResult = new RobotCaseResult();
+			caseResult.setParent(suites[parent]);
+			caseResult.readFrom(in);
+			suites[parent].putCaseResult(caseResult);
+		}
+		return result;
+	}
+
+	/**
+	 * Encoded data being written
+	 */
+	static final class Output {
+
+		private final DataOutputStream data;
+		private final Map<String, Integer> strings = new HashMap<>();
+
+		private Output(OutputStream stream) {
+			this.data = new DataOutputStream(new BufferedOutputStream(stream));
+		}
+
+		void writeByte(int value) throws IOException {
+			data.writeByte(value);
+		}
+
+		void writeInt(int value) throws IOException {
+			writeLong(value);
+		}
+
+		void writeLong(long value) throws IOException {
+			long zigzag = (value << 1) ^ (value >> 63);
+			while ((zigzag & ~0x7FL) != 0) {
+				data.writeByte((int) (zigzag & 0x7F) | 0x80);
+				zigzag >>>= 7;
+			}
+			data.writeByte((int) zigzag);
+		}
+
+		/**
+		 * Write a string. A string already written is written as its index.
+		 * @param value string to write, may be null
+		 * @throws IOException if writing fails
+		 */
+		void writeString(String value) throws IOException {
+			if (value == null) {
+				writeInt(0);
+				return;
+			}
+			Integer index = strings.get(value);
+			if (index != null) {
+				writeInt(index + 2);
+				return;
+			}
+			strings.put(value, strings.size());
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			writeInt(1);
+			writeInt(bytes.length);
+			data.write(bytes);
+		}
+	}
+
+	/**
+	 * Encoded data being read
+	 */
+	static final class Input {
+
+		private final DataInputStream data;
+		private final List<String> strings = new ArrayList<>();
+
+		private Input(InputStream stream) {
+			this.data = new DataInputStream(new BufferedInputStream(stream));
+		}
+
+		byte readByte() throws IOException {
+			return data.readByte();
+		}
+
+		int readInt() throws IOException {
+			return (int) readLong();
+		}
+
+		int readCount() throws IOException {
+			int count = readInt();
+			if (count < 0)
+				throw new StreamCorruptedException("Negative count " + count);
+			return count;
+		}
+
+		long readLong() throws IOException {
+			long zigzag = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				int b = data.readUnsignedByte();
+				zigzag |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0)
+					return (zigzag >>> 1) ^ -(zigzag & 1);
+			}
+			throw new StreamCorruptedException("Malformed number");
+		}
+
+		String readString() throws IOException {
+			int code = readInt();
+			if (code == 0)
+				return null;
+			if (code == 1) {
+				byte[] bytes = new byte[readCount()];
+				data.readFully(bytes);
+				String value = new String(bytes, StandardCharsets.UTF_8);
+				strings.add(value);
+				return value;
+			}
+			if (code < 0 || code - 2 >= strings.size())
+				throw new StreamCorruptedException("Unknown string " + code);
+			return strings.get(code - 2);
+		}
+	}
+}
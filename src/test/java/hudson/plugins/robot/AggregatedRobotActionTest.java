@@ -0,0 +1,80 @@
+/*
+ * Copyright 2008-2014 Nokia Solutions and Networks Oy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package hudson.plugins.robot;
+
+import hudson.plugins.robot.AggregatedRobotAction.AggregatedRobotResult;
+import hudson.plugins.robot.AggregatedRobotAction.AxisValueResult;
+import hudson.plugins.robot.AggregatedRobotAction.ConfigurationResult;
+import hudson.plugins.robot.AggregatedRobotAction.SuiteSummary;
+import hudson.plugins.robot.model.RobotResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AggregatedRobotActionTest {
+
+    @Test
+    void shouldSummarizeFailedSuitesOfConfiguration() throws Exception {
+        RobotParser.RobotParserCallable remoteOperation = new RobotParser.RobotParserCallable("output.xml", null, null);
+        RobotResult result = remoteOperation.invoke(new File(getClass().getResource("/hudson/plugins/robot/model/output.xml").toURI()).getParentFile(), null);
+        result.tally(null);
+
+        ConfigurationResult configuration = ConfigurationResult.of("os=linux", Map.of("os", "linux"), "job/matrix/os=linux/1/", result);
+
+        assertEquals(result.getOverallFailed(), configuration.getFailed());
+        assertEquals(result.getOverallTotal(), configuration.getTotal());
+        assertTrue(configuration.getFailed() > 0);
+        int failedInSuites = 0;
+        for (SuiteSummary suite : configuration.getFailedSuites()) {
+            assertTrue(suite.getFailed() > 0);
+            // ids are url encoded
+            String id = URLDecoder.decode(suite.getId(), StandardCharsets.UTF_8);
+            assertTrue((id.contains("/") ? result.findObjectById(id) : result.getSuite(id)) != null, id);
+            failedInSuites += suite.getFailed();
+        }
+        assertEquals(configuration.getFailed(), failedInSuites);
+    }
+
+    @Test
+    void shouldTallyConfigurationsByAxis() {
+        AggregatedRobotResult result = new AggregatedRobotResult(null);
+        result.addConfiguration(new ConfigurationResult("os=linux,jdk=17", Map.of("os", "linux", "jdk", "17"), "a/", 8, 2, 0, 100));
+        result.addConfiguration(new ConfigurationResult("os=linux,jdk=21", Map.of("os", "linux", "jdk", "21"), "b/", 10, 0, 1, 100));
+        result.addConfiguration(new ConfigurationResult("os=windows,jdk=17", Map.of("os", "windows", "jdk", "17"), "c/", 7, 3, 0, 100));
+
+        assertEquals(25, result.getOverallPassed());
+        assertEquals(5, result.getOverallFailed());
+        assertEquals(1, result.getOverallSkipped());
+        assertEquals(2, result.getFailedConfigurations().size());
+
+        List<AxisValueResult> os = result.getAxes().get("os");
+        assertEquals(2, os.size());
+        AxisValueResult linux = os.stream().filter(v -> v.getValue().equals("linux")).findFirst().orElseThrow();
+        assertEquals(2, linux.getConfigurations());
+        assertEquals(1, linux.getFailedConfigurations());
+        assertEquals(21, linux.getTotal());
+        AxisValueResult jdk17 = result.getAxes().get("jdk").stream().filter(v -> v.getValue().equals("17")).findFirst().orElseThrow();
+        assertEquals(5, jdk17.getFailed());
+        assertEquals(2, jdk17.getFailedConfigurations());
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2008-2014 Nokia Solutions and Networks Oy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package hudson.plugins.robot;
+
+import hudson.FilePath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RobotBlobStoreTest {
+
+    private File tmp;
+    private RobotBlobStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        tmp = Files.createTempDirectory("robot_blobs").toFile();
+        tmp.deleteOnExit();
+        store = new RobotBlobStore(new File(tmp, RobotBlobStore.DIR_NAME));
+    }
+
+    @Test
+    void shouldHashContent() throws Exception {
+        File file = new File(tmp, "file.txt");
+        Files.writeString(file.toPath(), "abc");
+
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", RobotBlobStore.hash(file.toPath()));
+    }
+
+    @Test
+    void shouldKeepFilesUsedByBuilds() throws Exception {
+        File blob = storeBlob("ab12");
+        File build = new File(tmp, "1");
+        link(blob, new File(build, "log-1.js"));
+
+        assertEquals(0, store.collectGarbage());
+        assertTrue(blob.exists());
+    }
+
+    @Test
+    void shouldRemoveFilesOfDeletedBuilds() throws Exception {
+        File shared = storeBlob("ab12");
+        File own = storeBlob("cd34");
+        File first = new File(tmp, "1");
+        File second = new File(tmp, "2");
+        link(shared, new File(first, "log-1.js"));
+        link(shared, new File(second, "log-1.js"));
+        link(own, new File(second, "sub/log-2.js"));
+
+        assertEquals(1, store.collectGarbage(RobotBlobStore.getFileKeys(second)));
+        assertTrue(shared.exists());
+        assertFalse(own.exists());
+    }
+
+    @Test
+    void shouldRejectEntriesLeadingOutOfTheBuild() throws Exception {
+        File build = new File(tmp, "1");
+        String hash = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+        FilePath workspace = new FilePath(new File(tmp, "workspace"));
+        for (String path : new String[]{"../../config.xml", "/etc/passwd", "sub/../../x", ""}) {
+            List<RobotBlobStore.Entry> entries = List.of(new RobotBlobStore.Entry(path, hash));
+            assertThrows(IOException.class, () -> store.archive(workspace, entries, build, false));
+        }
+        for (String bad : new String[]{"../../../../config", hash.toUpperCase(), hash.substring(1), null}) {
+            List<RobotBlobStore.Entry> entries = List.of(new RobotBlobStore.Entry("log.html", bad));
+            assertThrows(IOException.class, () -> store.archive(workspace, entries, build, false));
+        }
+        assertFalse(build.exists());
+        assertFalse(new File(tmp, "config.xml").exists());
+
+        assertEquals(new File(build, "sub/log.html").getAbsoluteFile(), RobotBlobStore.resolveInside(build, "sub/./log.html"));
+    }
+
+    private File storeBlob(String name) throws Exception {
+        File blob = store.getBlob(name);
+        Files.createDirectories(blob.getParentFile().toPath());
+        Files.writeString(blob.toPath(), name);
+        return blob;
+    }
+
+    private static void link(File blob, File dest) throws Exception {
+        Files.createDirectories(dest.getParentFile().toPath());
+        Files.createLink(dest.toPath(), blob.toPath());
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2008-2014 Nokia Solutions and Networks Oy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package hudson.plugins.robot;
+
+import hudson.model.FreeStyleBuild;
+import hudson.plugins.robot.model.RobotCaseResult;
+import hudson.plugins.robot.model.RobotResult;
+import hudson.plugins.robot.model.RobotSuiteResult;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.GregorianCalendar;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RobotBuildActionTest {
+
+    @Test
+    void shouldRenderGraphsOfPersistedResult() throws Exception {
+        FreeStyleBuild build = mock(FreeStyleBuild.class);
+        when(build.getRootDir()).thenReturn(Files.createTempDirectory("robot-action").toFile());
+        when(build.getTimestamp()).thenReturn(new GregorianCalendar());
+        File directory = new File(RobotBuildActionTest.class.getResource("robot4_output.xml").toURI()).getParentFile();
+        RobotResult parsed = new RobotParser.RobotParserCallable("robot4_output.xml", null, null).invoke(directory, null);
+        RobotBuildAction action = new RobotBuildAction(build, parsed, "", null, null, null, false, "#$build", false, false);
+        action.waitForSave();
+
+        // loaded from disk with the totals saved, so not tallied again
+        RobotResult loaded = action.getResult();
+        assertNotSame(parsed, loaded);
+        RobotSuiteResult suite = loaded.getAllSuites().get(0);
+        RobotCaseResult caseResult = loaded.getAllCases().get(0);
+        assertSame(action, suite.getParentAction());
+        assertSame(action, caseResult.getParentAction());
+
+        suite.doGraph(request(), response());
+        caseResult.doDurationGraph(request(), response());
+    }
+
+    @Test
+    void shouldHoldPublishCapacityUntilSaved() throws Exception {
+        FreeStyleBuild build = mock(FreeStyleBuild.class);
+        when(build.getRootDir()).thenReturn(Files.createTempDirectory("robot-action").toFile());
+        File directory = new File(RobotBuildActionTest.class.getResource("robot4_output.xml").toURI()).getParentFile();
+        RobotResult parsed = new RobotParser.RobotParserCallable("robot4_output.xml", null, null).invoke(directory, null);
+        RobotPublishLimiter limiter = new RobotPublishLimiter(() -> 100);
+        RobotPublishLimiter.Permit permit = limiter.acquire(40, null);
+
+        // keep the writer busy so the save waits in its queue
+        CountDownLatch writerBusy = new CountDownLatch(1);
+        RobotResultWriter.get().submit(() -> {
+            try {
+                writerBusy.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        RobotBuildAction action = new RobotBuildAction(build, parsed, "", null, null, null, false, "#$build", false, false);
+        action.closeWhenSaved(permit);
+        assertEquals(40, limiter.getInUse());
+
+        writerBusy.countDown();
+        action.waitForSave();
+        assertEquals(0, limiter.getInUse());
+        assertTrue(new File(build.getRootDir(), "robot_results.xml").exists());
+
+        // nothing pending, so closed at once
+        RobotPublishLimiter.Permit next = limiter.acquire(10, null);
+        action.closeWhenSaved(next);
+        assertEquals(0, limiter.getInUse());
+    }
+
+    @Test
+    void shouldNotLoadResultsNotSavedCompletely() throws Exception {
+        FreeStyleBuild build = mock(FreeStyleBuild.class);
+        File root = Files.createTempDirectory("robot-action").toFile();
+        when(build.getRootDir()).thenReturn(root);
+        File directory = new File(RobotBuildActionTest.class.getResource("robot4_output.xml").toURI()).getParentFile();
+        RobotResult parsed = new RobotParser.RobotParserCallable("robot4_output.xml", null, null).invoke(directory, null);
+        File pending = new File(root, RobotBuildAction.PENDING_SAVE_FILE);
+
+        CountDownLatch writerBusy = new CountDownLatch(1);
+        RobotResultWriter.get().submit(() -> {
+            try {
+                writerBusy.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        RobotBuildAction action = new RobotBuildAction(build, parsed, "", null, null, null, false, "#$build", false, false);
+        assertTrue(pending.exists());
+        writerBusy.countDown();
+        action.waitForSave();
+        assertFalse(pending.exists());
+        assertEquals(parsed.getOverallTotal(), action.getTotalCount());
+
+        // a later save lost in a restart
+        Files.createFile(pending.toPath());
+        assertNull(action.getResult());
+        assertEquals(0, action.getTotalCount());
+        assertEquals(0, action.getFailCount());
+        assertEquals(0, action.getOverallPassPercentage());
+        assertTrue(action.getAllTests().isEmpty());
+        assertNull(action.findObjectById("Robot4"));
+        assertThrows(IOException.class, action::migrateResult);
+    }
+
+    @Test
+    void shouldMoveLegacyDetailsOutOfCasesWhenMigrating() throws Exception {
+        FreeStyleBuild build = mock(FreeStyleBuild.class);
+        File root = Files.createTempDirectory("robot-action").toFile();
+        when(build.getRootDir()).thenReturn(root);
+        RobotBuildAction action = new RobotBuildAction(build, new RobotResult(), "", null, null, null, false, "#$build", false, false);
+        action.waitForSave();
+        File legacy = new File(RobotBuildActionTest.class.getResource("legacy/robot_results.xml").toURI());
+        Files.copy(legacy.toPath(), action.getResultFile().toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        action.migrateResult();
+
+        String saved = Files.readString(action.getResultFile().toPath());
+        for (String field : new String[]{"<errorMsg>", "<stackTrace>", "<starttime>", "<endtime>", "<elapsedtime>"})
+            assertFalse(saved.contains(field), field);
+        assertTrue(new File(root, RobotResult.STACK_TRACE_FILE).exists());
+
+        RobotSuiteResult suite = action.getResult().getSuite("Testcases");
+        RobotCaseResult failer = suite.getCase("Failer");
+        assertEquals("Test failed miserably!", failer.getErrorMsg());
+        assertEquals("Fail    Test failed miserably!", failer.getStackTrace());
+        assertEquals("20100728 14:49:36.762", failer.getStarttime());
+        assertEquals(3, failer.getDuration());
+        RobotCaseResult notRun = suite.getCase("Not run");
+        assertEquals("Not run", notRun.getErrorMsg());
+        assertEquals(0, notRun.getDuration());
+        assertEquals(1, suite.getCase("Hello").getDuration());
+        assertEquals(2, action.getResult().getOverallFailed());
+    }
+
+    @Test
+    void shouldReadDurationsWithoutLoadingTheResult() throws Exception {
+        FreeStyleBuild build = mock(FreeStyleBuild.class);
+        when(build.getRootDir()).thenReturn(Files.createTempDirectory("robot-action").toFile());
+        File directory = new File(RobotBuildActionTest.class.getResource("robot4_output.xml").toURI()).getParentFile();
+        RobotResult parsed = new RobotParser.RobotParserCallable("robot4_output.xml", null, null).invoke(directory, null);
+        RobotBuildAction action = new RobotBuildAction(build, parsed, "", null, null, null, false, "#$build", false, false);
+        action.waitForSave();
+
+        // planning reads the file written with the result
+        Files.delete(action.getResultFile().toPath());
+        RobotDurationIndex index = action.getDurationIndex();
+        assertEquals(parsed.getAllCases().size(), index.getDurations(true).size());
+    }
+
+    private static StaplerRequest2 request() {
+        StaplerRequest2 req = mock(StaplerRequest2.class);
+        when(req.getParameter("maxBuildsToShow")).thenReturn("0");
+        return req;
+    }
+
+    private static StaplerResponse2 response() throws Exception {
+        StaplerResponse2 rsp = mock(StaplerResponse2.class);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        when(rsp.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                bytes.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+        });
+        return rsp;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2008-2014 Nokia Solutions and Networks Oy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package hudson.plugins.robot;
+
+import hudson.plugins.robot.model.RobotResult;
+import hudson.plugins.robot.model.RobotSuiteResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class RobotDurationIndexTest {
+
+    @Test
+    void shouldHaveTheDurationsOfTheResult() throws Exception {
+        RobotResult result = parse("robot4_output.xml");
+        RobotDurationIndex index = RobotDurationIndex.of(result);
+
+        assertEquals(result.getAllCases().size(), index.getDurations(true).size());
+        long suitesWithTests = result.getAllSuites().stream().filter(s -> !s.getCaseResults().isEmpty()).count();
+        assertEquals(suitesWithTests, index.getDurations(false).size());
+        for (Map.Entry<String, Long> suite : index.getDurations(false)) {
+            RobotSuiteResult found = result.getAllSuites().stream()
+                    .filter(s -> RobotShardPlanner.getFullName(s).equals(suite.getKey())).findFirst().orElseThrow();
+            if (found.getChildSuites().isEmpty())
+                assertEquals(found.getDuration(), suite.getValue().longValue(), suite.getKey());
+        }
+    }
+
+    @Test
+    void shouldReadWhatWasWritten() throws Exception {
+        RobotDurationIndex index = RobotDurationIndex.of(parse("robot4_output.xml"));
+        File file = new File(Files.createTempDirectory("robot-durations").toFile(), RobotDurationIndex.FILE);
+        index.write(file);
+        RobotDurationIndex read = RobotDurationIndex.read(file);
+
+        assertEquals(index.getDurations(true), read.getDurations(true));
+        assertEquals(index.getDurations(false), read.getDurations(false));
+        assertFalse(new File(file.getParentFile(), RobotDurationIndex.FILE + ".tmp").exists());
+    }
+
+    private static RobotResult parse(String file) throws Exception {
+        File directory = new File(RobotDurationIndexTest.class.getResource(".").toURI());
+        RobotResult result = new RobotParser.RobotParserCallable(file, null, null).invoke(directory, null);
+        result.tally(null);
+        return result;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2008-2014 Nokia Solutions and Networks Oy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package hudson.plugins.robot;
+
+import hudson.plugins.robot.model.RobotResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RobotFailureIndexTest {
+
+    @Test
+    void shouldListTheFailedCasesOfTheResult() throws Exception {
+        RobotResult result = parse("robot4_output.xml");
+        RobotFailureIndex index = RobotFailureIndex.of(result);
+
+        List<String> expected = result.getAllFailedCases().stream()
+                .map(c -> c.getRelativePackageName(result))
+                .sorted()
+                .collect(Collectors.toList());
+        assertTrue(index.getCount() > 0);
+        assertEquals(result.getOverallFailed(), index.getCount());
+        assertEquals(expected, index.getFailedTests().stream().sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    void shouldReadWhatWasWritten() throws Exception {
+        RobotFailureIndex index = RobotFailureIndex.of(parse("robot4_output.xml"));
+        File file = new File(Files.createTempDirectory("robot-failed").toFile(), RobotFailureIndex.FILE);
+        index.write(file);
+        RobotFailureIndex read = RobotFailureIndex.read(file);
+
+        assertEquals(index.getFailedTests(), read.getFailedTests());
+        assertEquals(index.toArgumentFile(true), read.toArgumentFile(true));
+    }
+
+    @Test
+    void shouldWriteArgumentFile() throws Exception {
+        RobotFailureIndex index = RobotFailureIndex.of(parse("robot4_output.xml"));
+        String tests = index.toArgumentFile(false);
+        String suites = index.toArgumentFile(true);
+
+        assertEquals(index.getCount(), tests.split("\n").length);
+        for (String line : tests.split("\n"))
+            assertTrue(line.startsWith("--test "), line);
+        assertEquals(index.getFailedSuites().size(), suites.split("\n").length);
+        for (String line : suites.split("\n"))
+            assertTrue(line.startsWith("--suite "), line);
+    }
+
+    @Test
+    void shouldBeEmptyWithoutFailures() throws Exception {
+        assertEquals("", RobotFailureIndex.of(new RobotResult()).toArgumentFile(false));
+    }
+
+    @Test
+    void shouldEscapePatternCharacters() {
+        assertEquals("Top.Is it [*][?]", RobotFailureIndex.escape("Top.Is it *?"));
+        assertEquals("Top.[[]1]", RobotFailureIndex.escape("Top.[1]"));
+    }
+
+    private static RobotResult parse(String file) throws Exception {
+        File directory = new File(RobotFailureIndexTest.class.getResource(".").toURI());
+        RobotResult result = new RobotParser.RobotParserCallable(file, null, null).invoke(directory, null);
+        result.tally(null);
+        return result;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2008-2014 Nokia Solutions and Networks Oy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package hudson.plugins.robot;
+
+import hudson.FilePath;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RobotGzipFilesTest {
+
+    @Test
+    void shouldCompressLogAndReportFilesOnly() {
+        assertTrue(RobotGzipFiles.isCompressible("log.html"));
+        assertTrue(RobotGzipFiles.isCompressible("sub/log-1.js"));
+        assertFalse(RobotGzipFiles.isCompressible("output.xml"));
+        assertFalse(RobotGzipFiles.isCompressible("screenshot.png"));
+    }
+
+    @Test
+    void shouldParseAcceptEncoding() {
+        assertTrue(RobotGzipFiles.acceptsGzip("gzip, deflate, br"));
+        assertTrue(RobotGzipFiles.acceptsGzip("deflate;q=1.0, GZIP;q=0.5"));
+        assertTrue(RobotGzipFiles.acceptsGzip("*"));
+        assertFalse(RobotGzipFiles.acceptsGzip(null));
+        assertFalse(RobotGzipFiles.acceptsGzip("identity"));
+        assertFalse(RobotGzipFiles.acceptsGzip("gzip;q=0"));
+        assertFalse(RobotGzipFiles.acceptsGzip("br, gzip; q=0.0"));
+    }
+
+    @Test
+    void shouldNotCopyOutsideOfTheDestination() throws Exception {
+        FilePath dest = new FilePath(Files.createTempDirectory("robot-dest").toFile());
+        for (String path : new String[]{"../log.html", "sub/../../config.xml", "/tmp/output.xml.gz"}) {
+            assertThrows(IOException.class, () -> RobotGzipFiles.destination(dest, path));
+        }
+        assertEquals(new File(dest.getRemote(), "sub/log.html").getPath(),
+                RobotGzipFiles.destination(dest, "sub/log.html").getRemote());
+    }
+
+    @Test
+    void shouldCopyLogsCompressed() throws Exception {
+        File tmp = Files.createTempDirectory("robot_gzip").toFile();
+        tmp.deleteOnExit();
+        File src = new File(tmp, "src");
+        File dest = new File(tmp, "dest");
+        String log = "<html>" + "robot ".repeat(10000) + "</html>";
+        Files.createDirectories(new File(src, "sub").toPath());
+        Files.writeString(new File(src, "sub/log.html").toPath(), log);
+        Files.writeString(new File(src, "output.xml").toPath(), "<robot/>");
+
+        int copied = RobotGzipFiles.copyCompressed(new FilePath(src), "**/log.html,output.xml", new FilePath(dest));
+
+        assertEquals(2, copied);
+        assertFalse(new File(dest, "sub/log.html").exists());
+        File compressed = new File(dest, "sub/log.html.gz");
+        assertTrue(compressed.length() < log.length() / 10);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(compressed.toPath()))) {
+            assertEquals(log, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals("<robot/>", Files.readString(new File(dest, "output.xml").toPath()));
+        assertTrue(RobotReportFiles.exists(dest, "sub/log.html"));
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2008-2014 Nokia Solutions and Networks Oy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package hudson.plugins.robot;
+
+import hudson.plugins.robot.model.RobotCaseResult;
+import hudson.plugins.robot.model.RobotResult;
+import hudson.plugins.robot.model.RobotSuiteResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RobotLiveParserTest {
+
+    @Test
+    void shouldFindTheTestsOfTheFullParse() throws Exception {
+        for (String file : new String[]{"model/output.xml", "robot4_output.xml", "robot7/inline_var_output.xml"}) {
+            for (int chunk : new int[]{97, 1024, Integer.MAX_VALUE}) {
+                RobotResult full = parse(file);
+                RobotResult live = follow(file, chunk);
+                assertTrue(full.getOverallTotal() > 0, file);
+                assertEquals(full.getOverallTotal(), live.getOverallTotal(), file + " in chunks of " + chunk);
+                assertEquals(full.getOverallFailed(), live.getOverallFailed(), file + " in chunks of " + chunk);
+                assertEquals(full.getOverallSkipped(), live.getOverallSkipped(), file + " in chunks of " + chunk);
+                assertEquals(cases(full), cases(live), file + " in chunks of " + chunk);
+                // suites of the same name are combined when read live
+                Map<String, Long> names = full.getSuites().stream()
+                        .collect(Collectors.groupingBy(RobotSuiteResult::getName, Collectors.counting()));
+                for (RobotSuiteResult suite : full.getSuites()) {
+                    if (names.get(suite.getName()) > 1)
+                        continue;
+                    assertEquals(suite.getTotal(), live.getSuite(suite.getName()).getTotal(), file + " in chunks of " + chunk);
+                    assertEquals(suite.getFailed(), live.getSuite(suite.getName()).getFailed(), file + " in chunks of " + chunk);
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldStopAtStatistics() throws Exception {
+        File dir = Files.createTempDirectory("robot-live").toFile();
+        Files.copy(new File(RobotLiveParserTest.class.getResource("robot4_output.xml").toURI()).toPath(),
+                new File(dir, "output.xml").toPath());
+        RobotLiveParser.Update update = new RobotLiveParser("output.xml", new RobotLiveParser.State()).invoke(dir, null);
+        assertTrue(update.getState().isFinished());
+        RobotLiveParser.Update next = new RobotLiveParser("output.xml", update.getState()).invoke(dir, null);
+        assertNull(next.getTests());
+        assertEquals(update.getState().getOffset(), next.getState().getOffset());
+    }
+
+    @Test
+    void shouldWaitForTheOutputFile() throws Exception {
+        File dir = Files.createTempDirectory("robot-live").toFile();
+        RobotLiveParser.Update update = new RobotLiveParser("output.xml", new RobotLiveParser.State()).invoke(dir, null);
+        assertNull(update.getTests());
+        assertEquals(0, update.getState().getOffset());
+    }
+
+    private static RobotResult parse(String file) throws Exception {
+        File resource = new File(RobotLiveParserTest.class.getResource(file).toURI());
+        RobotResult result = new RobotParser.RobotParserCallable(resource.getName(), null, null).invoke(resource.getParentFile(), null);
+        result.tally(null);
+        return result;
+    }
+
+    private static RobotResult follow(String file, int chunk) throws Exception {
+        byte[] bytes = Files.readAllBytes(new File(RobotLiveParserTest.class.getResource(file).toURI()).toPath());
+        File dir = Files.createTempDirectory("robot-live").toFile();
+        File output = new File(dir, "output.xml");
+        RobotResult live = new RobotResult();
+        RobotLiveParser.State state = new RobotLiveParser.State();
+        for (int written = 0; written < bytes.length; ) {
+            int count = Math.min(chunk, bytes.length - written);
+            try (OutputStream out = Files.newOutputStream(output.toPath(), StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                out.write(bytes, written, count);
+            }
+            written += count;
+            RobotLiveParser.Update update = new RobotLiveParser("output.xml", state).invoke(dir, null);
+            state = update.getState();
+            RobotResult tests = update.getTests();
+            if (tests != null)
+                live.addCases(tests);
+        }
+        // added cases are counted as they come, like in a run in progress
+        return live;
+    }
+
+    private static List<String> cases(RobotResult result) {
+        return result.getAllCases().stream()
+                .map(c -> c.getRelativePackageName(result) + "/" + c.getName() + ":" + status(c))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private static String status(RobotCaseResult caseResult) {
+        return caseResult.isPassed() ? "PASS" : caseResult.isSkipped() ? "SKIP" : "FAIL";
+    }
+}
@@ -1,10 +1,23 @@
 package hudson.plugins.robot;
 
+import hudson.plugins.robot.model.RobotCaseResult;
+import hudson.plugins.robot.model.RobotProcessWindow;
+import hudson.plugins.robot.model.RobotResult;
+import hudson.plugins.robot.model.RobotSuiteResult;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class RobotParserTest {
 
@@ -202,6 +215,143 @@ class RobotParserTest {
         parse(dir, mask);
     }
 
+    @Test
+    void shouldReadTotalsFromStatistics() throws Exception {
+        File directory = new File(RobotParserTest.class.getResource(".").toURI());
+        assertArrayEquals(new long[]{4, 2, 6}, new RobotParser.TotalsCallable("robot4_output.xml").invoke(directory, null));
+        // all tests, not only the critical ones
+        assertArrayEquals(new long[]{8, 6, 0}, new RobotParser.TotalsCallable("model/output.xml").invoke(directory, null));
+        assertArrayEquals(new long[]{12, 8, 6}, new RobotParser.TotalsCallable("robot4_output.xml,model/output.xml").invoke(directory, null));
+    }
+
+    @Test
+    void shouldMergeLaterOutputs() throws Exception {
+        RobotResult result = parseMerged("merge/output.xml,merge/rerun.xml");
+        assertEquals(5, result.getOverallTotal());
+        assertEquals(1, result.getOverallFailed());
+
+        RobotSuiteResult top = result.getSuite("Top");
+        RobotCaseResult flaky = top.getSuite("Top Tests").getCase("Flaky");
+        assertTrue(flaky.isPassed());
+        assertEquals(List.of("FAIL"), flaky.getMergeHistory());
+        assertTrue(top.getSuite("Top Tests").getCase("Stable").getMergeHistory().isEmpty());
+        assertTrue(top.getSuite("Top Tests").getCase("Added").isPassed());
+
+        // passed in the rerun but failed by its suite teardown
+        RobotCaseResult broken = top.getSuite("Sub").getCase("Broken");
+        assertFalse(broken.isPassed());
+        assertEquals(List.of("FAIL"), broken.getMergeHistory());
+        // not rerun, so not failed by the teardown of the rerun
+        assertTrue(top.getSuite("Sub").getCase("Fine").isPassed());
+    }
+
+    @Test
+    void shouldMergeInTheOrderOfThePatterns() throws Exception {
+        RobotResult result = parseMerged("merge/rerun.xml,merge/output.xml");
+        assertEquals(5, result.getOverallTotal());
+        RobotCaseResult flaky = result.getSuite("Top").getSuite("Top Tests").getCase("Flaky");
+        assertFalse(flaky.isPassed());
+        assertEquals(List.of("PASS"), flaky.getMergeHistory());
+    }
+
+    @Test
+    void shouldKeepOutputsApartWithoutMerge() throws Exception {
+        File directory = new File(RobotParserTest.class.getResource(".").toURI());
+        RobotResult result = new RobotParser.RobotParserCallable("merge/output.xml,merge/rerun.xml", null, null).invoke(directory, null);
+        result.tally(null);
+        assertEquals(7, result.getOverallTotal());
+    }
+
+    @Test
+    void shouldCombinePabotOutputsIntoOneHierarchy() throws Exception {
+        RobotResult result = parsePabot("pabot_results/*/output.xml");
+
+        assertEquals(1, result.getSuites().size());
+        RobotSuiteResult top = result.getSuite("Top");
+        assertEquals(2, top.getChildSuites().size());
+        assertEquals(3, top.getSuite("Sub").getCaseResults().size());
+        assertEquals(2, top.getSuite("Top Tests").getCaseResults().size());
+        assertEquals(5, result.getOverallTotal());
+        assertEquals(2, result.getOverallFailed());
+        assertEquals("Timeout", top.getSuite("Top Tests").getCase("Flaky").getErrorMsg());
+        // from the start of the first process to the end of the last one
+        assertEquals(4000, top.getDuration());
+        assertEquals(3000, top.getSuite("Sub").getDuration());
+    }
+
+    @Test
+    void shouldRenumberIdsOfPabotProcesses() throws Exception {
+        // both processes number their first sub suite s1-s1
+        RobotResult result = parsePabot("pabot_results/*/output.xml");
+
+        RobotSuiteResult top = result.getSuite("Top");
+        assertEquals("s1", top.getId());
+        assertEquals("s1-s1", top.getSuite("Sub").getId());
+        assertEquals("s1-s2", top.getSuite("Top Tests").getId());
+        assertEquals("s1-s2-t1", top.getSuite("Top Tests").getCase("Flaky").getId());
+        assertEquals("s1-s1-t3", top.getSuite("Sub").getCase("Later").getId());
+        Set<String> ids = new HashSet<>();
+        for (RobotSuiteResult suite : result.getAllSuites())
+            assertTrue(ids.add(suite.getId()), suite.getId());
+        for (RobotCaseResult caseResult : result.getAllCases())
+            assertTrue(ids.add(caseResult.getId()), caseResult.getId());
+    }
+
+    @Test
+    void shouldRecordPabotProcessWindows() throws Exception {
+        RobotResult result = parsePabot("pabot_results/*/output.xml");
+
+        List<RobotProcessWindow> processes = result.getProcesses();
+        assertEquals(3, processes.size());
+        assertEquals("0", processes.get(0).getName());
+        assertEquals(2000, processes.get(0).getDuration());
+        assertEquals(2, processes.get(0).getTests());
+        assertEquals("1", processes.get(1).getName());
+        assertEquals(3500, processes.get(1).getDuration());
+        assertEquals(500_000, processes.get(1).getStartMicros() - result.getProcessesStart());
+        assertEquals(1, processes.get(2).getTests());
+        assertEquals(54.1, result.getProcessUtilization(), 0.01);
+    }
+
+    @Test
+    void shouldOrderPabotProcessesByIndex() throws Exception {
+        File source = new File(RobotParserTest.class.getResource("pabot/pabot_results/0/output.xml").toURI());
+        File directory = Files.createTempDirectory("robot-pabot").toFile();
+        for (int i = 0; i < 12; i++) {
+            File process = new File(directory, "pabot_results/" + i);
+            assertTrue(process.mkdirs());
+            Files.copy(source.toPath(), new File(process, "output.xml").toPath());
+        }
+        RobotResult result = new RobotParser.RobotParserCallable("pabot_results/*/output.xml", null, null, new RobotParser.Options().pabot(true)).invoke(directory, null);
+
+        List<String> names = result.getProcesses().stream().map(RobotProcessWindow::getName).collect(Collectors.toList());
+        assertEquals(List.of("0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11"), names);
+    }
+
+    @Test
+    void shouldNotRecordProcessesWithoutPabot() throws Exception {
+        File directory = new File(RobotParserTest.class.getResource("pabot").toURI());
+        RobotResult result = new RobotParser.RobotParserCallable("pabot_results/*/output.xml", null, null).invoke(directory, null);
+        result.tally(null);
+        assertEquals(3, result.getSuites().size());
+        assertTrue(result.getProcesses().isEmpty());
+        assertEquals(0, result.getProcessUtilization());
+    }
+
+    private RobotResult parsePabot(String mask) throws Exception {
+        File directory = new File(RobotParserTest.class.getResource("pabot").toURI());
+        RobotResult result = new RobotParser.RobotParserCallable(mask, null, null, new RobotParser.Options().pabot(true)).invoke(directory, null);
+        result.tally(null);
+        return result;
+    }
+
+    private RobotResult parseMerged(String mask) throws Exception {
+        File directory = new File(RobotParserTest.class.getResource(".").toURI());
+        RobotResult result = new RobotParser.RobotParserCallable(mask, null, null, new RobotParser.Options().merge(true)).invoke(directory, null);
+        result.tally(null);
+        return result;
+    }
+
     private void parse(String dir, String mask) {
         assertDoesNotThrow(() -> {
             File directory = new File(RobotParserTest.class.getResource(dir).toURI());
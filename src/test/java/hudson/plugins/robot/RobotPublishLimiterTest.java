@@ -0,0 +1,122 @@
+/*
+ * Copyright 2008-2014 Nokia Solutions and Networks Oy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package hudson.plugins.robot;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class RobotPublishLimiterTest {
+
+    private final RobotPublishLimiter limiter = new RobotPublishLimiter(() -> 100);
+
+    @Test
+    void shouldAdmitResultsThatFit() throws Exception {
+        RobotPublishLimiter.Permit first = limiter.acquire(60, null);
+        RobotPublishLimiter.Permit second = limiter.acquire(40, null);
+
+        assertEquals(100, limiter.getInUse());
+        first.close();
+        second.close();
+        assertEquals(0, limiter.getInUse());
+    }
+
+    @Test
+    void shouldAdmitResultLargerThanCapacityAlone() throws Exception {
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            RobotPublishLimiter.Permit permit = limiter.acquire(500, null);
+            assertEquals(500, limiter.getInUse());
+            permit.close();
+        });
+    }
+
+    @Test
+    void shouldWaitUntilCapacityIsReleased() throws Exception {
+        RobotPublishLimiter.Permit first = limiter.acquire(80, null);
+        AtomicReference<RobotPublishLimiter.Permit> second = new AtomicReference<>();
+        Thread waiting = new Thread(() -> {
+            try {
+                second.set(limiter.acquire(50, null));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiting.start();
+        awaitQueueLength(1);
+        assertEquals(80, limiter.getInUse());
+
+        first.close();
+        waiting.join(10000);
+        assertEquals(50, limiter.getInUse());
+        second.get().close();
+        assertEquals(0, limiter.getInUse());
+    }
+
+    @Test
+    void shouldAdmitInArrivalOrder() throws Exception {
+        RobotPublishLimiter.Permit first = limiter.acquire(90, null);
+        List<Long> admitted = new CopyOnWriteArrayList<>();
+        Thread large = startAcquiring(95, admitted);
+        awaitQueueLength(1);
+        // fits next to the first one but must not overtake the large one
+        Thread small = startAcquiring(10, admitted);
+        awaitQueueLength(2);
+        assertEquals(90, limiter.getInUse());
+
+        first.close();
+        large.join(10000);
+        small.join(10000);
+        assertEquals(List.of(95L, 10L), admitted);
+    }
+
+    @Test
+    void shouldLeaveQueueWhenInterrupted() throws Exception {
+        RobotPublishLimiter.Permit first = limiter.acquire(100, null);
+        Thread waiting = startAcquiring(10, new CopyOnWriteArrayList<>());
+        awaitQueueLength(1);
+
+        waiting.interrupt();
+        waiting.join(10000);
+        assertEquals(0, limiter.getQueueLength());
+        first.close();
+        first.close();
+        assertEquals(0, limiter.getInUse());
+    }
+
+    private Thread startAcquiring(long size, List<Long> admitted) {
+        Thread thread = new Thread(() -> {
+            try (RobotPublishLimiter.Permit permit = limiter.acquire(size, null)) {
+                admitted.add(permit.getSize());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private void awaitQueueLength(int length) throws InterruptedException {
+        for (int i = 0; i < 1000 && limiter.getQueueLength() != length; i++)
+            Thread.sleep(10);
+        assertEquals(length, limiter.getQueueLength());
+    }
+}
@@ -15,6 +15,7 @@
  */
 package hudson.plugins.robot;
 
+import hudson.FilePath;
 import hudson.matrix.MatrixProject;
 import hudson.model.AbstractBuild;
 import hudson.model.FreeStyleProject;
@@ -28,6 +29,7 @@ import org.htmlunit.html.HtmlPage;
 import org.htmlunit.html.HtmlTable;
 import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.jvnet.hudson.test.JenkinsRule;
@@ -443,6 +445,23 @@ class RobotPublisherSystemTest {
         j.assertLogContains("Done publishing Robot results.", j.assertBuildStatusSuccess(pipelineJob.scheduleBuild2(0)));
     }
 
+    @Test
+    void testPipelineStepPublishingInBackgroundFromCopiedFiles() throws Exception {
+        WorkflowJob pipelineJob = j.jenkins.createProject(WorkflowJob.class, "backgroundJob");
+        FilePath workspace = j.jenkins.getWorkspaceFor(pipelineJob);
+        workspace.mkdirs();
+        new FilePath(new File("src/test/resources/hudson/plugins/robot/low_failure_output.xml")).copyTo(workspace.child("output.xml"));
+        // the workspace is gone while the results are parsed
+        pipelineJob.setDefinition(new CpsFlowDefinition("node {def totals = robot outputPath: '.', publishInBackground: true\n"
+                + "deleteDir()\necho \"total ${totals.total}\"}", true));
+        WorkflowRun build = j.assertBuildStatusSuccess(pipelineJob.scheduleBuild2(0));
+        j.assertLogContains("Done publishing Robot results.", build);
+        RobotBuildAction action = build.getAction(RobotBuildAction.class);
+        assertNotNull(action);
+        assertEquals(action.getResult().getOverallTotal(), Long.parseLong(j.getLog(build).replaceAll("(?s).*total (\\d+).*", "$1")));
+        assertFalse(new File(build.getRootDir(), RobotBackgroundPublishes.STAGING_DIR).exists());
+    }
+
     private WebClient executeJobAndGetWebClient(String projectName) throws Exception {
         executeJobWithSuccess(projectName);
         return j.createWebClient();
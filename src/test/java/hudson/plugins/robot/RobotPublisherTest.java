@@ -134,6 +134,15 @@ class RobotPublisherTest {
                 remoteOperation.invoke(new File(RobotPublisherTest.class.getResource("xxe_output.xml").toURI()).getParentFile(), null));
     }
 
+    @Test
+    void shouldArchiveResultSetsInDirectoriesOfTheirOwn() {
+        assertEquals("", RobotPublisher.getResultSetDir(null));
+        assertEquals("", RobotPublisher.getResultSetDir(" "));
+        assertEquals("linux/", RobotPublisher.getResultSetDir("linux"));
+        assertEquals("linux_x64_.._tests/", RobotPublisher.getResultSetDir("linux x64/../tests"));
+        assertEquals("__/", RobotPublisher.getResultSetDir(".."));
+    }
+
     private RobotPublisher getRobotPublisher(double passThreshold, double unstableThreshold) {
         return new RobotPublisher(null, "", "", false, "", "", passThreshold, unstableThreshold, countSkipped, "", false, "", false);
     }
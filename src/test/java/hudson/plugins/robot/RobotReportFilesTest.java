@@ -0,0 +1,133 @@
+/*
+ * Copyright 2008-2014 Nokia Solutions and Networks Oy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package hudson.plugins.robot;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.stapler.Ancestor;
+import org.kohsuke.stapler.StaplerRequest2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RobotReportFilesTest {
+
+    @Test
+    void shouldParseSingleRanges() {
+        assertArrayEquals(new long[]{0, 99}, RobotReportFiles.parseRange("bytes=0-99", 1000));
+        assertArrayEquals(new long[]{500, 999}, RobotReportFiles.parseRange("bytes=500-", 1000));
+        assertArrayEquals(new long[]{900, 999}, RobotReportFiles.parseRange("bytes=-100", 1000));
+        assertArrayEquals(new long[]{0, 999}, RobotReportFiles.parseRange("bytes=-5000", 1000));
+        assertArrayEquals(new long[]{990, 999}, RobotReportFiles.parseRange("bytes=990-5000", 1000));
+    }
+
+    @Test
+    void shouldServeWholeFileForUnsupportedRanges() {
+        assertNull(RobotReportFiles.parseRange(null, 1000));
+        assertNull(RobotReportFiles.parseRange("bytes=0-1,5-6", 1000));
+        assertNull(RobotReportFiles.parseRange("lines=0-1", 1000));
+        assertNull(RobotReportFiles.parseRange("bytes=x-1", 1000));
+        assertNull(RobotReportFiles.parseRange("bytes=10-5", 1000));
+    }
+
+    @Test
+    void shouldRejectUnsatisfiableRanges() {
+        assertEquals(0, RobotReportFiles.parseRange("bytes=1000-", 1000).length);
+        assertEquals(0, RobotReportFiles.parseRange("bytes=2000-3000", 1000).length);
+        assertEquals(0, RobotReportFiles.parseRange("bytes=-0", 1000).length);
+    }
+
+    @Test
+    void shouldCheckConditionalRequests() {
+        String etag = "\"10-20\"";
+        assertTrue(RobotReportFiles.isNotModified(etag, -1, etag, 5000));
+        assertTrue(RobotReportFiles.isNotModified("\"1-2\", W/" + etag, -1, etag, 5000));
+        assertTrue(RobotReportFiles.isNotModified("*", -1, etag, 5000));
+        assertFalse(RobotReportFiles.isNotModified("\"1-2\"", 9000, etag, 5000));
+        assertTrue(RobotReportFiles.isNotModified(null, 5000, etag, 5999));
+        assertFalse(RobotReportFiles.isNotModified(null, 5000, etag, 6000));
+        assertFalse(RobotReportFiles.isNotModified(null, -1, etag, 5000));
+    }
+
+    @Test
+    void shouldNotFollowLinksOutOfTheDirectory() throws Exception {
+        File root = Files.createTempDirectory("robot-files").toFile();
+        File dir = new File(root, "robot-plugin");
+        assertTrue(new File(dir, "sub").mkdirs());
+        File secret = new File(root, "secret.txt");
+        Files.writeString(secret.toPath(), "secret");
+        File report = new File(dir, "report.html");
+        Files.writeString(report.toPath(), "report");
+        Files.createSymbolicLink(new File(dir, "escaping.html").toPath(), secret.toPath());
+        Files.createSymbolicLink(new File(dir, "sub/inside.html").toPath(), report.toPath());
+
+        assertTrue(RobotReportFiles.isInside(report, dir));
+        assertTrue(RobotReportFiles.isInside(new File(dir, "sub/inside.html"), dir));
+        assertFalse(RobotReportFiles.isInside(new File(dir, "escaping.html"), dir));
+        assertFalse(RobotReportFiles.isInside(new File(dir, "missing.html"), dir));
+    }
+
+    @Test
+    void shouldCacheForLongOnlyBuildsAddressedByNumber() {
+        FreeStyleProject job = mock(FreeStyleProject.class);
+        FreeStyleBuild build = mock(FreeStyleBuild.class);
+        when(build.getNumber()).thenReturn(12);
+
+        assertTrue(RobotReportFiles.isNumberedBuild(request(ancestor(job, "/jenkins/job/x"), ancestor(build, "/jenkins/job/x/12"))));
+        assertFalse(RobotReportFiles.isNumberedBuild(request(ancestor(job, "/jenkins/job/x"), ancestor(build, "/jenkins/job/x/lastSuccessfulBuild"))));
+        assertFalse(RobotReportFiles.isNumberedBuild(request(ancestor(job, "/jenkins/job/x"))));
+    }
+
+    @Test
+    void shouldCopyRangeOfFile() throws Exception {
+        File file = File.createTempFile("log", ".html");
+        file.deleteOnExit();
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100000; i++)
+            content.append((char) ('a' + i % 26));
+        Files.writeString(file.toPath(), content);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RobotReportFiles.copy(file, 70000, 20000, out);
+
+        assertEquals(content.substring(70000, 90000), out.toString(StandardCharsets.US_ASCII));
+    }
+
+    private static StaplerRequest2 request(Ancestor... ancestors) {
+        StaplerRequest2 req = mock(StaplerRequest2.class);
+        when(req.getAncestors()).thenReturn(List.of(ancestors));
+        return req;
+    }
+
+    private static Ancestor ancestor(Object object, String url) {
+        Ancestor ancestor = mock(Ancestor.class);
+        when(ancestor.getObject()).thenReturn(object);
+        when(ancestor.getUrl()).thenReturn(url);
+        return ancestor;
+    }
+}
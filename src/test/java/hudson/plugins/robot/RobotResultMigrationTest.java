@@ -0,0 +1,62 @@
+/*
+ * Copyright 2008-2014 Nokia Solutions and Networks Oy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package hudson.plugins.robot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RobotResultMigrationTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void shouldPauseToKeepCpuShare() {
+        RobotResultMigration.Throttle throttle = new RobotResultMigration.Throttle();
+        throttle.setBudgets(25, 0);
+
+        assertEquals(3 * SECOND, throttle.pauseNanos(SECOND, 0));
+    }
+
+    @Test
+    void shouldNotPauseWithFullCpuShare() {
+        RobotResultMigration.Throttle throttle = new RobotResultMigration.Throttle();
+        throttle.setBudgets(100, 0);
+
+        assertEquals(0, throttle.pauseNanos(SECOND, 1024 * 1024));
+    }
+
+    @Test
+    void shouldPauseToKeepIoRate() {
+        RobotResultMigration.Throttle throttle = new RobotResultMigration.Throttle();
+        throttle.setBudgets(100, 1024 * 1024);
+
+        // 4 MB at 1 MB/s takes 4 seconds, one of them spent working
+        assertEquals(3 * SECOND, throttle.pauseNanos(SECOND, 4 * 1024 * 1024));
+        assertEquals(0, throttle.pauseNanos(5 * SECOND, 4 * 1024 * 1024));
+    }
+
+    @Test
+    void shouldPauseForTheTighterBudget() {
+        RobotResultMigration.Throttle throttle = new RobotResultMigration.Throttle();
+        throttle.setBudgets(50, 1024 * 1024);
+
+        assertEquals(SECOND, throttle.pauseNanos(SECOND, 1024));
+        assertEquals(9 * SECOND, throttle.pauseNanos(SECOND, 10 * 1024 * 1024));
+    }
+}
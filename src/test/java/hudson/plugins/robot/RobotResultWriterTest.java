@@ -0,0 +1,88 @@
+/*
+ * Copyright 2008-2014 Nokia Solutions and Networks Oy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package hudson.plugins.robot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RobotResultWriterTest {
+
+    @Test
+    void shouldWriteInSubmitOrder() throws Exception {
+        RobotResultWriter writer = new RobotResultWriter(16);
+        List<Integer> written = new CopyOnWriteArrayList<>();
+        List<Future<?>> writes = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int index = i;
+            writes.add(writer.submit(() -> written.add(index)));
+        }
+        for (Future<?> write : writes)
+            write.get(10, TimeUnit.SECONDS);
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), written);
+        writer.shutdown();
+    }
+
+    @Test
+    void shouldWriteInSubmittingThreadWhenQueueIsFull() throws Exception {
+        RobotResultWriter writer = new RobotResultWriter(1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        writer.submit(() -> {
+            blocked.countDown();
+            awaitQuietly(release);
+        });
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+        writer.submit(() -> { });
+
+        List<Thread> threads = new ArrayList<>();
+        Future<?> write = writer.submit(() -> threads.add(Thread.currentThread()));
+        assertTrue(write.isDone());
+        assertEquals(List.of(Thread.currentThread()), threads);
+        release.countDown();
+        writer.shutdown();
+    }
+
+    @Test
+    void shouldCompletePendingWritesOnShutdown() throws Exception {
+        RobotResultWriter writer = new RobotResultWriter(16);
+        CountDownLatch release = new CountDownLatch(1);
+        writer.submit(() -> awaitQuietly(release));
+        Future<?> pending = writer.submit(() -> { });
+        release.countDown();
+
+        writer.shutdown();
+        assertTrue(pending.isDone());
+        assertTrue(writer.submit(() -> { }).isDone());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2008-2014 Nokia Solutions and Networks Oy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package hudson.plugins.robot;
+
+import hudson.plugins.robot.model.RobotResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RobotShardPlannerTest {
+
+    @Test
+    void shouldAssignLongestFirstToLeastLoadedShard() {
+        Map<String, Long> durations = new LinkedHashMap<>();
+        durations.put("A", 2L);
+        durations.put("B", 7L);
+        durations.put("C", 3L);
+        durations.put("D", 5L);
+        durations.put("E", 4L);
+        durations.put("F", 3L);
+        RobotShardPlanner plan = RobotShardPlanner.plan(durations, 2, false);
+
+        List<RobotShardPlanner.Shard> shards = plan.getShards();
+        assertEquals(List.of("B", "C", "A"), shards.get(0).getItems());
+        assertEquals(List.of("D", "E", "F"), shards.get(1).getItems());
+        assertEquals(12, shards.get(0).getEstimatedDuration());
+        assertEquals(12, shards.get(1).getEstimatedDuration());
+        assertEquals(12, plan.getMakespan());
+    }
+
+    @Test
+    void shouldGiveEveryShardAnEntryWhenFewerItems() {
+        RobotShardPlanner plan = RobotShardPlanner.plan(Map.of("A", 1L), 3, false);
+        assertEquals(3, plan.getShards().size());
+        assertEquals(List.of("A"), plan.getShards().get(0).getItems());
+        assertTrue(plan.getShards().get(2).getItems().isEmpty());
+        assertEquals("", plan.toPabotOrdering(3));
+        assertThrows(IllegalArgumentException.class, () -> plan.toPabotOrdering(4));
+        assertThrows(IllegalArgumentException.class, () -> RobotShardPlanner.plan(Map.of("A", 1L), 0, false));
+    }
+
+    @Test
+    void shouldWritePabotOrdering() {
+        Map<String, Long> durations = Map.of("Top.Slow", 10L, "Top.Fast", 1L);
+        assertEquals("--suite Top.Slow\n--suite Top.Fast\n", RobotShardPlanner.plan(durations, 1, false).toPabotOrdering(1));
+        assertEquals("--test Top.Slow\n--test Top.Fast\n", RobotShardPlanner.plan(durations, 1, true).toPabotOrdering(1));
+    }
+
+    @Test
+    void shouldAverageDurationsByFullName() throws Exception {
+        File directory = new File(RobotShardPlannerTest.class.getResource(".").toURI());
+        RobotResult result = new RobotParser.RobotParserCallable("robot4_output.xml", null, null).invoke(directory, null);
+        Map<String, long[]> suites = new HashMap<>();
+        RobotDurationIndex index = RobotDurationIndex.of(result);
+        RobotShardPlanner.addDurations(index, false, suites);
+        RobotShardPlanner.addDurations(index, false, suites);
+        Map<String, long[]> tests = new HashMap<>();
+        RobotShardPlanner.addDurations(index, true, tests);
+
+        assertEquals(result.getAllCases().size(), tests.size());
+        assertTrue(!suites.isEmpty());
+        for (long[] sum : suites.values())
+            assertEquals(2, sum[1]);
+        for (String test : tests.keySet())
+            assertTrue(suites.keySet().stream().anyMatch(s -> test.startsWith(s + ".")), test);
+    }
+
+    @Test
+    void shouldNumberOrderingFiles() {
+        assertEquals("ordering.txt", RobotShardStepExecution.getOrderingFileName("ordering.txt", 1, 1));
+        assertEquals("ordering-2.txt", RobotShardStepExecution.getOrderingFileName("ordering.txt", 2, 3));
+        assertEquals("out/ordering-2", RobotShardStepExecution.getOrderingFileName("out/ordering", 2, 3));
+        assertEquals("out.d/ordering-2", RobotShardStepExecution.getOrderingFileName("out.d/ordering", 2, 3));
+    }
+}
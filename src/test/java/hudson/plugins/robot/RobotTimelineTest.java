@@ -0,0 +1,167 @@
+/*
+ * Copyright 2008-2014 Nokia Solutions and Networks Oy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package hudson.plugins.robot;
+
+import hudson.plugins.robot.model.RobotCaseResult;
+import hudson.plugins.robot.model.RobotDetailLevel;
+import hudson.plugins.robot.model.RobotResult;
+import hudson.plugins.robot.model.RobotSuiteResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RobotTimelineTest {
+
+    @Test
+    void shouldLayOutParallelTestsInLanes() throws Exception {
+        RobotTimeline timeline = RobotTimeline.of(parsePabot());
+
+        assertEquals(4000, timeline.getDuration());
+        assertEquals(5, timeline.getSteps().size());
+        assertEquals(2, timeline.getPeakParallelism());
+        assertEquals(6500, timeline.getBusyTime());
+        assertEquals(1.63, timeline.getEffectiveParallelism(), 0.001);
+        assertEquals(0, timeline.getIdleTime());
+        assertTrue(timeline.getGaps().isEmpty());
+        for (List<RobotTimeline.Bar> lane : timeline.getLanes())
+            for (int i = 1; i < lane.size(); i++)
+                assertTrue(lane.get(i - 1).getStart() + lane.get(i - 1).getDuration() <= lane.get(i).getStart());
+        assertEquals(List.of("Top", "Top.Sub", "Top.Top Tests"), timeline.getSuites().stream()
+                .map(RobotTimeline.Bar::getName).sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    void shouldFollowTheTestsTheEndWaitedFor() throws Exception {
+        RobotTimeline timeline = RobotTimeline.of(parsePabot());
+
+        // Flaky and Later both end when Stable starts, the longer one is taken
+        assertEquals(List.of("Top.Top Tests.Flaky", "Top.Top Tests.Stable"),
+                timeline.getCriticalPath().stream().map(RobotTimeline.Bar::getName).collect(Collectors.toList()));
+        assertEquals(3500, timeline.getCriticalPathDuration());
+    }
+
+    @Test
+    void shouldFindIdleGaps() {
+        RobotResult result = new RobotResult();
+        RobotSuiteResult suite = addSuite(result, "Suite", "20240102 10:00:00.000", "6000");
+        addCase(suite, "First", "20240102 10:00:00.000", "20240102 10:00:01.000");
+        addCase(suite, "Second", "20240102 10:00:03.000", "20240102 10:00:04.000");
+        addCase(suite, "Third", "20240102 10:00:05.000", "20240102 10:00:06.000");
+        result.tally(null);
+        RobotTimeline timeline = RobotTimeline.of(result);
+
+        // as Robot wrote it, not shifted by a time zone
+        assertEquals("2024-01-02T10:00:00", timeline.getStartTime());
+        assertEquals(2, timeline.getGapCount());
+        assertEquals(3000, timeline.getIdleTime());
+        assertEquals(2, timeline.getGaps().size());
+        assertEquals(1000, timeline.getGaps().get(0).getStart());
+        assertEquals(2000, timeline.getGaps().get(0).getDuration());
+        assertEquals(1.0, timeline.getEffectiveParallelism() * 2, 0.001);
+        assertEquals(3, timeline.getCriticalPath().size());
+    }
+
+    @Test
+    void shouldShowSuitesOfTestsWithoutTimes() throws Exception {
+        File directory = new File(RobotTimelineTest.class.getResource("pabot").toURI());
+        RobotResult result = new RobotParser.RobotParserCallable("pabot_results/*/output.xml", null, null, new RobotParser.Options().detailLevel(RobotDetailLevel.TOTALS).pabot(true))
+                .invoke(directory, null);
+        result.tally(null);
+        RobotTimeline timeline = RobotTimeline.of(result);
+
+        List<String> steps = timeline.getSteps().stream().map(RobotTimeline.Bar::getName).sorted().collect(Collectors.toList());
+        assertEquals(List.of("Top.Sub", "Top.Top Tests"), steps);
+        assertTrue(timeline.getSteps().get(0).isSuite());
+        assertEquals(0, timeline.getUntimedTests());
+    }
+
+    @Test
+    void shouldCountTestsWithoutAnyTimes() {
+        RobotResult result = new RobotResult();
+        RobotSuiteResult suite = addSuite(result, "Suite", null, null);
+        RobotCaseResult caseResult = new RobotCaseResult();
+        caseResult.setName("Untimed");
+        caseResult.setParent(suite);
+        suite.addCaseResult(caseResult);
+        result.tally(null);
+        RobotTimeline timeline = RobotTimeline.of(result);
+
+        assertEquals(1, timeline.getUntimedTests());
+        assertTrue(timeline.getSteps().isEmpty());
+        assertEquals(0, timeline.getDuration());
+        assertEquals(0, timeline.getEffectiveParallelism());
+    }
+
+    @Test
+    void shouldReadWhatWasWritten() throws Exception {
+        RobotTimeline timeline = RobotTimeline.of(parsePabot());
+        File file = new File(Files.createTempDirectory("robot-timeline").toFile(), RobotTimeline.FILE);
+        timeline.write(file);
+        RobotTimeline read = RobotTimeline.read(file);
+
+        assertEquals(timeline.getStartMicros(), read.getStartMicros());
+        assertEquals(timeline.getDuration(), read.getDuration());
+        assertEquals(timeline.getSteps().size(), read.getSteps().size());
+        for (int i = 0; i < timeline.getSteps().size(); i++) {
+            RobotTimeline.Bar expected = timeline.getSteps().get(i);
+            RobotTimeline.Bar actual = read.getSteps().get(i);
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getStatus(), actual.getStatus());
+            assertEquals(expected.getStartMicros(), actual.getStartMicros());
+            assertEquals(expected.getElapsedMicros(), actual.getElapsedMicros());
+            assertEquals(expected.getLane(), actual.getLane());
+            assertEquals(expected.isCritical(), actual.isCritical());
+        }
+        assertEquals(timeline.getSuites().size(), read.getSuites().size());
+        assertEquals(timeline.getSuites().get(1).getDepth(), read.getSuites().get(1).getDepth());
+        assertFalse(read.isTooManyToDraw());
+    }
+
+    private static RobotResult parsePabot() throws Exception {
+        File directory = new File(RobotTimelineTest.class.getResource("pabot").toURI());
+        RobotResult result = new RobotParser.RobotParserCallable("pabot_results/*/output.xml", null, null, new RobotParser.Options().pabot(true))
+                .invoke(directory, null);
+        result.tally(null);
+        return result;
+    }
+
+    private static RobotSuiteResult addSuite(RobotResult result, String name, String start, String elapsed) {
+        RobotSuiteResult suite = new RobotSuiteResult();
+        suite.setName(name);
+        suite.setParent(result);
+        suite.setStartTime(start);
+        suite.setElapsedTime(elapsed);
+        result.addSuite(suite);
+        return suite;
+    }
+
+    private static void addCase(RobotSuiteResult suite, String name, String start, String end) {
+        RobotCaseResult caseResult = new RobotCaseResult();
+        caseResult.setName(name);
+        caseResult.setParent(suite);
+        caseResult.setPassed(true);
+        caseResult.setStarttime(start);
+        caseResult.setEndtime(end);
+        suite.addCaseResult(caseResult);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2008-2014 Nokia Solutions and Networks Oy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package hudson.plugins.robot.benchmarks;
+
+import hudson.plugins.robot.RobotReportFiles;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.apache.commons.io.FileUtils;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Throughput of serving a large archived log through {@link RobotReportFiles}.
+ * Run with {@code mvn test -Dtest=BenchmarkRunner}.
+ */
+@JmhBenchmark
+public class RobotReportFilesBenchmark {
+
+    private static final int LOG_SIZE = 64 * 1024 * 1024;
+
+    public static class LogState extends JmhBenchmarkState {
+
+        File dir;
+        String etag;
+
+        @Override
+        public void setup() throws Exception {
+            dir = Files.createTempDirectory("robot-benchmark").toFile();
+            byte[] log = new byte[LOG_SIZE];
+            Random random = new Random(0);
+            for (int i = 0; i < log.length; i++)
+                log[i] = (byte) ('a' + random.nextInt(8));
+            Files.write(new File(dir, "log.html").toPath(), log);
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(new File(dir, "report.html.gz").toPath()))) {
+                out.write(log);
+            }
+            File file = new File(dir, "log.html");
+            etag = "\"" + Long.toHexString(file.length()) + "-" + Long.toHexString(file.lastModified()) + "\"";
+        }
+
+        @Override
+        public void tearDown() {
+            FileUtils.deleteQuietly(dir);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void serveWholeFile(LogState state, Blackhole blackhole) throws Exception {
+        blackhole.consume(serve(state, "log.html", null, null, null));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void serveCompressedFile(LogState state, Blackhole blackhole) throws Exception {
+        blackhole.consume(serve(state, "report.html", "gzip", null, null));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void serveRange(LogState state, Blackhole blackhole) throws Exception {
+        blackhole.consume(serve(state, "log.html", null, "bytes=-1048576", null));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void serveNotModified(LogState state, Blackhole blackhole) throws Exception {
+        blackhole.consume(serve(state, "log.html", null, null, state.etag));
+    }
+
+    private static long serve(LogState state, String path, String acceptEncoding, String range, String ifNoneMatch) throws Exception {
+        StaplerRequest2 req = mock(StaplerRequest2.class);
+        ServletContext context = mock(ServletContext.class);
+        when(req.getServletContext()).thenReturn(context);
+        when(context.getMimeType(path)).thenReturn("text/html");
+        when(req.getHeader("Accept-Encoding")).thenReturn(acceptEncoding);
+        when(req.getHeader("Range")).thenReturn(range);
+        when(req.getHeader("If-None-Match")).thenReturn(ifNoneMatch);
+        when(req.getDateHeader("If-Modified-Since")).thenReturn(-1L);
+        StaplerResponse2 rsp = mock(StaplerResponse2.class);
+        CountingOutputStream out = new CountingOutputStream();
+        when(rsp.getOutputStream()).thenReturn(out);
+        RobotReportFiles.serve(state.dir, path, req, rsp, true);
+        return out.count;
+    }
+
+    private static final class CountingOutputStream extends ServletOutputStream {
+
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+    }
+}
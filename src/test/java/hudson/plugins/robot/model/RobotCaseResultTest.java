@@ -0,0 +1,163 @@
+/*
+ * Copyright 2008-2014 Nokia Solutions and Networks Oy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package hudson.plugins.robot.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class RobotCaseResultTest {
+
+    @Test
+    void shouldKeepLegacyTimestamps() {
+        RobotCaseResult caseResult = new RobotCaseResult();
+        caseResult.setStarttime("20130722 15:01:31.510");
+        caseResult.setEndtime("20130722 15:01:32.513");
+
+        assertEquals("20130722 15:01:31.510", caseResult.getStarttime());
+        assertEquals("20130722 15:01:32.513", caseResult.getEndtime());
+        assertEquals(1003, caseResult.getDuration());
+        assertEquals(0, caseResult.getElapsedtime(), 0);
+    }
+
+    @Test
+    void shouldKeepRobot7Timestamps() {
+        RobotCaseResult caseResult = new RobotCaseResult();
+        caseResult.setStarttime("2023-11-13T15:33:07.168330");
+        caseResult.setEndtime(null);
+        caseResult.setElapsedTime("2.001748");
+
+        assertEquals("2023-11-13T15:33:07.168330", caseResult.getStarttime());
+        assertNull(caseResult.getEndtime());
+        assertEquals(2.001748, caseResult.getElapsedtime(), 0);
+        assertEquals(2001, caseResult.getDuration());
+    }
+
+    @Test
+    void shouldKeepRobot7TimestampWithoutFraction() {
+        RobotCaseResult caseResult = new RobotCaseResult();
+        caseResult.setStarttime("2023-11-13T15:33:07");
+
+        assertEquals("2023-11-13T15:33:07", caseResult.getStarttime());
+    }
+
+    @Test
+    void shouldKeepTimestampsThatAreNotParsed() {
+        RobotCaseResult caseResult = new RobotCaseResult();
+        caseResult.setStarttime("N/A");
+        caseResult.setEndtime("N/A");
+
+        assertEquals("N/A", caseResult.getStarttime());
+        assertEquals("N/A", caseResult.getEndtime());
+        assertEquals(0, caseResult.getDuration());
+    }
+
+    @Test
+    void shouldKeepTimestampsThatAreNotParsedWhenCompacting() {
+        RobotResult result = new RobotResult();
+        RobotSuiteResult suite = new RobotSuiteResult();
+        suite.setParent(result);
+        RobotCaseResult notParsed = new RobotCaseResult();
+        notParsed.setParent(suite);
+        notParsed.setStarttime("N/A");
+        notParsed.setEndtime("N/A");
+        notParsed.setErrorMsg("Failed");
+        RobotCaseResult endNotParsed = new RobotCaseResult();
+        endNotParsed.setParent(suite);
+        endNotParsed.setStarttime("20130722 15:01:31.510");
+        endNotParsed.setEndtime("unknown");
+
+        notParsed.compactLegacyDetails();
+        endNotParsed.compactLegacyDetails();
+
+        assertEquals("N/A", notParsed.getStarttime());
+        assertEquals("N/A", notParsed.getEndtime());
+        assertEquals("Failed", notParsed.getErrorMsg());
+        assertEquals("20130722 15:01:31.510", endNotParsed.getStarttime());
+        assertEquals("unknown", endNotParsed.getEndtime());
+    }
+
+    @Test
+    void shouldKeepOneStatus() {
+        RobotCaseResult caseResult = new RobotCaseResult();
+        assertFalse(caseResult.isPassed());
+        assertFalse(caseResult.isSkipped());
+        assertEquals(1, caseResult.getFailed());
+
+        caseResult.setPassed(true);
+        caseResult.setSkipped(false);
+        assertTrue(caseResult.isPassed());
+        assertFalse(caseResult.isSkipped());
+
+        caseResult.setPassed(false);
+        caseResult.setSkipped(true);
+        assertFalse(caseResult.isPassed());
+        assertTrue(caseResult.isSkipped());
+        assertEquals(1, caseResult.getSkipped());
+    }
+
+    @Test
+    void shouldDeriveIdFromParent() {
+        RobotSuiteResult suite = new RobotSuiteResult();
+        suite.setId("s1-s2");
+        RobotCaseResult caseResult = new RobotCaseResult();
+        caseResult.setParent(suite);
+        caseResult.setId("s1-s2-t12");
+        RobotCaseResult other = new RobotCaseResult();
+        other.setParent(suite);
+        other.setId("custom-id");
+
+        assertEquals("s1-s2-t12", caseResult.getId());
+        assertEquals("custom-id", other.getId());
+    }
+
+    @Test
+    void shouldShareTagsOfCasesInResult() {
+        RobotResult result = new RobotResult();
+        RobotSuiteResult suite = new RobotSuiteResult();
+        suite.setParent(result);
+        RobotCaseResult first = new RobotCaseResult();
+        first.setParent(suite);
+        first.addTags(Arrays.asList("smoke", "regression"));
+        RobotCaseResult second = new RobotCaseResult();
+        second.setParent(suite);
+        second.addTags(Arrays.asList("smoke", "regression"));
+
+        List<String> tags = result.getStringPool().internTags(Arrays.asList("smoke", "regression"));
+        assertEquals(tags, first.getTags());
+        assertSame(tags.get(1), second.getTags().get(1));
+        assertEquals("smoke, regression", second.getCommaSeparatedTags());
+    }
+
+    @Test
+    void shouldNotHaveDetailsWithoutErrors() {
+        RobotCaseResult caseResult = new RobotCaseResult();
+        caseResult.setDescription("");
+        caseResult.setStackTrace("");
+
+        assertEquals("", caseResult.getDescription());
+        assertEquals("", caseResult.getStackTrace());
+        assertNull(caseResult.getErrorMsg());
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2008-2014 Nokia Solutions and Networks Oy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package hudson.plugins.robot.model;
+
+import hudson.plugins.robot.RobotParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RobotKeywordStatisticsTest {
+
+    private static RobotResult parse(String file, boolean keywordStatistics) throws Exception {
+        File directory = new File(RobotKeywordStatisticsTest.class.getResource("/hudson/plugins/robot").toURI());
+        return new RobotParser.RobotParserCallable(file, null, null, new RobotParser.Options().keywordStatistics(keywordStatistics)).invoke(directory, null);
+    }
+
+    @Test
+    void shouldCollectKeywordsWhileParsing() throws Exception {
+        RobotResult result = parse("keywords/output.xml", true);
+        RobotKeywordStatistics statistics = result.getKeywordStatistics();
+
+        assertEquals(List.of("common.Slow Step", "BuiltIn.Sleep", "BuiltIn.Log", "BuiltIn.Fail"),
+                statistics.getKeywords().stream().map(RobotKeywordStatistics.Keyword::getName).collect(Collectors.toList()));
+        RobotKeywordStatistics.Keyword step = statistics.getKeyword("common.Slow Step");
+        assertEquals(2, step.getCalls());
+        assertEquals(3000, step.getTotal());
+        assertEquals(1500, step.getMean());
+        assertEquals(2000, step.getMax());
+        assertEquals(2000, step.getP95());
+        // setup and teardown of the suite, the keyword not run is left out
+        RobotKeywordStatistics.Keyword log = statistics.getKeyword("BuiltIn.Log");
+        assertEquals(2, log.getCalls());
+        assertEquals(150, log.getTotal());
+        assertEquals(1, statistics.getKeyword("BuiltIn.Fail").getFailures());
+        assertEquals(0, step.getFailures());
+    }
+
+    @Test
+    void shouldParseTheSameResultWithKeywordStatistics() throws Exception {
+        RobotResult withStatistics = parse("keywords/output.xml", true);
+        RobotResult without = parse("keywords/output.xml", false);
+
+        assertNull(without.getKeywordStatistics());
+        assertEquals(without.getPassed(), withStatistics.getPassed());
+        assertEquals(without.getFailed(), withStatistics.getFailed());
+        assertEquals(without.getDuration(), withStatistics.getDuration());
+        assertEquals(without.getAllCases().get(1).getStackTrace(), withStatistics.getAllCases().get(1).getStackTrace());
+    }
+
+    @Test
+    void shouldSkipCallsWithoutBothTimes() throws Exception {
+        RobotKeywordStatistics.Keyword log = parse("keywords/bad_times.xml", true).getKeywordStatistics().getKeyword("BuiltIn.Log");
+
+        // the calls without an end or start time are left out, the one ending before its start counts as 0
+        assertEquals(2, log.getCalls());
+        assertEquals(50, log.getTotal());
+        assertEquals(50, log.getMax());
+    }
+
+    @Test
+    void shouldCollectKeywordsOfRobot7() throws Exception {
+        RobotKeywordStatistics statistics = parse("robot7/inline_var_output.xml", true).getKeywordStatistics();
+
+        assertEquals(1, statistics.getKeywords().size());
+        assertEquals(416, statistics.getKeyword("BuiltIn.Should Be Equal").getTotalMicros());
+    }
+
+    @Test
+    void shouldEstimatePercentileWithinAnEighth() {
+        RobotKeywordStatistics.Collector collector = new RobotKeywordStatistics.Collector();
+        for (int i = 1000; i > 0; i--)
+            collector.add("Keyword", i * 1000L, false);
+        collector.add("Short", 3, false);
+        RobotKeywordStatistics statistics = collector.finish();
+
+        long p95 = statistics.getKeyword("Keyword").getP95Micros();
+        assertTrue(p95 >= 950000 && p95 <= 950000 * 9 / 8, "p95 was " + p95);
+        assertEquals(1000, statistics.getKeyword("Keyword").getMax());
+        assertEquals(3, statistics.getKeyword("Short").getP95Micros());
+        for (long micros : new long[] {0, 7, 8, 15, 16, 1000, 123456789})
+            assertTrue(RobotKeywordStatistics.Collector.bucketMax(RobotKeywordStatistics.Collector.bucket(micros)) >= micros);
+    }
+
+    @Test
+    void shouldCombineCollectorsAndResults() {
+        RobotKeywordStatistics.Collector first = new RobotKeywordStatistics.Collector();
+        first.add("Keyword", 1000, false);
+        RobotKeywordStatistics.Collector second = new RobotKeywordStatistics.Collector();
+        second.add("Keyword", 3000, true);
+        second.add("Other", 5000, false);
+        first.addAll(second);
+        RobotKeywordStatistics.Keyword keyword = first.finish().getKeyword("Keyword");
+        assertEquals(2, keyword.getCalls());
+        assertEquals(1, keyword.getFailures());
+        assertEquals(4000, keyword.getTotalMicros());
+
+        RobotKeywordStatistics combined = first.finish().combine(second.finish());
+        assertEquals(3, combined.getKeyword("Keyword").getCalls());
+        assertEquals(10000, combined.getKeyword("Other").getTotalMicros());
+        assertEquals("Other", combined.getKeywords().get(0).getName());
+    }
+
+    @Test
+    void shouldReadWhatWasWritten() throws Exception {
+        RobotKeywordStatistics original = parse("keywords/output.xml", true).getKeywordStatistics();
+        File directory = Files.createTempDirectory("robot-keywords").toFile();
+        File file = new File(directory, RobotKeywordStatistics.FILE);
+        original.write(file);
+        RobotKeywordStatistics read = RobotKeywordStatistics.read(file);
+
+        assertEquals(original.getKeywords().size(), read.getKeywords().size());
+        for (RobotKeywordStatistics.Keyword keyword : original.getKeywords()) {
+            RobotKeywordStatistics.Keyword copy = read.getKeyword(keyword.getName());
+            assertEquals(keyword.getCalls(), copy.getCalls());
+            assertEquals(keyword.getFailures(), copy.getFailures());
+            assertEquals(keyword.getTotalMicros(), copy.getTotalMicros());
+            assertEquals(keyword.getP95Micros(), copy.getP95Micros());
+            assertEquals(keyword.getMax(), copy.getMax());
+        }
+        assertFalse(new File(directory, RobotKeywordStatistics.FILE + ".tmp").exists());
+    }
+}
@@ -22,6 +22,7 @@ import org.junit.jupiter.api.Test;
 import org.jvnet.hudson.test.Issue;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -338,4 +339,195 @@ class RobotResultTest {
 
         assertEquals(33.3, result.getPassPercentage(true), 0);
     }
+
+    @Test
+    void shouldTallyLargeTreeInParallel() {
+        RobotResult large = new RobotResult();
+        RobotSuiteResult root = new RobotSuiteResult();
+        root.setName("Root");
+        large.addSuite(root);
+        for (int i = 0; i < 4; i++) {
+            RobotSuiteResult child = new RobotSuiteResult();
+            child.setName("Child " + i);
+            root.addChild(child);
+            for (int j = 0; j < RobotSuiteResult.PARALLEL_TALLY_THRESHOLD / 2; j++) {
+                RobotCaseResult caseResult = new RobotCaseResult();
+                caseResult.setName("Test " + j);
+                caseResult.setPassed(j % 3 != 0);
+                caseResult.setSkipped(false);
+                child.addCaseResult(caseResult);
+            }
+        }
+        large.tally(null);
+
+        int total = 4 * (RobotSuiteResult.PARALLEL_TALLY_THRESHOLD / 2);
+        int failed = 4 * ((RobotSuiteResult.PARALLEL_TALLY_THRESHOLD / 2 + 2) / 3);
+        assertEquals(total, large.getOverallTotal());
+        assertEquals(failed, large.getOverallFailed());
+        assertEquals(total - failed, root.getPassed());
+        assertEquals(failed / 4, root.getSuite("Child 2").getFailed());
+    }
+
+    @Test
+    void shouldNotTallyAgainWhenRestoringCountedResult() {
+        long failed = result.getOverallFailed();
+        for (RobotCaseResult caseResult : result.getAllPassedCases())
+            caseResult.setPassed(false);
+
+        result.restore(null);
+
+        assertEquals(failed, result.getOverallFailed());
+    }
+
+    @Test
+    void shouldTallyResultWithoutCountsWhenRestoring() {
+        RobotResult uncounted = new RobotResult();
+        RobotSuiteResult suite = new RobotSuiteResult();
+        suite.setName("Suite");
+        RobotCaseResult caseResult = new RobotCaseResult();
+        caseResult.setName("Test");
+        caseResult.setPassed(true);
+        suite.addCaseResult(caseResult);
+        uncounted.addSuite(suite);
+
+        uncounted.restore(null);
+
+        assertEquals(1, uncounted.getOverallPassed());
+    }
+
+    @Test
+    void shouldKeyObjectsByDuplicateSafeNameWhenTallying() {
+        RobotCaseResult caseResult = result.getSuite("Othercases & Testcases").getAllCases().get(0);
+        RobotSuiteResult parent = (RobotSuiteResult) caseResult.getParent();
+        String oldName = caseResult.getDuplicateSafeName();
+        caseResult.setDuplicateSafeName("Renamed");
+
+        result.tally(null);
+
+        assertEquals(caseResult, parent.getCase("Renamed"));
+        assertNull(parent.getCase(oldName));
+    }
+
+    private RobotResult parse(String file, RobotDetailLevel detailLevel) throws Exception {
+        RobotParser.RobotParserCallable remoteOperation = new RobotParser.RobotParserCallable(file, null, null, new RobotParser.Options().detailLevel(detailLevel));
+        RobotResult parsed = remoteOperation.invoke(new File(RobotSuiteResultTest.class.getResource(file).toURI()).getParentFile(), null);
+        parsed.tally(null);
+        return parsed;
+    }
+
+    private static RobotCaseResult findCase(RobotResult target, RobotCaseResult caseResult) {
+        List<String> path = new ArrayList<>();
+        for (RobotTestObject o = caseResult.getParent(); o instanceof RobotSuiteResult; o = o.getParent())
+            path.add(0, o.getDuplicateSafeName());
+        RobotSuiteResult suite = target.getSuite(path.get(0));
+        for (String name : path.subList(1, path.size()))
+            suite = suite.getSuite(name);
+        return suite.getCase(caseResult.getDuplicateSafeName());
+    }
+
+    @Test
+    void shouldKeepOnlyNameDurationAndTagsOfPassedCases() throws Exception {
+        RobotResult compact = parse("output.xml", RobotDetailLevel.FAILURES);
+
+        assertEquals(RobotDetailLevel.FAILURES, compact.getDetailLevel());
+        assertEquals(result.getOverallPassed(), compact.getOverallPassed());
+        assertEquals(result.getOverallFailed(), compact.getOverallFailed());
+        assertEquals(result.getDuration(), compact.getDuration());
+        for (RobotCaseResult full : result.getAllPassedCases()) {
+            RobotCaseResult caseResult = findCase(compact, full);
+            assertTrue(caseResult.isDetailOmitted());
+            assertEquals(full.getName(), caseResult.getName());
+            assertEquals(full.getId(), caseResult.getId());
+            assertEquals(full.getDuration(), caseResult.getDuration());
+            assertEquals(full.getTags(), caseResult.getTags());
+            assertEquals("", caseResult.getDescription());
+            assertNull(caseResult.getStarttime());
+        }
+        for (RobotCaseResult full : result.getAllFailedCases()) {
+            RobotCaseResult caseResult = findCase(compact, full);
+            assertFalse(caseResult.isDetailOmitted());
+            assertEquals(full.getStarttime(), caseResult.getStarttime());
+            assertEquals(full.getErrorMsg(), caseResult.getErrorMsg());
+        }
+    }
+
+    @Test
+    void shouldCountPassedCasesOnlyInSuiteTotals() throws Exception {
+        RobotResult totals = parse("output.xml", RobotDetailLevel.TOTALS);
+
+        assertEquals(RobotDetailLevel.TOTALS, totals.getDetailLevel());
+        assertEquals(result.getOverallPassed(), totals.getOverallPassed());
+        assertEquals(result.getOverallFailed(), totals.getOverallFailed());
+        assertEquals(result.getDuration(), totals.getDuration());
+        assertTrue(totals.getAllPassedCases().isEmpty());
+        assertEquals(result.getFailedCases().size(), totals.getFailedCases().size());
+        RobotSuiteResult suite = totals.getSuite("Othercases & Testcases").getSuite("Testcases");
+        assertEquals(suite.getOmittedPassed(), suite.getPassed());
+    }
+
+    @Test
+    void shouldDropDetailsOnlyAfterSuiteTeardown() throws Exception {
+        RobotResult full = parse("teardown_fail.xml", RobotDetailLevel.FULL);
+        RobotResult totals = parse("teardown_fail.xml", RobotDetailLevel.TOTALS);
+
+        assertEquals(full.getOverallFailed(), totals.getOverallFailed());
+        assertEquals(full.getOverallPassed(), totals.getOverallPassed());
+    }
+
+    @Test
+    void shouldMergeNamedResultSets() throws Exception {
+        RobotResult merged = new RobotResult();
+        merged.merge(parse("output.xml", RobotDetailLevel.FULL), "linux");
+        merged.merge(parse("output.xml", RobotDetailLevel.FULL), "windows");
+
+        assertEquals(2 * result.getOverallPassed(), merged.getOverallPassed());
+        assertEquals(2 * result.getOverallFailed(), merged.getOverallFailed());
+        assertEquals(2 * result.getOverallSkipped(), merged.getOverallSkipped());
+        assertEquals(2, merged.getSuites().size());
+        RobotSuiteResult linux = merged.getSuite("linux");
+        assertEquals(result.getOverallFailed(), linux.getFailed());
+        assertNotNull(linux.getSuite("Othercases & Testcases"));
+        assertEquals("linux.Othercases & Testcases", linux.getSuite("Othercases & Testcases").getRelativePackageName(merged));
+    }
+
+    @Test
+    void shouldKeepLogFilesOfMergedResultSets() throws Exception {
+        RobotResult linux = parse("output.xml", RobotDetailLevel.FULL);
+        linux.setLogFile("linux/log.html");
+        linux.setReportFile("linux/report.html");
+        RobotResult windows = parse("output.xml", RobotDetailLevel.FULL);
+        windows.setLogFile("windows/log.html");
+        windows.setReportFile("windows/report.html");
+        RobotResult merged = new RobotResult();
+        merged.merge(linux, "linux");
+        merged.merge(windows, "windows");
+
+        assertEquals("linux/log.html", merged.getLogFile());
+        assertEquals("linux/report.html", merged.getReportFile());
+        assertEquals("linux/log.html", merged.getSuite("linux").getAllCases().get(0).getLogFile());
+        assertEquals("windows/log.html", merged.getSuite("windows").getAllCases().get(0).getLogFile());
+        assertEquals("windows/report.html", merged.getSuite("windows").getReportFile());
+        assertTrue(merged.getSuite("windows").getAllCases().get(0).getHasLog());
+    }
+
+    @Test
+    void shouldKeepMessagesOfMergedCases() throws Exception {
+        RobotResult merged = new RobotResult();
+        merged.merge(parse("output.xml", RobotDetailLevel.FULL), null);
+        merged.merge(parse("output.xml", RobotDetailLevel.FULL), null);
+
+        assertEquals(2 * result.getSuites().size(), merged.getSuites().size());
+        List<RobotCaseResult> failed = merged.getAllFailedCases();
+        assertEquals(2 * result.getAllFailedCases().size(), failed.size());
+        for (RobotCaseResult caseResult : failed) {
+            // the second copy of a top level suite has a suffixed name
+            RobotTestObject top = caseResult.getParent();
+            while (top.getParent() instanceof RobotSuiteResult)
+                top = top.getParent();
+            top.setDuplicateSafeName(top.getName());
+            RobotCaseResult original = findCase(result, caseResult);
+            assertEquals(original.getErrorMsg(), caseResult.getErrorMsg());
+            assertEquals(original.getStackTrace(), caseResult.getStackTrace());
+        }
+    }
 }
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2008-2014 Nokia Solutions and Networks Oy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package hudson.plugins.robot.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+
+class RobotStackTraceFileTest {
+
+    private File file;
+    private RobotStringPool traces;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = File.createTempFile("robot_stacktraces", ".bin");
+        file.deleteOnExit();
+        traces = new RobotStringPool();
+        traces.add("BuiltIn.Fail    first");
+        traces.add("");
+        traces.add("Keyword\n  BuiltIn.Should Be Equal    ä    €");
+        RobotStackTraceFile.write(file, traces);
+    }
+
+    @Test
+    void shouldReadSingleTraces() throws Exception {
+        RobotStackTraceFile traceFile = new RobotStackTraceFile(file);
+
+        assertEquals("Keyword\n  BuiltIn.Should Be Equal    ä    €", traceFile.read(2));
+        assertEquals("BuiltIn.Fail    first", traceFile.read(0));
+        assertEquals("", traceFile.read(1));
+    }
+
+    @Test
+    void shouldReturnNullForUnknownIndex() throws Exception {
+        RobotStackTraceFile traceFile = new RobotStackTraceFile(file);
+
+        assertNull(traceFile.read(3));
+        assertNull(traceFile.read(-1));
+    }
+
+    @Test
+    void shouldReadAllTracesInOrder() throws Exception {
+        RobotStringPool read = new RobotStackTraceFile(file).readAll();
+
+        assertEquals(traces.size(), read.size());
+        for (int i = 0; i < traces.size(); i++)
+            assertEquals(traces.get(i), read.get(i));
+    }
+}
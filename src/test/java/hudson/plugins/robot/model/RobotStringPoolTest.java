@@ -0,0 +1,93 @@
+/*
+ * Copyright 2008-2014 Nokia Solutions and Networks Oy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package hudson.plugins.robot.model;
+
+import hudson.plugins.robot.RobotParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+
+class RobotStringPoolTest {
+
+    private RobotResult result;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        RobotParser.RobotParserCallable remoteOperation = new RobotParser.RobotParserCallable("failure_heavy_output.xml", "log.html", "report.html");
+        result = remoteOperation.invoke(new File(RobotStringPoolTest.class.getResource("failure_heavy_output.xml").toURI()).getParentFile(), null);
+        result.tally(null);
+    }
+
+    @Test
+    void shouldReturnSameIndexForEqualValues() {
+        RobotStringPool pool = new RobotStringPool();
+        int first = pool.add("Connection refused");
+        int second = pool.add(new String("Connection refused"));
+
+        assertEquals(first, second);
+        assertEquals(1, pool.size());
+        assertEquals(-1, pool.add(null));
+        assertNull(pool.get(-1));
+    }
+
+    @Test
+    void shouldShareErrorMessagesAndTracesOfFailedCases() {
+        List<RobotCaseResult> failed = result.getAllFailedCases();
+        assertEquals(80, failed.size());
+
+        RobotCaseResult first = failed.get(0);
+        for (RobotCaseResult caseResult : failed) {
+            assertSame(first.getErrorMsg(), caseResult.getErrorMsg());
+            assertSame(first.getStackTrace(), caseResult.getStackTrace());
+        }
+        // stack traces are kept separately
+        assertEquals(1, result.getStringPool().size());
+    }
+
+    @Test
+    void shouldShareTagsAcrossCases() {
+        List<RobotCaseResult> cases = result.getAllCases();
+        String regression = cases.get(0).getTags().get(0);
+        for (RobotCaseResult caseResult : cases) {
+            assertSame(regression, caseResult.getTags().get(0));
+        }
+    }
+
+    @Test
+    void shouldInheritLogFileFromResult() {
+        for (RobotCaseResult caseResult : result.getAllCases()) {
+            assertSame(result.getLogFile(), caseResult.getLogFile());
+            assertEquals("log.html", caseResult.getLogFile());
+        }
+    }
+
+    @Test
+    void shouldKeepValueOfDetachedCase() {
+        RobotCaseResult caseResult = new RobotCaseResult();
+        caseResult.setErrorMsg("Failed");
+        caseResult.setStackTrace("Fail    Failed");
+
+        assertEquals("Failed", caseResult.getErrorMsg());
+        assertEquals("Fail    Failed", caseResult.getStackTrace());
+    }
+}
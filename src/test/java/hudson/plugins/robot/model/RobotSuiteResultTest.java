@@ -17,9 +17,12 @@ package hudson.plugins.robot.model;
 
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 
 
 class RobotSuiteResultTest {
@@ -93,4 +96,51 @@ class RobotSuiteResultTest {
         assertNotNull(result.getCaseResults(), "Return value was null");
         assertEquals(0, result.getCaseResults().size(), "Collection was not empty");
     }
+
+    @Test
+    void shouldGiveDuplicateCasesFirstFreeSuffix() {
+        RobotSuiteResult result = new RobotSuiteResult();
+        String[] names = {"test", "test_2", "test", "test", "test", "other", "test_1_1", "test_1"};
+        for (String name : names) {
+            RobotCaseResult caseResult = new RobotCaseResult();
+            caseResult.setName(name);
+            result.addCaseResult(caseResult);
+        }
+
+        assertEquals("test", result.getCase("test").getName());
+        assertEquals("test_2", result.getCase("test_2").getName());
+        assertEquals("test", result.getCase("test_1").getName());
+        assertEquals("test", result.getCase("test_3").getName());
+        assertEquals("test", result.getCase("test_4").getName());
+        assertEquals("test_1", result.getCase("test_1_2").getName());
+        assertEquals(8, result.getCaseResults().size());
+    }
+
+    @Test
+    void shouldAddManyDuplicatesInLinearTime() {
+        int count = 50000;
+        RobotSuiteResult result = new RobotSuiteResult();
+        RobotSuiteResult[] children = new RobotSuiteResult[count];
+        RobotCaseResult[] cases = new RobotCaseResult[count];
+        for (int i = 0; i < count; i++) {
+            children[i] = new RobotSuiteResult();
+            children[i].setName("Data Driven");
+            cases[i] = new RobotCaseResult();
+            cases[i].setName("Template Row");
+        }
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (int i = 0; i < count; i++) {
+                result.addChild(children[i]);
+                result.addCaseResult(cases[i]);
+            }
+        });
+
+        assertEquals(count, result.getChildSuites().size());
+        assertEquals(count, result.getCaseResults().size());
+        assertEquals("Data Driven", children[0].getDuplicateSafeName());
+        assertEquals("Template Row_1", cases[1].getDuplicateSafeName());
+        assertEquals("Template Row_" + (count - 1), cases[count - 1].getDuplicateSafeName());
+        assertEquals(children[count - 1], result.getSuite("Data Driven_" + (count - 1)));
+    }
 }
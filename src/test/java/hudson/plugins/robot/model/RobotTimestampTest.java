@@ -0,0 +1,79 @@
+/*
+ * Copyright 2008-2014 Nokia Solutions and Networks Oy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package hudson.plugins.robot.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class RobotTimestampTest {
+
+    @Test
+    void shouldParseLegacyFormat() {
+        long expected = ChronoUnit.MICROS.between(LocalDateTime.of(1970, 1, 1, 0, 0),
+                LocalDateTime.of(2014, 3, 14, 10, 53, 30, 832_000_000));
+        assertEquals(expected, RobotTimestamp.parse("20140314 10:53:30.832"));
+        assertEquals("20140314 10:53:30.832", RobotTimestamp.format(expected, false));
+    }
+
+    @Test
+    void shouldParseIsoFormat() {
+        long expected = LocalDateTime.of(2023, 11, 13, 15, 33, 7, 168_330_000).toEpochSecond(ZoneOffset.UTC) * 1_000_000 + 168_330;
+        assertEquals(expected, RobotTimestamp.parse("2023-11-13T15:33:07.168330"));
+        assertEquals("2023-11-13T15:33:07.168330", RobotTimestamp.format(expected, true));
+        assertEquals("2023-11-13T15:33:07", RobotTimestamp.format(RobotTimestamp.parse("2023-11-13T15:33:07"), true));
+    }
+
+    @Test
+    void shouldHandleLeapDays() {
+        assertEquals("2024-02-29T23:59:59.999999", RobotTimestamp.format(RobotTimestamp.parse("2024-02-29T23:59:59.999999"), true));
+        assertEquals(0, RobotTimestamp.parse("2023-02-29T00:00:00"));
+        assertEquals(0, RobotTimestamp.parse("19000229 00:00:00.000"));
+        assertEquals("20000229 00:00:00.000", RobotTimestamp.format(RobotTimestamp.parse("20000229 00:00:00.000"), false));
+    }
+
+    @Test
+    void shouldReturnZeroForInvalidTimestamps() {
+        assertEquals(0, RobotTimestamp.parse(null));
+        assertEquals(0, RobotTimestamp.parse(""));
+        assertEquals(0, RobotTimestamp.parse("N/A"));
+        assertEquals(0, RobotTimestamp.parse("20140314 25:53:30.832"));
+        assertEquals(0, RobotTimestamp.parse("2023-11-13 15:33:07.168330"));
+        assertEquals(0, RobotTimestamp.parse("2023-11-13T15:33:07.000000"));
+    }
+
+    @Test
+    void shouldRecognizeIsoFormat() {
+        assertTrue(RobotTimestamp.isIsoFormat("2023-11-13T15:33:07"));
+        assertFalse(RobotTimestamp.isIsoFormat("20140314 10:53:30.832"));
+        assertFalse(RobotTimestamp.isIsoFormat(null));
+    }
+
+    @Test
+    void shouldParseSeconds() {
+        assertEquals(1748, RobotTimestamp.parseSeconds("0.001748"));
+        assertEquals(5_000_000, RobotTimestamp.parseSeconds("5"));
+        assertEquals(12_500_000, RobotTimestamp.parseSeconds("12.5"));
+        assertEquals(1_500, RobotTimestamp.parseSeconds("1.5e-3"));
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2008-2014 Nokia Solutions and Networks Oy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package hudson.plugins.robot.model;
+
+import hudson.plugins.robot.RobotParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class RobotWireFormatTest {
+
+    private static RobotResult parse(String file) throws Exception {
+        RobotParser.RobotParserCallable remoteOperation = new RobotParser.RobotParserCallable(file, "log.html", "report.html");
+        return remoteOperation.invoke(new File(RobotWireFormatTest.class.getResource(file).toURI()).getParentFile(), null);
+    }
+
+    private static byte[] write(RobotResult result) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RobotWireFormat.write(result, out);
+        return out.toByteArray();
+    }
+
+    private static RobotResult read(byte[] data) throws IOException {
+        return RobotWireFormat.read(new ByteArrayInputStream(data));
+    }
+
+    @Test
+    void shouldReadWhatWasWritten() throws Exception {
+        RobotResult original = parse("failure_heavy_output.xml");
+        RobotResult result = read(write(original));
+        original.tally(null);
+        result.tally(null);
+
+        assertEquals(original.getTimeStamp(), result.getTimeStamp());
+        assertEquals(original.getOverallPassed(), result.getOverallPassed());
+        assertEquals(original.getOverallFailed(), result.getOverallFailed());
+        assertEquals(original.getDuration(), result.getDuration());
+        List<RobotCaseResult> originalCases = original.getAllFailedCases();
+        List<RobotCaseResult> cases = result.getAllFailedCases();
+        assertEquals(originalCases.size(), cases.size());
+        for (int i = 0; i < cases.size(); i++) {
+            RobotCaseResult expected = originalCases.get(i);
+            RobotCaseResult actual = cases.get(i);
+            assertEquals(expected.getRelativeId(original), actual.getRelativeId(result));
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getStarttime(), actual.getStarttime());
+            assertEquals(expected.getEndtime(), actual.getEndtime());
+            assertEquals(expected.getTags(), actual.getTags());
+            assertEquals(expected.getErrorMsg(), actual.getErrorMsg());
+            assertEquals(expected.getStackTrace(), actual.getStackTrace());
+            assertEquals(expected.getLogFile(), actual.getLogFile());
+        }
+    }
+
+    @Test
+    void shouldShareTagListsAndMessages() throws Exception {
+        RobotResult result = read(write(parse("failure_heavy_output.xml")));
+        List<RobotCaseResult> cases = result.getAllFailedCases();
+
+        assertEquals(cases.get(0).getErrorMsg(), cases.get(1).getErrorMsg());
+        assertSame(cases.get(0).getErrorMsg(), cases.get(1).getErrorMsg());
+    }
+
+    @Test
+    void shouldKeepDuplicateSafeNames() throws Exception {
+        RobotResult original = parse("collisions.xml");
+        RobotResult result = read(write(original));
+
+        Map<String, RobotSuiteResult> copies = new HashMap<>();
+        for (RobotSuiteResult copy : result.getAllSuites())
+            copies.put(copy.getRelativeId(result), copy);
+        for (RobotSuiteResult suite : original.getAllSuites()) {
+            RobotSuiteResult copy = copies.get(suite.getRelativeId(original));
+            assertEquals(suite.getName(), copy.getName());
+            for (RobotCaseResult caseResult : suite.getCaseResults())
+                assertEquals(caseResult.getName(), copy.getCase(caseResult.getDuplicateSafeName()).getName());
+        }
+    }
+
+    @Test
+    void shouldKeepMergeHistory() throws Exception {
+        File directory = new File(RobotWireFormatTest.class.getResource("/hudson/plugins/robot/merge").toURI());
+        RobotResult original = new RobotParser.RobotParserCallable("output.xml,rerun.xml", null, null, new RobotParser.Options().merge(true)).invoke(directory, null);
+        RobotResult result = read(write(original));
+
+        RobotCaseResult flaky = result.getSuite("Top").getSuite("Top Tests").getCase("Flaky");
+        assertEquals(List.of("FAIL"), flaky.getMergeHistory());
+        assertTrue(result.getSuite("Top").getSuite("Top Tests").getCase("Stable").getMergeHistory().isEmpty());
+    }
+
+    @Test
+    void shouldKeepPabotProcesses() throws Exception {
+        File directory = new File(RobotWireFormatTest.class.getResource("/hudson/plugins/robot/pabot").toURI());
+        RobotResult original = new RobotParser.RobotParserCallable("pabot_results/*/output.xml", null, null, new RobotParser.Options().pabot(true)).invoke(directory, null);
+        RobotResult result = read(write(original));
+
+        assertEquals(3, result.getProcesses().size());
+        for (int i = 0; i < 3; i++) {
+            RobotProcessWindow expected = original.getProcesses().get(i);
+            RobotProcessWindow actual = result.getProcesses().get(i);
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getStartMicros(), actual.getStartMicros());
+            assertEquals(expected.getDuration(), actual.getDuration());
+            assertEquals(expected.getTests(), actual.getTests());
+        }
+        assertTrue(read(write(new RobotResult())).getProcesses().isEmpty());
+    }
+
+    @Test
+    void shouldKeepKeywordStatistics() throws Exception {
+        File directory = new File(RobotWireFormatTest.class.getResource("/hudson/plugins/robot").toURI());
+        RobotResult original = new RobotParser.RobotParserCallable("keywords/output.xml", null, null, new RobotParser.Options().keywordStatistics(true)).invoke(directory, null);
+        RobotResult result = read(write(original));
+
+        List<RobotKeywordStatistics.Keyword> expected = original.getKeywordStatistics().getKeywords();
+        List<RobotKeywordStatistics.Keyword> actual = result.getKeywordStatistics().getKeywords();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getName(), actual.get(i).getName());
+            assertEquals(expected.get(i).getCalls(), actual.get(i).getCalls());
+            assertEquals(expected.get(i).getTotalMicros(), actual.get(i).getTotalMicros());
+            assertEquals(expected.get(i).getP95Micros(), actual.get(i).getP95Micros());
+        }
+        assertEquals(null, read(write(new RobotResult())).getKeywordStatistics());
+    }
+
+    @Test
+    void shouldWriteDeepTreesWithoutRecursion() throws Exception {
+        RobotResult original = new RobotResult();
+        RobotSuiteResult parent = new RobotSuiteResult();
+        parent.setName("Level 0");
+        original.addSuite(parent);
+        for (int i = 1; i < 20000; i++) {
+            RobotSuiteResult child = new RobotSuiteResult();
+            child.setName("Level " + i);
+            child.setParent(parent);
+            parent.addChild(child);
+            parent = child;
+        }
+        RobotCaseResult caseResult = new RobotCaseResult();
+        caseResult.setName("Deepest");
+        caseResult.setParent(parent);
+        caseResult.setPassed(true);
+        parent.addCaseResult(caseResult);
+
+        RobotResult result = read(write(original));
+
+        RobotSuiteResult suite = result.getSuite("Level 0");
+        for (int i = 1; i < 20000; i++)
+            suite = suite.getSuite("Level " + i);
+        assertEquals("Deepest", suite.getCase("Deepest").getName());
+        assertSame(suite, suite.getCase("Deepest").getParent());
+    }
+
+    @Test
+    void shouldBeSmallerThanSerializedResult() throws Exception {
+        RobotResult result = parse("failure_heavy_output.xml");
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+            out.writeObject(result);
+        }
+
+        assertTrue(write(result).length * 2 < serialized.size());
+    }
+
+    @Test
+    void shouldRejectOtherData() {
+        assertThrows(StreamCorruptedException.class, () -> read(new byte[] {1, 2, 3, 4, 5}));
+    }
+}
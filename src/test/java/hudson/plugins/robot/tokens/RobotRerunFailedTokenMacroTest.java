@@ -0,0 +1,52 @@
+package hudson.plugins.robot.tokens;
+
+import hudson.model.AbstractBuild;
+import hudson.model.TaskListener;
+import hudson.plugins.robot.RobotBuildAction;
+import hudson.plugins.robot.RobotFailureIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RobotRerunFailedTokenMacroTest {
+
+    private static final String macroName = "ROBOT_RERUNFAILED";
+
+    private RobotRerunFailedTokenMacro token;
+    private AbstractBuild<?, ?> build;
+    private TaskListener listener;
+
+    @BeforeEach
+    void setUp() {
+        token = new RobotRerunFailedTokenMacro();
+        build = mock(AbstractBuild.class);
+        listener = mock(TaskListener.class);
+        RobotBuildAction action = mock(RobotBuildAction.class);
+        RobotFailureIndex index = mock(RobotFailureIndex.class);
+
+        when(index.toArgumentFile(false)).thenReturn("--test Failcases.subcases.Failure1\n");
+        when(index.toArgumentFile(true)).thenReturn("--suite Failcases.subcases\n");
+        when(action.getFailureIndex()).thenReturn(index);
+        when(build.getAction(RobotBuildAction.class)).thenReturn(action);
+    }
+
+    @Test
+    void testAcceptsName() {
+        assertTrue(new RobotRerunFailedTokenMacro().acceptsMacroName(macroName));
+    }
+
+    @Test
+    void testTokenConversionWithTests() throws Exception {
+        assertEquals("--test Failcases.subcases.Failure1\n", token.evaluate(build, listener, macroName));
+    }
+
+    @Test
+    void testTokenConversionWithSuites() throws Exception {
+        token.suites = true;
+        assertEquals("--suite Failcases.subcases\n", token.evaluate(build, listener, macroName));
+    }
+}